@@ -34,6 +34,8 @@ public final class AnalyzedSentence {
   private final int[] whPositions;  // maps positions without whitespace to positions that include whitespaces
   private final Set<String> tokenSet;
   private final Set<String> lemmaSet;
+  // built on first use, as disambiguation may still change the tags after the sentence has been created:
+  private volatile Set<String> posTagSet;
 
   /**
    * Creates an AnalyzedSentence from the given {@link AnalyzedTokenReadings}. Whitespace is also a token.
@@ -263,6 +265,28 @@ public final class AnalyzedSentence {
     return lemmaSet;
   }
 
+  /**
+   * Get the POS tags of this sentence in a set, including special tags like {@code SENT_START}.
+   * Used internally for performance optimization.
+   * @since 3.1
+   */
+  public Set<String> getPosTagSet() {
+    Set<String> result = posTagSet;
+    if (result == null) {
+      final Set<String> tags = new HashSet<>();
+      for (AnalyzedTokenReadings token : tokens) {
+        for (AnalyzedToken reading : token.getReadings()) {
+          if (reading.getPOSTag() != null) {
+            tags.add(reading.getPOSTag());
+          }
+        }
+      }
+      result = Collections.unmodifiableSet(tags);
+      posTagSet = result;
+    }
+    return result;
+  }
+
   @SuppressWarnings("ControlFlowStatementWithoutBraces")
   @Override
   public boolean equals(Object obj) {
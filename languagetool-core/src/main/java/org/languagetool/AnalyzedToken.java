@@ -31,6 +31,11 @@ import org.jetbrains.annotations.Nullable;
  */
 public final class AnalyzedToken {
 
+  // the number of results in the match cache, must be a power of two:
+  private static final int MATCH_CACHE_SIZE = 64;
+  /** The estimated memory used by the match cache, in bytes. */
+  static final int MATCH_CACHE_MEMORY = 16 + 4 * MATCH_CACHE_SIZE;
+
   private final String token;
   private final String posTag;
   private final String lemma;
@@ -38,6 +43,9 @@ public final class AnalyzedToken {
 
   private boolean isWhitespaceBefore;
   private boolean hasNoPOSTag;
+  // results of matching this token against predicates, see getCachedMatch() - not synchronized, as
+  // the slots are read and written as a whole, and a lost or overwritten result is just computed again:
+  private int[] matchCache;
 
   public AnalyzedToken(final String token, final String posTag, final String lemma) {
     this.token = Objects.requireNonNull(token, "token cannot be null");
@@ -134,6 +142,40 @@ public final class AnalyzedToken {
     hasNoPOSTag = noTag;
   }
   
+  /**
+   * Get the cached result of matching this token against the predicate with the given id,
+   * as stored by {@link #setCachedMatch(int, boolean)}. Only for predicates that depend
+   * on nothing but the token, lemma, and POS tag. Used internally for performance optimization.
+   * @param predicateId a non-negative id, unique for each predicate
+   * @return {@code 1} if the predicate matches, {@code 0} if it doesn't, {@code -1} if the result is not cached
+   * @since 3.1
+   */
+  public int getCachedMatch(int predicateId) {
+    final int[] cache = matchCache;
+    if (cache != null) {
+      final int entry = cache[predicateId & (MATCH_CACHE_SIZE - 1)];
+      if (entry >>> 1 == predicateId + 1) {
+        return entry & 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Cache the result of matching this token against the predicate with the given id.
+   * Only the most recent results are kept. Used internally for performance optimization.
+   * @see #getCachedMatch(int)
+   * @since 3.1
+   */
+  public void setCachedMatch(int predicateId, boolean matches) {
+    int[] cache = matchCache;
+    if (cache == null) {
+      cache = new int[MATCH_CACHE_SIZE];
+      matchCache = cache;
+    }
+    cache[predicateId & (MATCH_CACHE_SIZE - 1)] = (predicateId + 1) << 1 | (matches ? 1 : 0);
+  }
+
   @Override
   public String toString() {
     return tokenInflected + '/' + posTag;
@@ -26,6 +26,7 @@ import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.languagetool.chunking.ChunkTag;
+import org.languagetool.tools.PatternCache;
 import org.languagetool.tools.StringTools;
 
 import static org.languagetool.JLanguageTool.*;
@@ -166,7 +167,7 @@ public final class AnalyzedTokenReadings implements Iterable<AnalyzedToken> {
    * @since 2.9
    */
   public boolean matchesPosTagRegex(final String posTagRegex) {
-    Pattern pattern = Pattern.compile(posTagRegex);
+    Pattern pattern = PatternCache.getDefault().compile(posTagRegex);
     boolean found = false;
     for (AnalyzedToken reading : anTokReadings) {
       if (reading.getPOSTag() != null) {
@@ -0,0 +1,129 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls how long a check may run. Pass it to
+ * {@link JLanguageTool#check(org.languagetool.markup.AnnotatedText, boolean, JLanguageTool.ParagraphHandling, RuleSelection, CheckContext)}
+ * and call {@link #cancel()} from any thread, or create it with a timeout, to stop the check.
+ * The check then stops at the next sentence or rule and returns the matches found so far,
+ * and {@link #isIncomplete()} returns {@code true}. A check also stops this way if its
+ * thread gets interrupted.
+ *
+ * <p><b>Thread-safety:</b> this class is thread-safe.</p>
+ * @since 3.1
+ */
+public final class CheckContext {
+
+  private static final ThreadLocal<CheckContext> currentContext = new ThreadLocal<>();
+
+  private final long deadlineNanos;
+  private final boolean hasDeadline;
+
+  private volatile boolean cancelled;
+  private volatile boolean incomplete;
+
+  /**
+   * Create a context for a check without time limit.
+   */
+  public CheckContext() {
+    this.deadlineNanos = 0;
+    this.hasDeadline = false;
+  }
+
+  private CheckContext(long timeoutMillis) {
+    this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    this.hasDeadline = true;
+  }
+
+  /**
+   * Create a context for a check that stops after the given time, counted from now.
+   */
+  public static CheckContext withTimeout(long timeoutMillis) {
+    if (timeoutMillis < 0) {
+      throw new IllegalArgumentException("timeoutMillis must be >= 0: " + timeoutMillis);
+    }
+    return new CheckContext(timeoutMillis);
+  }
+
+  /**
+   * Stop the check that uses this context. A check that has already finished is not affected.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Whether a check using this context has been stopped before all rules
+   * were applied to all sentences, so its result may lack some matches.
+   */
+  public boolean isIncomplete() {
+    return incomplete;
+  }
+
+  /**
+   * Internal method, called between sentences and rules by the code that checks a text.
+   * @return {@code true} if the check should stop - the check's result is then considered incomplete
+   */
+  public boolean shouldStop() {
+    if (!cancelled) {
+      if (hasDeadline && System.nanoTime() - deadlineNanos >= 0) {
+        cancelled = true;
+      } else if (Thread.currentThread().isInterrupted()) {
+        // not marked as cancelled, other threads working on the same check may continue:
+        incomplete = true;
+        return true;
+      } else {
+        return false;
+      }
+    }
+    incomplete = true;
+    return true;
+  }
+
+  /**
+   * The context of the check that's running in the current thread. Outside of a check,
+   * a context without time limit is returned.
+   */
+  public static CheckContext current() {
+    final CheckContext context = currentContext.get();
+    return context != null ? context : new CheckContext();
+  }
+
+  /**
+   * Set the context of the check that's running in the current thread.
+   * @param context the context, or {@code null} if no check is running
+   * @return the context that was set before, or {@code null}
+   */
+  @Nullable
+  static CheckContext setCurrent(@Nullable CheckContext context) {
+    final CheckContext previous = currentContext.get();
+    if (context != null) {
+      currentContext.set(context);
+    } else {
+      currentContext.remove();
+    }
+    return previous;
+  }
+
+}
@@ -0,0 +1,202 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.Category;
+import org.languagetool.rules.Rule;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The rules of a language (and, if set, of the false friends for a mother tongue), loaded
+ * once and shared by all {@link JLanguageTool} instances created with
+ * {@link JLanguageTool#JLanguageTool(CompiledRuleSet)}. The rules have a fixed order, so
+ * a {@link RuleSelection} can refer to them by index.
+ *
+ * <p>The XML-based rules are shared between the instances. Rules implemented in Java are
+ * created for every {@link JLanguageTool}, as some of them keep state while checking a text.
+ * This object only keeps them to know their ids, categories and default state.</p>
+ *
+ * <p><b>Thread-safety:</b> this class is immutable and thread-safe.</p>
+ * @since 3.1
+ */
+public final class CompiledRuleSet {
+
+  private static final ConcurrentMap<Key, CompiledRuleSet> cache = new ConcurrentHashMap<>();
+
+  private final Language language;
+  private final Language motherTongue;
+  private final List<Rule> rules;
+  private final List<Rule> sharedRules;
+  private final int builtinRuleCount;
+  private final Map<String, BitSet> ruleIdToIndices;
+  private final Map<String, BitSet> categoryToIndices;
+  private final BitSet defaultOffRules;
+
+  /**
+   * Get the rule set for the given languages, creating it on first use. The rule sets are cached
+   * for the lifetime of the JVM, so only use this with the language objects from {@link Languages}.
+   * @param motherTongue the user's mother tongue, used for false friend rules, or {@code null}
+   */
+  public static CompiledRuleSet get(Language language, @Nullable Language motherTongue) {
+    final Key key = new Key(language, motherTongue);
+    CompiledRuleSet ruleSet = cache.get(key);
+    if (ruleSet == null) {
+      final CompiledRuleSet newRuleSet = new CompiledRuleSet(language, motherTongue);
+      ruleSet = cache.putIfAbsent(key, newRuleSet);
+      if (ruleSet == null) {
+        ruleSet = newRuleSet;
+      }
+    }
+    return ruleSet;
+  }
+
+  /**
+   * Load the rules for the given languages. Use {@link #get(Language, Language)} to
+   * avoid loading them more than once.
+   * @param motherTongue the user's mother tongue, used for false friend rules, or {@code null}
+   */
+  public CompiledRuleSet(Language language, @Nullable Language motherTongue) {
+    this.language = Objects.requireNonNull(language, "language cannot be null");
+    this.motherTongue = motherTongue;
+    final JLanguageTool lt = new JLanguageTool(language, motherTongue);
+    this.rules = Collections.unmodifiableList(lt.getAllRules());
+    this.builtinRuleCount = lt.getBuiltinRuleCount();
+    this.sharedRules = rules.subList(builtinRuleCount, rules.size());
+    final Map<String, BitSet> idToIndices = new HashMap<>();
+    final Map<String, BitSet> categoryIndices = new HashMap<>();
+    final BitSet defaultOff = new BitSet(rules.size());
+    for (int i = 0; i < rules.size(); i++) {
+      final Rule rule = rules.get(i);
+      getOrCreate(idToIndices, rule.getId()).set(i);
+      final Category category = rule.getCategory();
+      if (category != null) {
+        getOrCreate(categoryIndices, category.getName()).set(i);
+      }
+      if (rule.isDefaultOff()) {
+        defaultOff.set(i);
+      }
+    }
+    this.ruleIdToIndices = Collections.unmodifiableMap(idToIndices);
+    this.categoryToIndices = Collections.unmodifiableMap(categoryIndices);
+    this.defaultOffRules = defaultOff;
+  }
+
+  private static BitSet getOrCreate(Map<String, BitSet> map, String key) {
+    BitSet bitSet = map.get(key);
+    if (bitSet == null) {
+      bitSet = new BitSet();
+      map.put(key, bitSet);
+    }
+    return bitSet;
+  }
+
+  public Language getLanguage() {
+    return language;
+  }
+
+  @Nullable
+  public Language getMotherTongue() {
+    return motherTongue;
+  }
+
+  /**
+   * All rules of this set, in the order also used by {@link JLanguageTool#getAllRules()} for
+   * instances created from this set. Do not use the Java rules among these for checking text,
+   * use the ones of a {@link JLanguageTool} instead.
+   */
+  public List<Rule> getRules() {
+    return rules;
+  }
+
+  /**
+   * The number of rules in this set.
+   */
+  public int size() {
+    return rules.size();
+  }
+
+  /**
+   * Create a new selection of this set's rules, with all rules enabled except
+   * those that are off by default.
+   */
+  public RuleSelection createSelection() {
+    return new RuleSelection(this);
+  }
+
+  /** The XML-based rules that are used by all instances created from this set. */
+  List<Rule> getSharedRules() {
+    return sharedRules;
+  }
+
+  /** The number of rules that are created for each instance. */
+  int getBuiltinRuleCount() {
+    return builtinRuleCount;
+  }
+
+  /** @return the indices of the rules with the given id - do not modify */
+  BitSet getIndicesForRuleId(String ruleId) {
+    final BitSet indices = ruleIdToIndices.get(ruleId);
+    return indices != null ? indices : new BitSet();
+  }
+
+  /** @return the indices of the rules in the given category - do not modify */
+  BitSet getIndicesForCategory(String categoryName) {
+    final BitSet indices = categoryToIndices.get(categoryName);
+    return indices != null ? indices : new BitSet();
+  }
+
+  /** @return the indices of the rules that are off by default - do not modify */
+  BitSet getDefaultOffRules() {
+    return defaultOffRules;
+  }
+
+  @Override
+  public String toString() {
+    return language.getShortNameWithCountryAndVariant() + (motherTongue != null ? "/" + motherTongue.getShortNameWithCountryAndVariant() : "")
+            + ": " + rules.size() + " rules";
+  }
+
+  private static class Key {
+    private final Language language;
+    private final Language motherTongue;
+
+    private Key(Language language, Language motherTongue) {
+      this.language = language;
+      this.motherTongue = motherTongue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      final Key other = (Key) o;
+      return language == other.language && motherTongue == other.motherTongue;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(language) + System.identityHashCode(motherTongue);
+    }
+  }
+
+}
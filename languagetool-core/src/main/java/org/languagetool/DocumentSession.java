@@ -0,0 +1,213 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A text that is checked again and again while it's being edited, e.g. in an editor.
+ * Tell the session about the edits with {@link #applyEdit(int, int, String)} or just
+ * pass the new text to {@link #setText(String)}, then call {@link #check()}. Only the
+ * sentences around an edit are split and analyzed again, the analysis of all other
+ * sentences is kept. The result is the same as that of {@link JLanguageTool#check(String)}.
+ *
+ * <p>The rules are applied to all sentences on every check, as rules that work on
+ * more than one sentence may be affected by any edit. To also avoid matching unchanged
+ * sentences again, set a {@link ResultCache} with {@link JLanguageTool#setResultCache(ResultCache)}.</p>
+ *
+ * <p><b>Thread-safety:</b> this class is not thread-safe, just like {@link JLanguageTool}.</p>
+ * @since 3.1
+ */
+public class DocumentSession {
+
+  private final JLanguageTool languageTool;
+  private final List<Segment> segments = new ArrayList<>();
+
+  private String text = "";
+  private int analyzedSentenceCount;
+
+  public DocumentSession(JLanguageTool languageTool) {
+    this.languageTool = languageTool;
+  }
+
+  public JLanguageTool getLanguageTool() {
+    return languageTool;
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * Set the text of the document. The part that differs from the previous text
+   * is handled like an edit (see {@link #applyEdit(int, int, String)}).
+   */
+  public void setText(String newText) {
+    final int maxLength = Math.min(text.length(), newText.length());
+    int prefix = 0;
+    while (prefix < maxLength && text.charAt(prefix) == newText.charAt(prefix)) {
+      prefix++;
+    }
+    int suffix = 0;
+    while (suffix < maxLength - prefix
+            && text.charAt(text.length() - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)) {
+      suffix++;
+    }
+    if (prefix == text.length() && prefix == newText.length()) {
+      return;
+    }
+    applyEdit(prefix, text.length() - prefix - suffix, newText.substring(prefix, newText.length() - suffix));
+  }
+
+  /**
+   * Change the text of the document.
+   * @param offset the position of the edit in the current text
+   * @param deletedLength the number of characters deleted at {@code offset}
+   * @param insertedText the text inserted at {@code offset}, may be empty
+   */
+  public void applyEdit(int offset, int deletedLength, String insertedText) {
+    if (offset < 0 || deletedLength < 0 || offset + deletedLength > text.length()) {
+      throw new IllegalArgumentException("Invalid edit at " + offset + " deleting " + deletedLength +
+              " characters of text with length " + text.length());
+    }
+    final String newText = text.substring(0, offset) + insertedText + text.substring(offset + deletedLength);
+    if (segments.isEmpty()) {
+      text = newText;
+      replaceSegments(0, 0, newText);
+      return;
+    }
+    // a sentence boundary next to the edit may move, so the sentences before and
+    // after the edited ones are split again, too:
+    final int first = Math.max(0, getSegmentIndex(offset) - 1);
+    final int last = Math.min(segments.size() - 1, getSegmentIndex(offset + deletedLength) + 1);
+    final int regionStart = getSegmentStart(first);
+    final int regionEnd = getSegmentStart(last) + segments.get(last).sentence.length()
+            - deletedLength + insertedText.length();
+    text = newText;
+    replaceSegments(first, last + 1, newText.substring(regionStart, regionEnd));
+  }
+
+  /**
+   * Check the current text with the rules of the {@link JLanguageTool} instance.
+   */
+  public List<RuleMatch> check() throws IOException {
+    final List<String> sentences = new ArrayList<>(segments.size());
+    final List<AnalyzedSentence> analyzedSentences = new ArrayList<>(segments.size());
+    for (int i = 0; i < segments.size(); i++) {
+      final Segment segment = segments.get(i);
+      final boolean paragraphEnd = i == segments.size() - 1;
+      if (segment.analyzedSentence == null || segment.paragraphEnd != paragraphEnd) {
+        segment.analyzedSentence = languageTool.analyzeSentence(segment.sentence, paragraphEnd);
+        segment.paragraphEnd = paragraphEnd;
+        analyzedSentenceCount++;
+      }
+      sentences.add(segment.sentence);
+      analyzedSentences.add(segment.analyzedSentence);
+    }
+    return languageTool.checkAnalyzedSentences(sentences, analyzedSentences,
+            new AnnotatedTextBuilder().addText(text).build(), JLanguageTool.ParagraphHandling.NORMAL);
+  }
+
+  /**
+   * The number of sentences analyzed by this session so far.
+   */
+  int getAnalyzedSentenceCount() {
+    return analyzedSentenceCount;
+  }
+
+  /**
+   * Replace the segments from {@code fromIndex} (inclusive) to {@code toIndex} (exclusive)
+   * with the sentences of the given part of the text, keeping the analysis of sentences
+   * at the start and end of the part that have not changed.
+   */
+  private void replaceSegments(int fromIndex, int toIndex, String region) {
+    final List<String> sentences = languageTool.sentenceTokenize(region);
+    if (!region.equals(join(sentences))) {
+      // shouldn't happen, as the sentence tokenizer keeps all characters:
+      segments.clear();
+      addSegments(0, languageTool.sentenceTokenize(text));
+      return;
+    }
+    final List<Segment> oldSegments = new ArrayList<>(segments.subList(fromIndex, toIndex));
+    segments.subList(fromIndex, toIndex).clear();
+    addSegments(fromIndex, sentences);
+    int start = 0;
+    while (start < oldSegments.size() && start < sentences.size()
+            && oldSegments.get(start).sentence.equals(sentences.get(start))) {
+      segments.set(fromIndex + start, oldSegments.get(start));
+      start++;
+    }
+    int end = 0;
+    while (end < oldSegments.size() - start && end < sentences.size() - start
+            && oldSegments.get(oldSegments.size() - 1 - end).sentence.equals(sentences.get(sentences.size() - 1 - end))) {
+      segments.set(fromIndex + sentences.size() - 1 - end, oldSegments.get(oldSegments.size() - 1 - end));
+      end++;
+    }
+  }
+
+  private void addSegments(int index, List<String> sentences) {
+    final List<Segment> newSegments = new ArrayList<>(sentences.size());
+    for (String sentence : sentences) {
+      newSegments.add(new Segment(sentence));
+    }
+    segments.addAll(index, newSegments);
+  }
+
+  private int getSegmentIndex(int pos) {
+    int start = 0;
+    for (int i = 0; i < segments.size(); i++) {
+      start += segments.get(i).sentence.length();
+      if (pos < start) {
+        return i;
+      }
+    }
+    return segments.size() - 1;
+  }
+
+  private int getSegmentStart(int index) {
+    int start = 0;
+    for (int i = 0; i < index; i++) {
+      start += segments.get(i).sentence.length();
+    }
+    return start;
+  }
+
+  private static String join(List<String> sentences) {
+    final StringBuilder sb = new StringBuilder();
+    for (String sentence : sentences) {
+      sb.append(sentence);
+    }
+    return sb.toString();
+  }
+
+  private static final class Segment {
+    private final String sentence;
+    private AnalyzedSentence analyzedSentence;
+    private boolean paragraphEnd;
+    private Segment(String sentence) {
+      this.sentence = sentence;
+    }
+  }
+
+}
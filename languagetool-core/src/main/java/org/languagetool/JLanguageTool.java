@@ -18,6 +18,8 @@
  */
 package org.languagetool;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.databroker.DefaultResourceDataBroker;
@@ -28,6 +30,8 @@ import org.languagetool.markup.AnnotatedTextBuilder;
 import org.languagetool.rules.*;
 import org.languagetool.rules.patterns.FalseFriendRuleLoader;
 import org.languagetool.rules.patterns.PatternRule;
+import org.languagetool.rules.patterns.PatternRuleAutomaton;
+import org.languagetool.rules.patterns.PatternRuleIndex;
 import org.languagetool.rules.patterns.PatternRuleLoader;
 import org.xml.sax.SAXException;
 
@@ -120,12 +124,20 @@ public class JLanguageTool {
 
   private final Language language;
   private final Language motherTongue;
+  private final CompiledRuleSet compiledRuleSet;
 
   private PrintStream printStream;
 
   private int sentenceCount;
 
   private boolean listUnknownWords;
+  private ResultCache resultCache;
+  private RuleProfile ruleProfile;
+  // the indexes of the rules used by recent checks, as usually the same rules are active in every check
+  // (MultiThreadedJLanguageTool uses several lists of rules per check):
+  private final Cache<List<Rule>, PatternRuleIndex> patternRuleIndexes = CacheBuilder.newBuilder().maximumSize(64).build();
+  private final Cache<List<Rule>, PatternRuleAutomaton> patternRuleAutomata = CacheBuilder.newBuilder().maximumSize(64).build();
+  private boolean usePatternRuleAutomaton;
   private Set<String> unknownWords;  
 
   /**
@@ -173,6 +185,7 @@ public class JLanguageTool {
   public JLanguageTool(final Language language, final Language motherTongue) {
     this.language = Objects.requireNonNull(language, "language cannot be null");
     this.motherTongue = motherTongue;
+    this.compiledRuleSet = null;
     final ResourceBundle messages = ResourceBundleTools.getMessageBundle(language);
     builtinRules = getAllBuiltinRules(language, messages);
     try {
@@ -182,6 +195,28 @@ public class JLanguageTool {
       throw new RuntimeException("Could not activate rules", e);
     }
   }
+
+  /**
+   * Create a JLanguageTool that uses the XML-based rules of the given rule set instead of
+   * loading them again. Only the built-in Java rules are created for the new instance.
+   * Use {@link #check(AnnotatedText, boolean, ParagraphHandling, RuleSelection)} to check
+   * a text with a selection of the rule set's rules.
+   *
+   * @param ruleSet the rules, usually obtained via {@link CompiledRuleSet#get(Language, Language)}
+   * @since 3.1
+   */
+  public JLanguageTool(final CompiledRuleSet ruleSet) {
+    this.compiledRuleSet = Objects.requireNonNull(ruleSet, "ruleSet cannot be null");
+    this.language = ruleSet.getLanguage();
+    this.motherTongue = ruleSet.getMotherTongue();
+    final ResourceBundle messages = ResourceBundleTools.getMessageBundle(language);
+    builtinRules = getAllBuiltinRules(language, messages);
+    if (builtinRules.size() != ruleSet.getBuiltinRuleCount()) {
+      throw new IllegalStateException("Rule set " + ruleSet + " has " + ruleSet.getBuiltinRuleCount()
+              + " built-in rules, but " + builtinRules.size() + " were created");
+    }
+    userRules.addAll(ruleSet.getSharedRules());
+  }
   
   /**
    * The grammar checker needs resources from following
@@ -230,6 +265,50 @@ public class JLanguageTool {
     this.listUnknownWords = listUnknownWords;
   }
 
+  /**
+   * Whether to match the pattern rules with a {@link PatternRuleAutomaton}, which scans
+   * each sentence once for all pattern rules (default: false). The matches are the same.
+   * @since 3.1
+   */
+  public void setUsePatternRuleAutomaton(boolean usePatternRuleAutomaton) {
+    this.usePatternRuleAutomaton = usePatternRuleAutomaton;
+  }
+
+  /**
+   * Set a cache for the analysis and the rule matches of sentences, so that sentences
+   * that have been checked before are not analyzed and matched again. The cache can be
+   * shared by several instances. Use {@code null} (the default) to not use a cache.
+   * @since 3.1
+   */
+  public void setResultCache(@Nullable ResultCache resultCache) {
+    this.resultCache = resultCache;
+  }
+
+  /**
+   * @since 3.1
+   */
+  @Nullable
+  public ResultCache getResultCache() {
+    return resultCache;
+  }
+
+  /**
+   * Set the profile that collects the time and memory used by each rule, e.g.
+   * {@link RuleProfile#getDefault()}. The default is {@code null}, i.e. the rules are not measured.
+   * @since 3.1
+   */
+  public void setRuleProfile(@Nullable RuleProfile ruleProfile) {
+    this.ruleProfile = ruleProfile;
+  }
+
+  /**
+   * @since 3.1
+   */
+  @Nullable
+  public RuleProfile getRuleProfile() {
+    return ruleProfile;
+  }
+
   /**
    * Gets the ResourceBundle (i18n strings) for the default language of the user's system.
    */
@@ -245,6 +324,20 @@ public class JLanguageTool {
     return ResourceBundleTools.getMessageBundle(lang);
   }
   
+  /**
+   * The rule set this instance was created from, or {@code null} if it was created for a language.
+   * @since 3.1
+   */
+  @Nullable
+  public CompiledRuleSet getCompiledRuleSet() {
+    return compiledRuleSet;
+  }
+
+  /** The number of built-in Java rules, which come first in {@link #getAllRules()}. */
+  int getBuiltinRuleCount() {
+    return builtinRules.size();
+  }
+
   private List<Rule> getAllBuiltinRules(final Language language, ResourceBundle messages) {
     try {
       return language.getRelevantRules(messages);
@@ -474,15 +567,85 @@ public class JLanguageTool {
    * @since 2.3
    */
   public List<RuleMatch> check(final AnnotatedText annotatedText, boolean tokenizeText, final ParagraphHandling paraMode) throws IOException {
-    final List<String> sentences;
+    return check(annotatedText, tokenizeText, paraMode, null);
+  }
+
+  /**
+   * Like {@link #check(AnnotatedText, boolean, ParagraphHandling)}, but uses the rules
+   * of the given selection instead of the rules enabled in this instance. This way, one
+   * instance can be used for checks with different rules without re-configuring it.
+   *
+   * @param selection the rules to use, created from this instance's {@link #getCompiledRuleSet()},
+   *          or {@code null} to use the rules enabled in this instance
+   * @since 3.1
+   */
+  public List<RuleMatch> check(final AnnotatedText annotatedText, boolean tokenizeText, final ParagraphHandling paraMode,
+                               @Nullable final RuleSelection selection) throws IOException {
+    return check(annotatedText, tokenizeText, paraMode, selection, new CheckContext());
+  }
+
+  /**
+   * Like {@link #check(AnnotatedText, boolean, ParagraphHandling, RuleSelection)}, but the check
+   * can be stopped with the given context, e.g. because it takes too long. If it gets stopped,
+   * the matches found so far are returned and {@link CheckContext#isIncomplete()} returns {@code true}.
+   *
+   * @param context controls when to stop the check, use a new context for every check
+   * @since 3.1
+   */
+  public List<RuleMatch> check(final AnnotatedText annotatedText, boolean tokenizeText, final ParagraphHandling paraMode,
+                               @Nullable final RuleSelection selection, final CheckContext context) throws IOException {
+    final CheckContext previousContext = CheckContext.setCurrent(Objects.requireNonNull(context));
+    try {
+      return checkInContext(annotatedText, tokenizeText, paraMode, selection);
+    } finally {
+      CheckContext.setCurrent(previousContext);
+    }
+  }
+
+  private List<RuleMatch> checkInContext(final AnnotatedText annotatedText, boolean tokenizeText, final ParagraphHandling paraMode,
+                                         @Nullable final RuleSelection selection) throws IOException {
+    List<String> sentences;
     if (tokenizeText) { 
       sentences = sentenceTokenize(annotatedText.getPlainText());
     } else {
       sentences = new ArrayList<>();
       sentences.add(annotatedText.getPlainText());
     }
+    final List<Rule> activeRules = prepareRules(selection);
+    sentenceCount = sentences.size();
+    unknownWords = new HashSet<>();
+    final List<AnalyzedSentence> analyzedSentences = analyzeSentences(sentences);
+    if (analyzedSentences.size() < sentences.size()) {
+      // the check has been stopped, only check the sentences analyzed so far:
+      sentences = sentences.subList(0, analyzedSentences.size());
+    }
+    
+    List<RuleMatch> ruleMatches = performCheck(analyzedSentences, sentences, activeRules, paraMode, annotatedText);
+    ruleMatches = new SameRuleGroupFilter().filter(ruleMatches);
+    // no sorting: SameRuleGroupFilter sorts rule matches already
+    return ruleMatches;
+  }
+
+  /**
+   * Check sentences that have already been analyzed, like {@link #check(String)} does
+   * after analyzing them. Used by {@link DocumentSession}.
+   * @param sentences the sentences of the text, as returned by {@link #sentenceTokenize(String)}
+   * @param analyzedSentences the analysis of each sentence, the last one marked as paragraph end
+   */
+  List<RuleMatch> checkAnalyzedSentences(List<String> sentences, List<AnalyzedSentence> analyzedSentences,
+                                         AnnotatedText annotatedText, ParagraphHandling paraMode) throws IOException {
+    final List<Rule> activeRules = prepareRules(null);
+    sentenceCount = sentences.size();
+    unknownWords = new HashSet<>();
+    for (AnalyzedSentence analyzedSentence : analyzedSentences) {
+      rememberUnknownWords(analyzedSentence);
+    }
+    final List<RuleMatch> ruleMatches = performCheck(analyzedSentences, sentences, activeRules, paraMode, annotatedText);
+    return new SameRuleGroupFilter().filter(ruleMatches);
+  }
+
+  private List<Rule> prepareRules(@Nullable RuleSelection selection) {
     final List<Rule> allRules = getAllRules();
-    printIfVerbose(allRules.size() + " rules activated for language " + language);
     // Some rules have an internal state so they can do checks over sentence
     // boundaries. These need to be reset so the checks don't suddenly
     // work on different texts with the same data. However, it could be useful
@@ -490,15 +653,42 @@ public class JLanguageTool {
     for (final Rule rule : allRules) {
       rule.reset();
     }
+    // the rule selection is evaluated once per check, not for every sentence:
+    final List<Rule> activeRules = getActiveRules(allRules, selection);
+    printIfVerbose(activeRules.size() + " rules activated for language " + language);
+    return activeRules;
+  }
 
-    sentenceCount = sentences.size();
-    unknownWords = new HashSet<>();
-    final List<AnalyzedSentence> analyzedSentences = analyzeSentences(sentences);
-    
-    List<RuleMatch> ruleMatches = performCheck(analyzedSentences, sentences, allRules, paraMode, annotatedText);
-    ruleMatches = new SameRuleGroupFilter().filter(ruleMatches);
-    // no sorting: SameRuleGroupFilter sorts rule matches already
-    return ruleMatches;
+  /**
+   * Filter the given rules of this instance by the selection, or if it is {@code null},
+   * by the rules and categories enabled and disabled in this instance.
+   */
+  private List<Rule> getActiveRules(List<Rule> rules, @Nullable RuleSelection selection) {
+    final List<Rule> activeRules = new ArrayList<>(rules.size());
+    if (selection == null) {
+      for (Rule rule : rules) {
+        if (!ignoreRule(rule)) {
+          activeRules.add(rule);
+        }
+      }
+      return activeRules;
+    }
+    if (selection.getRuleSet() != compiledRuleSet) {
+      throw new IllegalArgumentException("Rule selection for " + selection.getRuleSet()
+              + " cannot be used with a JLanguageTool created for " + (compiledRuleSet != null ? compiledRuleSet : language));
+    }
+    final List<Rule> allRules = getAllRules();
+    final Map<Rule, Integer> ruleIndices = new IdentityHashMap<>(allRules.size());
+    for (int i = 0; i < allRules.size(); i++) {
+      ruleIndices.put(allRules.get(i), i);
+    }
+    for (Rule rule : rules) {
+      final Integer index = ruleIndices.get(rule);
+      if (selection.isActive(index != null ? index : -1, rule)) {
+        activeRules.add(rule);
+      }
+    }
+    return activeRules;
   }
   
   /**
@@ -515,15 +705,14 @@ public class JLanguageTool {
   protected List<AnalyzedSentence> analyzeSentences(final List<String> sentences) throws IOException {
     final List<AnalyzedSentence> analyzedSentences = new ArrayList<>();
     
+    final CheckContext context = CheckContext.current();
     int j = 0;
     for (final String sentence : sentences) {
-      AnalyzedSentence analyzedSentence = getAnalyzedSentence(sentence);
-      rememberUnknownWords(analyzedSentence);
-      if (++j == sentences.size()) {
-        final AnalyzedTokenReadings[] anTokens = analyzedSentence.getTokens();
-        anTokens[anTokens.length - 1].setParagraphEnd();
-        analyzedSentence = new AnalyzedSentence(anTokens);
+      if (context.shouldStop()) {
+        break;
       }
+      final AnalyzedSentence analyzedSentence = analyzeSentence(sentence, ++j == sentences.size());
+      rememberUnknownWords(analyzedSentence);
       analyzedSentences.add(analyzedSentence);
       printSentenceInfo(analyzedSentence);
     }
@@ -531,6 +720,30 @@ public class JLanguageTool {
     return analyzedSentences;
   }
 
+  /**
+   * Analyze the sentence, or get its analysis from the result cache if it has been analyzed before.
+   * @param paragraphEnd whether this is the last sentence of the text
+   */
+  AnalyzedSentence analyzeSentence(String sentence, boolean paragraphEnd) throws IOException {
+    final ResultCache cache = resultCache;
+    if (cache != null) {
+      final AnalyzedSentence cachedSentence = cache.getAnalyzedSentence(language, sentence, paragraphEnd);
+      if (cachedSentence != null) {
+        return cachedSentence;
+      }
+    }
+    AnalyzedSentence analyzedSentence = getAnalyzedSentence(sentence);
+    if (paragraphEnd) {
+      final AnalyzedTokenReadings[] anTokens = analyzedSentence.getTokens();
+      anTokens[anTokens.length - 1].setParagraphEnd();
+      analyzedSentence = new AnalyzedSentence(anTokens);
+    }
+    if (cache != null) {
+      cache.putAnalyzedSentence(language, sentence, paragraphEnd, analyzedSentence);
+    }
+    return analyzedSentence;
+  }
+
   protected void printSentenceInfo(AnalyzedSentence analyzedSentence) {
     if (printStream != null) {
       printIfVerbose(analyzedSentence.toString());
@@ -565,29 +778,135 @@ public class JLanguageTool {
       final List<Rule> rules, int charCount, int lineCount,
       int columnCount, final String sentence, final AnalyzedSentence analyzedSentence, final AnnotatedText annotatedText)
         throws IOException {
+    return checkAnalyzedSentence(paraMode, rules, charCount, lineCount, columnCount, sentence, analyzedSentence, annotatedText, null);
+  }
+
+  /**
+   * This is an internal method that's public only for technical reasons, please use one
+   * of the {@link #check(String)} methods instead. 
+   * @param selection the rules to use, or {@code null} to use the rules enabled in this instance
+   * @since 3.1
+   */
+  public List<RuleMatch> checkAnalyzedSentence(final ParagraphHandling paraMode,
+      final List<Rule> rules, int charCount, int lineCount,
+      int columnCount, final String sentence, final AnalyzedSentence analyzedSentence, final AnnotatedText annotatedText,
+      @Nullable final RuleSelection selection) throws IOException {
+    return checkActiveRules(paraMode, getActiveRules(rules, selection), charCount, lineCount, columnCount,
+            sentence, analyzedSentence, annotatedText, CheckContext.current(), null, null, null, null, true);
+  }
+
+  /**
+   * Check the sentence with the given rules, which have already been filtered
+   * by {@link #getActiveRules(List, RuleSelection)}.
+   * @param ruleListKey the key of the rules for the result cache, or {@code null} to not use the cache
+   * @param ruleIndex the index of {@code rules}, or {@code null} to look at each rule
+   * @param automaton the automaton of {@code rules}, or {@code null} to match each rule on its own
+   * @param recorder the recorder for the time used by the rules, or {@code null} to not measure the rules
+   * @param filter whether to apply the {@link SameRuleGroupFilter} to the matches
+   */
+  private List<RuleMatch> checkActiveRules(final ParagraphHandling paraMode,
+      final List<Rule> rules, int charCount, int lineCount,
+      int columnCount, final String sentence, final AnalyzedSentence analyzedSentence, final AnnotatedText annotatedText,
+      final CheckContext context, @Nullable final ResultCache.RuleListKey ruleListKey,
+      @Nullable final PatternRuleIndex ruleIndex, @Nullable final PatternRuleAutomaton automaton,
+      @Nullable final RuleProfile.Recorder recorder, boolean filter) throws IOException {
     final List<RuleMatch> sentenceMatches = new ArrayList<>();
-    for (final Rule rule : rules) {
+    if (paraMode == ParagraphHandling.ONLYPARA) {
+      return sentenceMatches;
+    }
+    final ResultCache cache = ruleListKey != null ? resultCache : null;
+    final boolean paragraphEnd = isParagraphEnd(analyzedSentence);
+    final ResultCache.CachedMatches cachedMatches =
+            cache != null ? cache.getMatches(language, sentence, paragraphEnd, ruleListKey) : null;
+    // the matches of the cacheable rules, to be put into the cache:
+    final List<RuleMatch> newMatches = cache != null && cachedMatches == null ? new ArrayList<RuleMatch>() : null;
+    final List<Integer> newMatchRuleIndices = newMatches != null ? new ArrayList<Integer>() : null;
+    int cacheableRuleIndex = -1;
+    int cachedMatchIndex = 0;
+    if (recorder != null) {
+      recorder.startSentence();
+    }
+    final BitSet candidates = ruleIndex != null && cachedMatches == null ? ruleIndex.getCandidates(analyzedSentence) : null;
+    final PatternRuleAutomaton.Scan scan = automaton != null && candidates != null ? automaton.scan(analyzedSentence, candidates) : null;
+    // with the cache, every rule is visited to count the cacheable ones:
+    final boolean onlyCandidates = candidates != null && cache == null;
+    for (int i = onlyCandidates ? candidates.nextSetBit(0) : 0; i >= 0 && i < rules.size();
+         i = onlyCandidates ? candidates.nextSetBit(i + 1) : i + 1) {
+      final Rule rule = rules.get(i);
       if (rule instanceof TextLevelRule) {
         continue;
       }
-      if (ignoreRule(rule)) {
+      if (context.shouldStop()) {
+        // the matches are incomplete, so they must not be cached:
+        return filter ? new SameRuleGroupFilter().filter(sentenceMatches) : sentenceMatches;
+      }
+      final boolean cacheable = ResultCache.isCacheable(rule);
+      if (cacheable) {
+        cacheableRuleIndex++;
+      }
+      if (cacheable && cachedMatches != null) {
+        while (cachedMatchIndex < cachedMatches.matches.length && cachedMatches.ruleIndices[cachedMatchIndex] == cacheableRuleIndex) {
+          sentenceMatches.add(adjustRuleMatchPos(cachedMatches.matches[cachedMatchIndex++],
+              charCount, columnCount, lineCount, sentence, annotatedText));
+        }
         continue;
       }
-      if (rule instanceof PatternRule && ((PatternRule)rule).canBeIgnoredFor(analyzedSentence)) {
+      if (candidates != null ? !candidates.get(i)
+              : rule instanceof PatternRule && ((PatternRule)rule).canBeIgnoredFor(analyzedSentence)) {
         // this is a performance optimization, it should have no effect on matching logic
         continue;
       }
-      if (paraMode == ParagraphHandling.ONLYPARA) {
-        continue;
+      final RuleMatch[] thisMatches;
+      if (recorder != null) {
+        final long startBytes = recorder.getAllocatedBytes();
+        final long startNanos = System.nanoTime();
+        thisMatches = scan != null ? scan.match(i) : rule.match(analyzedSentence);
+        recorder.record(i, startNanos, startBytes, thisMatches.length, sentence.length());
+      } else {
+        thisMatches = scan != null ? scan.match(i) : rule.match(analyzedSentence);
       }
-      final RuleMatch[] thisMatches = rule.match(analyzedSentence);
       for (final RuleMatch element1 : thisMatches) {
+        if (cacheable && newMatches != null) {
+          newMatches.add(element1);
+          newMatchRuleIndices.add(cacheableRuleIndex);
+        }
         final RuleMatch thisMatch = adjustRuleMatchPos(element1,
             charCount, columnCount, lineCount, sentence, annotatedText);
         sentenceMatches.add(thisMatch);
       }
     }
-    return new SameRuleGroupFilter().filter(sentenceMatches);
+    if (newMatches != null) {
+      final int[] ruleIndices = new int[newMatchRuleIndices.size()];
+      for (int i = 0; i < ruleIndices.length; i++) {
+        ruleIndices[i] = newMatchRuleIndices.get(i);
+      }
+      cache.putMatches(language, sentence, paragraphEnd, analyzedSentence, ruleListKey,
+          new ResultCache.CachedMatches(ruleIndices, newMatches.toArray(new RuleMatch[newMatches.size()])));
+    }
+    return filter ? new SameRuleGroupFilter().filter(sentenceMatches) : sentenceMatches;
+  }
+
+  private PatternRuleIndex getPatternRuleIndex(List<Rule> rules) {
+    PatternRuleIndex index = patternRuleIndexes.getIfPresent(rules);
+    if (index == null) {
+      index = new PatternRuleIndex(rules);
+      patternRuleIndexes.put(index.getRules(), index);
+    }
+    return index;
+  }
+
+  private PatternRuleAutomaton getPatternRuleAutomaton(List<Rule> rules) {
+    PatternRuleAutomaton automaton = patternRuleAutomata.getIfPresent(rules);
+    if (automaton == null) {
+      automaton = new PatternRuleAutomaton(rules);
+      patternRuleAutomata.put(automaton.getRules(), automaton);
+    }
+    return automaton;
+  }
+
+  private boolean isParagraphEnd(AnalyzedSentence analyzedSentence) {
+    final AnalyzedTokenReadings[] tokens = analyzedSentence.getTokens();
+    return tokens.length > 0 && tokens[tokens.length - 1].isParagraphEnd();
   }
 
   private boolean ignoreRule(Rule rule) {
@@ -624,24 +943,23 @@ public class JLanguageTool {
     final RuleMatch thisMatch = new RuleMatch(match.getRule(),
         fromPos, toPos, match.getMessage(), match.getShortMessage());
     thisMatch.setSuggestedReplacements(match.getSuggestedReplacements());
-    final String sentencePartToError = sentence.substring(0, match.getFromPos());
-    final String sentencePartToEndOfError = sentence.substring(0, match.getToPos());
-    final int lastLineBreakPos = sentencePartToError.lastIndexOf('\n');
+    // no substrings, this is called for every match:
+    final int lastLineBreakPos = sentence.lastIndexOf('\n', match.getFromPos() - 1);
     final int column;
     final int endColumn;
     if (lastLineBreakPos == -1) {
-      column = sentencePartToError.length() + columnCount;
+      column = match.getFromPos() + columnCount;
     } else {
-      column = sentencePartToError.length() - lastLineBreakPos;
+      column = match.getFromPos() - lastLineBreakPos;
     }
-    final int lastLineBreakPosInError = sentencePartToEndOfError.lastIndexOf('\n');
+    final int lastLineBreakPosInError = sentence.lastIndexOf('\n', match.getToPos() - 1);
     if (lastLineBreakPosInError == -1) {
-      endColumn = sentencePartToEndOfError.length() + columnCount;
+      endColumn = match.getToPos() + columnCount;
     } else {
-      endColumn = sentencePartToEndOfError.length() - lastLineBreakPosInError;
+      endColumn = match.getToPos() - lastLineBreakPosInError;
     }
-    final int lineBreaksToError = countLineBreaks(sentencePartToError);
-    final int lineBreaksToEndOfError = countLineBreaks(sentencePartToEndOfError);
+    final int lineBreaksToError = countLineBreaks(sentence, 0, match.getFromPos());
+    final int lineBreaksToEndOfError = lineBreaksToError + countLineBreaks(sentence, match.getFromPos(), match.getToPos());
     thisMatch.setLine(lineCount + lineBreaksToError);
     thisMatch.setEndLine(lineCount + lineBreaksToEndOfError);
     thisMatch.setColumn(column);
@@ -675,17 +993,35 @@ public class JLanguageTool {
     return words;
   }
 
+  /**
+   * The column count used for the sentence after the given one.
+   * @param columnCount the column count of the given sentence
+   */
+  int getColumnCountAfter(String sentence, int columnCount) {
+    final int lineBreakPos = sentence.lastIndexOf('\n');
+    if (lineBreakPos == -1) {
+      return columnCount + sentence.length();
+    } else if (lineBreakPos == 0) {
+      if (!language.getSentenceTokenizer().singleLineBreaksMarksPara()) {
+        return sentence.length() - 1;
+      }
+      return sentence.length();
+    } else {
+      return sentence.length() - lineBreakPos;
+    }
+  }
+
   // non-private only for test case
   static int countLineBreaks(final String s) {
-    int pos = -1;
+    return countLineBreaks(s, 0, s.length());
+  }
+
+  private static int countLineBreaks(final String s, int fromPos, int toPos) {
     int count = 0;
-    while (true) {
-      final int nextPos = s.indexOf('\n', pos + 1);
-      if (nextPos == -1) {
-        break;
+    for (int i = fromPos; i < toPos; i++) {
+      if (s.charAt(i) == '\n') {
+        count++;
       }
-      pos = nextPos;
-      count++;
     }
     return count;
   }
@@ -870,12 +1206,18 @@ public class JLanguageTool {
 
   class TextCheckCallable implements Callable<List<RuleMatch>> {
 
-    private final List<Rule> rules;
+    private final List<Rule> rules;  // only the active rules, disabled rules have been removed already
     private final ParagraphHandling paraMode;
     private final AnnotatedText annotatedText;
     private final List<String> sentences;
     private final List<AnalyzedSentence> analyzedSentences;
-    
+    private final CheckContext context;
+    private final ResultCache.RuleListKey ruleListKey;
+    private final RuleProfile.Recorder recorder;
+    private final PatternRuleIndex index;
+    private final PatternRuleAutomaton automaton;
+
+    private LineColumnIndex lineColumnIndex;
     private int charCount;
     private int lineCount;
     private int columnCount;
@@ -893,101 +1235,116 @@ public class JLanguageTool {
       this.charCount = charCount;
       this.lineCount = lineCount;
       this.columnCount = columnCount;
+      // the callable may be run by another thread, which then needs to know the context:
+      this.context = CheckContext.current();
+      this.ruleListKey = resultCache != null ? resultCache.getRuleListKey(rules) : null;
+      this.recorder = ruleProfile != null ? ruleProfile.newRecorder(language, rules) : null;
+      this.index = getPatternRuleIndex(rules);
+      this.automaton = usePatternRuleAutomaton ? getPatternRuleAutomaton(rules) : null;
     }
 
     @Override
     public List<RuleMatch> call() throws Exception {
+      final CheckContext previousContext = CheckContext.setCurrent(context);
+      try {
+        return checkSentences();
+      } finally {
+        CheckContext.setCurrent(previousContext);
+      }
+    }
+
+    private List<RuleMatch> checkSentences() throws IOException {
+      final List<RuleMatch> ruleMatches = new ArrayList<>(checkTextLevelRules());
+      for (List<RuleMatch> sentenceMatches : checkEachSentence(true)) {
+        ruleMatches.addAll(sentenceMatches);
+      }
+      return ruleMatches;
+    }
+
+    /**
+     * Apply the text-level rules of this callable to all its sentences.
+     * Must be called with the context of the check set as the current context.
+     */
+    List<RuleMatch> checkTextLevelRules() throws IOException {
       final List<RuleMatch> ruleMatches = new ArrayList<>();
-      int i = 0;
-      for (Rule rule : rules) {
-        if (rule instanceof TextLevelRule && !ignoreRule(rule) && paraMode != ParagraphHandling.ONLYNONPARA) {
-          RuleMatch[] matches = ((TextLevelRule) rule).match(analyzedSentences);
+      for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+        final Rule rule = rules.get(ruleIndex);
+        if (rule instanceof TextLevelRule && paraMode != ParagraphHandling.ONLYNONPARA) {
+          if (context.shouldStop()) {
+            break;
+          }
+          final RuleMatch[] matches;
+          if (recorder != null) {
+            recorder.startText();
+            final long startBytes = recorder.getAllocatedBytes();
+            final long startNanos = System.nanoTime();
+            matches = ((TextLevelRule) rule).match(analyzedSentences);
+            recorder.record(ruleIndex, startNanos, startBytes, matches.length, getTextLength());
+          } else {
+            matches = ((TextLevelRule) rule).match(analyzedSentences);
+          }
           for (RuleMatch match : matches) {
-            LineColumnRange range = getLineColumnRange(match);
-            match.setColumn(range.from.column);
-            match.setEndColumn(range.to.column);
-            match.setLine(range.from.line);
-            match.setEndLine(range.to.line);
+            getLineColumnIndex().setLineColumn(match);
           }
           ruleMatches.addAll(Arrays.asList(matches));
         }
       }
+      if (recorder != null) {
+        recorder.flush();
+      }
+      return ruleMatches;
+    }
+
+    /**
+     * Apply the other rules of this callable to each of its sentences.
+     * Must be called with the context of the check set as the current context.
+     * @param filter whether to apply the {@link SameRuleGroupFilter} to the matches of each sentence
+     * @return the matches of each sentence, fewer lists than sentences if the check has been stopped
+     */
+    List<List<RuleMatch>> checkEachSentence(boolean filter) throws IOException {
+      final List<List<RuleMatch>> ruleMatches = new ArrayList<>(sentences.size());
+      int i = 0;
       for (final AnalyzedSentence analyzedSentence : analyzedSentences) {
+        if (context.shouldStop()) {
+          break;
+        }
         final String sentence = sentences.get(i++);
         try {
           final List<RuleMatch> sentenceMatches =
-                  checkAnalyzedSentence(paraMode, rules, charCount, lineCount,
-                          columnCount, sentence, analyzedSentence, annotatedText);
+                  checkActiveRules(paraMode, rules, charCount, lineCount,
+                          columnCount, sentence, analyzedSentence, annotatedText, context, ruleListKey, index, automaton, recorder, filter);
 
-          ruleMatches.addAll(sentenceMatches);
+          ruleMatches.add(sentenceMatches);
           charCount += sentence.length();
           lineCount += countLineBreaks(sentence);
-
-          // calculate matching column:
-          final int lineBreakPos = sentence.lastIndexOf('\n');
-          if (lineBreakPos == -1) {
-            columnCount += sentence.length();
-          } else {
-            if (lineBreakPos == 0) {
-              columnCount = sentence.length();
-              if (!language.getSentenceTokenizer().singleLineBreaksMarksPara()) {
-                columnCount--;
-              }
-            } else {
-              columnCount = sentence.length() - lineBreakPos;
-            }
-          }
+          columnCount = getColumnCountAfter(sentence, columnCount);
         } catch (Exception e) {
           throw new RuntimeException("Could not check sentence: '"
                   + StringUtils.abbreviate(analyzedSentence.toTextString(), 200) + "'", e);
         }
       }
+      if (recorder != null) {
+        recorder.flush();
+      }
       return ruleMatches;
     }
 
-    private LineColumnRange getLineColumnRange(RuleMatch match) {
-      LineColumnPosition fromPos = new LineColumnPosition(-1, -1);
-      LineColumnPosition toPos = new LineColumnPosition(-1, -1);
-      LineColumnPosition pos = new LineColumnPosition(0, 0);
-      int charCount = 0;
-      for (AnalyzedSentence analyzedSentence : analyzedSentences) {
-        for (AnalyzedTokenReadings readings : analyzedSentence.getTokens()) {
-          String token = readings.getToken();
-          if ("\n".equals(token)) {
-            pos.line++;
-            pos.column = 0;
-          }
-          pos.column += token.length();
-          charCount += token.length();
-          if (charCount == match.getFromPos()) {
-            fromPos = new LineColumnPosition(pos.line, pos.column);
-          } 
-          if (charCount == match.getToPos()) {
-            toPos = new LineColumnPosition(pos.line, pos.column);
-          }
-        }
+    private int getTextLength() {
+      int length = 0;
+      for (String sentence : sentences) {
+        length += sentence.length();
       }
-      return new LineColumnRange(fromPos, toPos);
+      return length;
     }
-    
-    private class LineColumnPosition {
-      int line;
-      int column;
-      private LineColumnPosition(int line, int column) {
-        this.line = line;
-        this.column = column;
-      }
-    }
-  
-    private class LineColumnRange {
-      LineColumnPosition from;
-      LineColumnPosition to;
-      private LineColumnRange(LineColumnPosition from, LineColumnPosition to) {
-        this.from = from;
-        this.to = to;
+
+    // built only once per check, and only if a text-level rule has matches:
+    private LineColumnIndex getLineColumnIndex() {
+      if (lineColumnIndex == null) {
+        lineColumnIndex = new LineColumnIndex(sentences);
       }
+      return lineColumnIndex;
     }
-  
+
   }
 
 }
@@ -26,6 +26,7 @@ import org.languagetool.languagemodel.LanguageModel;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.patterns.PatternRule;
 import org.languagetool.rules.patterns.PatternRuleLoader;
+import org.languagetool.rules.patterns.TokenPredicates;
 import org.languagetool.rules.patterns.Unifier;
 import org.languagetool.rules.patterns.UnifierConfiguration;
 import org.languagetool.synthesis.Synthesizer;
@@ -65,6 +66,7 @@ public abstract class Language {
 
   private final UnifierConfiguration unifierConfig = new UnifierConfiguration();
   private final UnifierConfiguration disambiguationUnifierConfig = new UnifierConfiguration();
+  private final TokenPredicates tokenPredicates = new TokenPredicates();
 
   private final Pattern ignoredCharactersRegex = Pattern.compile("[\u00AD]");  // soft hyphen
   
@@ -294,6 +296,14 @@ public abstract class Language {
   public UnifierConfiguration getDisambiguationUnifierConfiguration() {
     return disambiguationUnifierConfig;
   }
+
+  /**
+   * Get the table of the regular expressions used by this language's pattern tokens.
+   * @since 3.1
+   */
+  public TokenPredicates getTokenPredicates() {
+    return tokenPredicates;
+  }
   
   /**
    * Get the name of the language translated to the current locale,
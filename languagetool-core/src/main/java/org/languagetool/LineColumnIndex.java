@@ -0,0 +1,84 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.languagetool.rules.RuleMatch;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps positions in a text to line and column numbers, using the sorted positions
+ * of the line breaks, so each lookup takes O(log(lines)).
+ * @since 3.1
+ */
+final class LineColumnIndex {
+
+  private final int[] lineBreaks;
+
+  /**
+   * @param sentences the sentences of the text, in the order of the text
+   */
+  LineColumnIndex(List<String> sentences) {
+    int[] breaks = new int[16];
+    int count = 0;
+    int offset = 0;
+    for (String sentence : sentences) {
+      int pos = sentence.indexOf('\n');
+      while (pos != -1) {
+        if (count == breaks.length) {
+          breaks = Arrays.copyOf(breaks, count * 2);
+        }
+        breaks[count++] = offset + pos;
+        pos = sentence.indexOf('\n', pos + 1);
+      }
+      offset += sentence.length();
+    }
+    lineBreaks = Arrays.copyOf(breaks, count);
+  }
+
+  /**
+   * The line of the given position, the first line being {@code 0}.
+   */
+  int getLine(int pos) {
+    // the number of line breaks before pos:
+    final int index = Arrays.binarySearch(lineBreaks, pos);
+    return index >= 0 ? index : -index - 1;
+  }
+
+  /**
+   * The column of the given position. In the first line, this is the position itself,
+   * in other lines it's counted from the line break, i.e. the first column is {@code 1}.
+   */
+  int getColumn(int pos) {
+    final int line = getLine(pos);
+    return line == 0 ? pos : pos - lineBreaks[line - 1];
+  }
+
+  /**
+   * Set line and column of the start and end of the match.
+   */
+  void setLineColumn(RuleMatch match) {
+    match.setLine(getLine(match.getFromPos()));
+    match.setEndLine(getLine(match.getToPos()));
+    match.setColumn(getColumn(match.getFromPos()));
+    match.setEndColumn(getColumn(match.getToPos()));
+  }
+
+}
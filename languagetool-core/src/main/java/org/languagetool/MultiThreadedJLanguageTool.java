@@ -20,17 +20,22 @@ package org.languagetool;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
 
 import org.languagetool.markup.AnnotatedText;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SameRuleGroupFilter;
+import org.languagetool.rules.patterns.AbstractPatternRule;
 
 /**
  * A variant of {@link JLanguageTool} that uses several threads for rule matching.
@@ -44,8 +49,16 @@ import org.languagetool.rules.RuleMatch;
  */
 public class MultiThreadedJLanguageTool extends JLanguageTool {
   
+  // the number of tasks per thread a check is split into, more tasks balance the work better:
+  private static final int TASKS_PER_THREAD = 4;
+  // the split of the rules is updated after this many checks:
+  private static final int MAX_PLAN_USES = 100;
+
   private final int threadPoolSize;
   private final ExecutorService threadPool;
+  private final RuleCosts ruleCosts = new RuleCosts(this);
+
+  private volatile SchedulePlan schedulePlan;
 
   public MultiThreadedJLanguageTool(Language language) {
     this(language, null);
@@ -78,7 +91,8 @@ public class MultiThreadedJLanguageTool extends JLanguageTool {
       throw new IllegalArgumentException("threadPoolSize must be >= 1: " + threadPoolSize);
     }
     this.threadPoolSize = threadPoolSize;
-    threadPool = Executors.newFixedThreadPool(getThreadPoolSize(), new DaemonThreadFactory());
+    // a work-stealing pool, its threads are daemon threads so we don't have to shut it down explicitly:
+    threadPool = new ForkJoinPool(getThreadPoolSize());
   }
 
   /**
@@ -125,22 +139,23 @@ public class MultiThreadedJLanguageTool extends JLanguageTool {
     final List<AnalyzedSentence> analyzedSentences = new ArrayList<>();
     
     final ExecutorService executorService = getExecutorService();
+    final CheckContext context = CheckContext.current();
 
     int j = 0;
     
     List<Callable<AnalyzedSentence>> callables = new ArrayList<>();
     for (final String sentence : sentences) {
-      AnalyzeSentenceCallable analyzeSentenceCallable = 
-          ++j < sentences.size() 
-            ? new AnalyzeSentenceCallable(sentence)
-            : new ParagraphEndAnalyzeSentenceCallable(sentence);
-      callables.add(analyzeSentenceCallable);
+      callables.add(new AnalyzeSentenceCallable(sentence, ++j == sentences.size(), context));
     }
     
     try {
       List<Future<AnalyzedSentence>> futures = executorService.invokeAll(callables);
       for (Future<AnalyzedSentence> future : futures) {
         AnalyzedSentence analyzedSentence = future.get();
+        if (analyzedSentence == null) {
+          // the check has been stopped, only the sentences analyzed so far will be checked:
+          break;
+        }
         rememberUnknownWords(analyzedSentence);
         printSentenceInfo(analyzedSentence);
         analyzedSentences.add(analyzedSentence);
@@ -166,12 +181,20 @@ public class MultiThreadedJLanguageTool extends JLanguageTool {
     
     final ExecutorService executorService = getExecutorService();
     try {
-      final List<Callable<List<RuleMatch>>> callables =
+      final List<CheckTask> tasks =
               createTextCheckCallables(paraMode, annotatedText, analyzedSentences, sentences, allRules, charCount, lineCount, columnCount);
-      final List<Future<List<RuleMatch>>> futures = executorService.invokeAll(callables);
-      for (Future<List<RuleMatch>> future : futures) {
-        ruleMatches.addAll(future.get());
+      // start the most expensive tasks first, so they don't delay the end of the check:
+      final List<CheckTask> sortedTasks = new ArrayList<>(tasks);
+      Collections.sort(sortedTasks, new Comparator<CheckTask>() {
+        @Override
+        public int compare(CheckTask t1, CheckTask t2) {
+          return Double.compare(t2.estimatedCost, t1.estimatedCost);
+        }
+      });
+      for (Future<Void> future : executorService.invokeAll(sortedTasks)) {
+        future.get();
       }
+      ruleMatches.addAll(mergeResults(tasks, sentences.size()));
     } catch (InterruptedException | ExecutionException e) {
       throw new RuntimeException(e);
     }
@@ -179,66 +202,267 @@ public class MultiThreadedJLanguageTool extends JLanguageTool {
     return ruleMatches;
   }
 
-  private List<Callable<List<RuleMatch>>> createTextCheckCallables(ParagraphHandling paraMode,
+  /**
+   * Merge the matches of the tasks so that the result is the same as with a single thread:
+   * the matches of the text-level rules come first, then those of each sentence in the
+   * order of the rules, as the {@link SameRuleGroupFilter} depends on that order.
+   */
+  private List<RuleMatch> mergeResults(List<CheckTask> tasks, int sentenceCount) {
+    final Map<Rule, Integer> ruleIndices = schedulePlan.getRuleIndices();
+    final RuleOrder ruleOrder = new RuleOrder(ruleIndices);
+    final List<RuleMatch> textLevelMatches = new ArrayList<>();
+    final List<List<RuleMatch>> sentenceMatches = new ArrayList<>(sentenceCount);
+    for (int i = 0; i < sentenceCount; i++) {
+      sentenceMatches.add(new ArrayList<RuleMatch>());
+    }
+    for (CheckTask task : tasks) {
+      textLevelMatches.addAll(task.textLevelMatches);
+      for (int i = 0; i < task.sentenceMatches.size(); i++) {
+        sentenceMatches.get(task.firstSentence + i).addAll(task.sentenceMatches.get(i));
+      }
+    }
+    final List<RuleMatch> ruleMatches = new ArrayList<>();
+    Collections.sort(textLevelMatches, ruleOrder);
+    ruleMatches.addAll(textLevelMatches);
+    final SameRuleGroupFilter filter = new SameRuleGroupFilter();
+    for (List<RuleMatch> matches : sentenceMatches) {
+      Collections.sort(matches, ruleOrder);  // stable, so the order of one rule's matches is kept
+      ruleMatches.addAll(filter.filter(matches));
+    }
+    return ruleMatches;
+  }
+
+  /**
+   * Split the work into tasks of about the same estimated cost: rules that only look
+   * at one sentence at a time (pattern rules) are split by rules and by sentences.
+   * Other rules may keep state between sentences or look at the whole text, so each
+   * of them is applied to all sentences by one task. Rules with the same id are
+   * always in the same task.
+   */
+  private List<CheckTask> createTextCheckCallables(ParagraphHandling paraMode,
        AnnotatedText annotatedText, List<AnalyzedSentence> analyzedSentences, List<String> sentences, 
        List<Rule> allRules, int charCount, int lineCount, int columnCount) {
     final int threads = getThreadPoolSize();
-    final int totalRules = allRules.size();
-    final int chunkSize = totalRules / threads;
-    int firstItem = 0;
-    final List<Callable<List<RuleMatch>>> callables = new ArrayList<>();
-    
-    // split the rules - all rules are independent, so it makes more sense to split
-    // the rules than to split the text:
-    for (int i = 0; i < threads; i++) {
-      final List<Rule> subRules;
-      //TODO: make sure we don't split rules with same id so RuleGroupFilter still works
-      if (i == threads - 1) {
-        // make sure the last rules are not lost due to rounding issues:
-        subRules = allRules.subList(firstItem, totalRules);
-      } else {
-        subRules = allRules.subList(firstItem, firstItem + chunkSize);
+    final int sentenceRangeCount = Math.max(1, Math.min(sentences.size(), threads));
+    final SchedulePlan plan = getSchedulePlan(allRules, sentenceRangeCount);
+    int textLength = 0;
+    for (String sentence : sentences) {
+      textLength += sentence.length();
+    }
+    final List<CheckTask> tasks = new ArrayList<>();
+    for (List<Rule> rules : plan.sequentialRules) {
+      tasks.add(new CheckTask(new TextCheckCallable(rules, sentences, analyzedSentences, paraMode, annotatedText,
+              charCount, lineCount, columnCount), rules, 0, textLength));
+    }
+    if (plan.splittableRules.isEmpty()) {
+      return tasks;
+    }
+    // the sentence ranges have about the same number of characters:
+    final int targetLength = Math.max(1, textLength / sentenceRangeCount);
+    int fromIndex = 0;
+    int rangeLength = 0;
+    int rangeCharCount = charCount;
+    int rangeLineCount = lineCount;
+    int rangeColumnCount = columnCount;
+    for (int i = 0; i < sentences.size(); i++) {
+      final String sentence = sentences.get(i);
+      rangeLength += sentence.length();
+      if (rangeLength >= targetLength || i == sentences.size() - 1) {
+        for (List<Rule> rules : plan.splittableRules) {
+          tasks.add(new CheckTask(new TextCheckCallable(rules, sentences.subList(fromIndex, i + 1),
+                  analyzedSentences.subList(fromIndex, i + 1), paraMode, annotatedText,
+                  rangeCharCount, rangeLineCount, rangeColumnCount), rules, fromIndex, rangeLength));
+        }
+        for (int j = fromIndex; j <= i; j++) {
+          rangeCharCount += sentences.get(j).length();
+          rangeLineCount += countLineBreaks(sentences.get(j));
+          rangeColumnCount = getColumnCountAfter(sentences.get(j), rangeColumnCount);
+        }
+        fromIndex = i + 1;
+        rangeLength = 0;
+      }
+    }
+    return tasks;
+  }
+
+  /**
+   * Get the split of the rules into tasks. It's kept as long as the rules don't change,
+   * so the tasks use the same rule lists and their results can be found in the
+   * {@link ResultCache}, but updated from time to time to use the latest cost estimates.
+   */
+  private SchedulePlan getSchedulePlan(List<Rule> rules, int sentenceRangeCount) {
+    SchedulePlan plan = schedulePlan;
+    if (plan == null || plan.sentenceRangeCount != sentenceRangeCount || ++plan.useCount > MAX_PLAN_USES
+            || !plan.rules.equals(rules)) {
+      plan = createSchedulePlan(rules, sentenceRangeCount);
+      schedulePlan = plan;
+    }
+    return plan;
+  }
+
+  private SchedulePlan createSchedulePlan(List<Rule> rules, int sentenceRangeCount) {
+    final List<List<Rule>> splittableGroups = new ArrayList<>();
+    final List<List<Rule>> sequentialGroups = new ArrayList<>();
+    List<Rule> group = new ArrayList<>();
+    for (Rule rule : rules) {
+      if (!group.isEmpty() && !group.get(0).getId().equals(rule.getId())) {
+        (isSplittable(group) ? splittableGroups : sequentialGroups).add(group);
+        group = new ArrayList<>();
+      }
+      group.add(rule);
+    }
+    if (!group.isEmpty()) {
+      (isSplittable(group) ? splittableGroups : sequentialGroups).add(group);
+    }
+    final int targetTaskCount = getThreadPoolSize() * TASKS_PER_THREAD;
+    // not more than one list per thread, so the ResultCache doesn't need to keep too many lists per sentence:
+    final int splittableChunks = Math.max(1, Math.min(getThreadPoolSize(), targetTaskCount / sentenceRangeCount));
+    final int sequentialChunks = Math.max(1, targetTaskCount - splittableChunks * sentenceRangeCount);
+    return new SchedulePlan(new ArrayList<>(rules), sentenceRangeCount,
+            packGroups(splittableGroups, splittableChunks), packGroups(sequentialGroups, sequentialChunks));
+  }
+
+  private boolean isSplittable(List<Rule> group) {
+    for (Rule rule : group) {
+      if (!(rule instanceof AbstractPatternRule)) {
+        return false;
       }
-      callables.add(new TextCheckCallable(subRules, sentences, analyzedSentences, paraMode, annotatedText, charCount, lineCount, columnCount));
-      firstItem = firstItem + chunkSize;
     }
-    return callables;
+    return true;
   }
 
-  private class AnalyzeSentenceCallable implements Callable<AnalyzedSentence> {
+  /**
+   * Put consecutive rule groups together so that there are about {@code chunkCount}
+   * lists of rules with about the same estimated cost.
+   */
+  private List<List<Rule>> packGroups(List<List<Rule>> groups, int chunkCount) {
+    double totalCost = 0;
+    for (List<Rule> group : groups) {
+      totalCost += ruleCosts.getCost(group);
+    }
+    final double targetCost = totalCost / chunkCount;
+    final List<List<Rule>> chunks = new ArrayList<>();
+    List<Rule> chunk = new ArrayList<>();
+    double chunkCost = 0;
+    for (List<Rule> group : groups) {
+      chunk.addAll(group);
+      chunkCost += ruleCosts.getCost(group);
+      if (chunkCost >= targetCost) {
+        chunks.add(chunk);
+        chunk = new ArrayList<>();
+        chunkCost = 0;
+      }
+    }
+    if (!chunk.isEmpty()) {
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+
+  private final class AnalyzeSentenceCallable implements Callable<AnalyzedSentence> {
     private final String sentence;
+    private final boolean paragraphEnd;
+    private final CheckContext context;
 
-    private AnalyzeSentenceCallable(String sentence) {
+    private AnalyzeSentenceCallable(String sentence, boolean paragraphEnd, CheckContext context) {
       this.sentence = sentence;
+      this.paragraphEnd = paragraphEnd;
+      this.context = context;
     }
 
+    /**
+     * @return the analyzed sentence or {@code null} if the check has been stopped
+     */
     @Override
     public AnalyzedSentence call() throws Exception {
-      return getAnalyzedSentence(sentence);
+      if (context.shouldStop()) {
+        return null;
+      }
+      return analyzeSentence(sentence, paragraphEnd);
     }
   }
-  
-  private final class ParagraphEndAnalyzeSentenceCallable extends AnalyzeSentenceCallable {
-    private ParagraphEndAnalyzeSentenceCallable(String sentence) {
-      super(sentence);
+
+  /**
+   * Runs a {@link TextCheckCallable} and learns how long its rules take.
+   */
+  private final class CheckTask implements Callable<Void> {
+    private final TextCheckCallable callable;
+    private final List<Rule> rules;
+    private final int firstSentence;
+    private final int textLength;
+    private final double estimatedCost;
+    private final CheckContext context;
+    private List<RuleMatch> textLevelMatches;
+    private List<List<RuleMatch>> sentenceMatches;
+
+    private CheckTask(TextCheckCallable callable, List<Rule> rules, int firstSentence, int textLength) {
+      this.callable = callable;
+      this.rules = rules;
+      this.firstSentence = firstSentence;
+      this.textLength = textLength;
+      this.estimatedCost = ruleCosts.getCost(rules) * textLength;
+      this.context = CheckContext.current();
     }
 
     @Override
-    public AnalyzedSentence call() throws Exception {
-      AnalyzedSentence analyzedSentence = super.call();
-      AnalyzedTokenReadings[] anTokens = analyzedSentence.getTokens();
-      anTokens[anTokens.length - 1].setParagraphEnd();
-      analyzedSentence = new AnalyzedSentence(anTokens);  ///TODO: why???
-      return analyzedSentence;
+    public Void call() throws Exception {
+      final CheckContext previousContext = CheckContext.setCurrent(context);
+      try {
+        final long startTime = System.nanoTime();
+        textLevelMatches = callable.checkTextLevelRules();
+        // filtered when merged with the matches of the other tasks:
+        sentenceMatches = callable.checkEachSentence(false);
+        if (!context.isIncomplete()) {
+          ruleCosts.update(rules, textLength, System.nanoTime() - startTime);
+        }
+      } finally {
+        CheckContext.setCurrent(previousContext);
+      }
+      return null;
     }
   }
 
-  private static final class DaemonThreadFactory implements ThreadFactory {
+  private static final class RuleOrder implements Comparator<RuleMatch> {
+    private final Map<Rule, Integer> ruleIndices;
+    private RuleOrder(Map<Rule, Integer> ruleIndices) {
+      this.ruleIndices = ruleIndices;
+    }
     @Override
-    public Thread newThread(Runnable r) {
-      Thread thread = new Thread(r);
-      thread.setDaemon(true); // so we don't have to shut down executor explicitly
-      return thread;
+    public int compare(RuleMatch match1, RuleMatch match2) {
+      return Integer.compare(getIndex(match1), getIndex(match2));
+    }
+    private int getIndex(RuleMatch match) {
+      final Integer index = ruleIndices.get(match.getRule());
+      return index != null ? index : Integer.MAX_VALUE;
+    }
+  }
+
+  private static final class SchedulePlan {
+    private final List<Rule> rules;
+    private final int sentenceRangeCount;
+    private final List<List<Rule>> splittableRules;
+    private final List<List<Rule>> sequentialRules;
+    private int useCount;
+    private Map<Rule, Integer> ruleIndices;
+
+    private SchedulePlan(List<Rule> rules, int sentenceRangeCount,
+                         List<List<Rule>> splittableRules, List<List<Rule>> sequentialRules) {
+      this.rules = rules;
+      this.sentenceRangeCount = sentenceRangeCount;
+      this.splittableRules = splittableRules;
+      this.sequentialRules = sequentialRules;
+    }
+
+    private Map<Rule, Integer> getRuleIndices() {
+      if (ruleIndices == null) {
+        final Map<Rule, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i < rules.size(); i++) {
+          indices.put(rules.get(i), i);
+        }
+        ruleIndices = indices;
+      }
+      return ruleIndices;
     }
   }
+
 }
@@ -0,0 +1,288 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.patterns.AbstractPatternRule;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache for the analysis of sentences and the matches of the pattern rules in them, so
+ * sentences that have been checked before don't need to be analyzed and matched again.
+ * This is useful if the same text gets checked again and again with small changes,
+ * e.g. while it's being edited. Use it with {@link JLanguageTool#setResultCache(ResultCache)}.
+ *
+ * <p>Only the matches of XML-based rules are cached, as they don't depend on other sentences.
+ * Rules implemented in Java are applied to every sentence on every check, as some of
+ * them keep state between the sentences of a text. Text-level rules are also applied
+ * on every check.</p>
+ *
+ * <p>The cache is limited by the estimated memory used by the cached sentences. If it
+ * gets full, the least recently used sentences are removed.</p>
+ *
+ * <p><b>Thread-safety:</b> this class is thread-safe and can be shared by {@link JLanguageTool} instances.</p>
+ * @since 3.1
+ */
+public class ResultCache {
+
+  // the matches are kept for this many different rule lists per sentence (MultiThreadedJLanguageTool
+  // splits the pattern rules into up to one list per thread):
+  private static final int MAX_RULE_CONFIGURATIONS = 32;
+
+  private final Cache<SentenceKey, CachedSentence> sentences;
+  private final Cache<RuleListKey, RuleListKey> ruleLists;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong matchHits = new AtomicLong();
+  private final AtomicLong matchMisses = new AtomicLong();
+
+  /**
+   * @param maxMemoryInBytes the estimated memory the cached sentences may use
+   */
+  public ResultCache(long maxMemoryInBytes) {
+    if (maxMemoryInBytes <= 0) {
+      throw new IllegalArgumentException("maxMemoryInBytes must be > 0: " + maxMemoryInBytes);
+    }
+    sentences = CacheBuilder.newBuilder()
+            .maximumWeight(maxMemoryInBytes)
+            .weigher(new Weigher<SentenceKey, CachedSentence>() {
+              @Override
+              public int weigh(SentenceKey key, CachedSentence value) {
+                return value.estimatedMemory;
+              }
+            })
+            .build();
+    ruleLists = CacheBuilder.newBuilder().maximumSize(100).build();
+  }
+
+  /**
+   * Whether the matches of this rule only depend on the sentence, so they can be cached.
+   */
+  static boolean isCacheable(Rule rule) {
+    return rule instanceof AbstractPatternRule;
+  }
+
+  /**
+   * Get a key for the cacheable rules among the given rules. Getting the key again
+   * for the same rules (in the same order) returns the same key object.
+   */
+  RuleListKey getRuleListKey(List<Rule> rules) {
+    final List<Rule> cacheableRules = new ArrayList<>();
+    for (Rule rule : rules) {
+      if (isCacheable(rule)) {
+        cacheableRules.add(rule);
+      }
+    }
+    final RuleListKey key = new RuleListKey(cacheableRules.toArray(new Rule[cacheableRules.size()]));
+    final RuleListKey existingKey = ruleLists.asMap().putIfAbsent(key, key);
+    return existingKey != null ? existingKey : key;
+  }
+
+  /**
+   * @param paragraphEnd whether the sentence is the last one of a text
+   * @return the analysis of the sentence or {@code null} if it's not in the cache
+   */
+  @Nullable
+  AnalyzedSentence getAnalyzedSentence(Language language, String sentence, boolean paragraphEnd) {
+    final CachedSentence cached = sentences.getIfPresent(new SentenceKey(language, sentence, paragraphEnd));
+    if (cached != null) {
+      hits.incrementAndGet();
+      return cached.analyzedSentence;
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  void putAnalyzedSentence(Language language, String sentence, boolean paragraphEnd, AnalyzedSentence analyzedSentence) {
+    sentences.put(new SentenceKey(language, sentence, paragraphEnd), new CachedSentence(sentence, analyzedSentence));
+  }
+
+  /**
+   * @return the matches of the rules of the key, as returned by the rules (i.e. with positions relative to
+   *   the sentence), or {@code null} if they are not in the cache
+   */
+  @Nullable
+  CachedMatches getMatches(Language language, String sentence, boolean paragraphEnd, RuleListKey ruleListKey) {
+    final CachedSentence cached = sentences.getIfPresent(new SentenceKey(language, sentence, paragraphEnd));
+    final CachedMatches matches = cached != null ? cached.ruleMatches.get(ruleListKey) : null;
+    if (matches != null) {
+      matchHits.incrementAndGet();
+    } else {
+      matchMisses.incrementAndGet();
+    }
+    return matches;
+  }
+
+  void putMatches(Language language, String sentence, boolean paragraphEnd, AnalyzedSentence analyzedSentence,
+                  RuleListKey ruleListKey, CachedMatches matches) {
+    final SentenceKey key = new SentenceKey(language, sentence, paragraphEnd);
+    CachedSentence cached = sentences.getIfPresent(key);
+    if (cached == null) {
+      cached = new CachedSentence(sentence, analyzedSentence);
+      sentences.put(key, cached);
+    }
+    cached.putMatches(ruleListKey, matches);
+  }
+
+  /** The number of sentences whose analysis was found in the cache. */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /** The number of sentences whose analysis was not found in the cache. */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /** The number of sentences whose rule matches were found in the cache. */
+  public long getMatchHitCount() {
+    return matchHits.get();
+  }
+
+  /** The number of sentences whose rule matches were not found in the cache. */
+  public long getMatchMissCount() {
+    return matchMisses.get();
+  }
+
+  /** The number of sentences in the cache. */
+  public long size() {
+    return sentences.size();
+  }
+
+  /** Remove all sentences from the cache. */
+  public void invalidateAll() {
+    sentences.invalidateAll();
+  }
+
+  /**
+   * The matches of a list of rules for one sentence: {@code matches[i]} was found
+   * by the rule at position {@code ruleIndices[i]} of the rule list, both in the
+   * order in which the rules were applied.
+   */
+  static final class CachedMatches {
+    final int[] ruleIndices;
+    final RuleMatch[] matches;
+    CachedMatches(int[] ruleIndices, RuleMatch[] matches) {
+      this.ruleIndices = ruleIndices;
+      this.matches = matches;
+    }
+  }
+
+  static final class RuleListKey {
+    private final Rule[] rules;
+    private final int hashCode;
+    private RuleListKey(Rule[] rules) {
+      this.rules = rules;
+      int hash = 1;
+      for (Rule rule : rules) {
+        hash = 31 * hash + System.identityHashCode(rule);
+      }
+      this.hashCode = hash;
+    }
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      final RuleListKey other = (RuleListKey) o;
+      if (hashCode != other.hashCode || rules.length != other.rules.length) {
+        return false;
+      }
+      for (int i = 0; i < rules.length; i++) {
+        if (rules[i] != other.rules[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private static final class SentenceKey {
+    private final Language language;
+    private final String sentence;
+    private final boolean paragraphEnd;
+    private SentenceKey(Language language, String sentence, boolean paragraphEnd) {
+      this.language = language;
+      this.sentence = sentence;
+      this.paragraphEnd = paragraphEnd;
+    }
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      final SentenceKey other = (SentenceKey) o;
+      return language == other.language && paragraphEnd == other.paragraphEnd && sentence.equals(other.sentence);
+    }
+    @Override
+    public int hashCode() {
+      return 31 * (31 * System.identityHashCode(language) + sentence.hashCode()) + (paragraphEnd ? 1 : 0);
+    }
+  }
+
+  private static final class CachedSentence {
+    private final AnalyzedSentence analyzedSentence;
+    private final int estimatedMemory;
+    // replaced as a whole, never modified:
+    private volatile Map<RuleListKey, CachedMatches> ruleMatches = Collections.emptyMap();
+
+    private CachedSentence(String sentence, AnalyzedSentence analyzedSentence) {
+      this.analyzedSentence = analyzedSentence;
+      this.estimatedMemory = estimateMemory(sentence, analyzedSentence);
+    }
+
+    private synchronized void putMatches(RuleListKey key, CachedMatches matches) {
+      // the map is small, so we just copy it:
+      final Map<RuleListKey, CachedMatches> newMatches = new LinkedHashMap<>(ruleMatches);
+      newMatches.put(key, matches);
+      if (newMatches.size() > MAX_RULE_CONFIGURATIONS) {
+        newMatches.remove(newMatches.keySet().iterator().next());
+      }
+      ruleMatches = newMatches;
+    }
+
+    // a rough estimate, rule matches are not considered as there are usually only a few:
+    private static int estimateMemory(String sentence, AnalyzedSentence analyzedSentence) {
+      int bytes = 100 + 2 * sentence.length();
+      for (AnalyzedTokenReadings tokenReadings : analyzedSentence.getTokens()) {
+        bytes += 80 + 2 * tokenReadings.getToken().length();
+        for (AnalyzedToken reading : tokenReadings) {
+          bytes += 60 + AnalyzedToken.MATCH_CACHE_MEMORY;
+          if (reading.getLemma() != null) {
+            bytes += 2 * reading.getLemma().length();
+          }
+          if (reading.getPOSTag() != null) {
+            bytes += 2 * reading.getPOSTag().length();
+          }
+        }
+      }
+      return bytes;
+    }
+  }
+
+}
@@ -0,0 +1,92 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.patterns.AbstractPatternRule;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Estimates of how long rules take to check text, in nanoseconds per character.
+ * Taken from the {@link RuleProfile} of the {@link JLanguageTool} instance if it
+ * has measured the rule often enough, otherwise learned from the time the parts
+ * of a check took. Used to split the work of a check into parts that take about
+ * the same time and to start the slowest parts first.
+ * @since 3.1
+ */
+final class RuleCosts {
+
+  // initial estimates, rules implemented in Java are often slower than pattern rules:
+  private static final double DEFAULT_PATTERN_RULE_COST = 1.0;
+  private static final double DEFAULT_JAVA_RULE_COST = 10.0;
+  // weight of a new measurement:
+  private static final double ALPHA = 0.3;
+
+  private final ConcurrentMap<Rule, Double> costs = new ConcurrentHashMap<>();
+  private final JLanguageTool languageTool;
+
+  RuleCosts(JLanguageTool languageTool) {
+    this.languageTool = languageTool;
+  }
+
+  double getCost(Rule rule) {
+    final RuleProfile profile = languageTool.getRuleProfile();
+    if (profile != null) {
+      final double measuredCost = profile.getNanosPerChar(languageTool.getLanguage(), rule);
+      if (!Double.isNaN(measuredCost)) {
+        return measuredCost;
+      }
+    }
+    final Double cost = costs.get(rule);
+    if (cost != null) {
+      return cost;
+    }
+    return rule instanceof AbstractPatternRule ? DEFAULT_PATTERN_RULE_COST : DEFAULT_JAVA_RULE_COST;
+  }
+
+  double getCost(List<Rule> rules) {
+    double cost = 0;
+    for (Rule rule : rules) {
+      cost += getCost(rule);
+    }
+    return cost;
+  }
+
+  /**
+   * Update the estimates of the given rules, which together took {@code nanos} to check
+   * {@code chars} characters. The time is distributed in proportion to the current estimates.
+   */
+  void update(List<Rule> rules, long chars, long nanos) {
+    if (chars <= 0 || rules.isEmpty()) {
+      return;
+    }
+    final double estimated = getCost(rules);
+    final double measured = (double) nanos / chars;
+    // a single measurement may be distorted by GC or class loading, so don't trust it too much:
+    final double factor = Math.max(0.1, Math.min(10.0, measured / estimated));
+    for (Rule rule : rules) {
+      final double cost = getCost(rule);
+      costs.put(rule, cost * (1 - ALPHA) + cost * factor * ALPHA);
+    }
+  }
+
+}
@@ -0,0 +1,378 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.patterns.AbstractPatternRule;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about the rules applied by {@link JLanguageTool}: how often each rule
+ * has been applied, how long it took, how many matches it found and (estimated by
+ * measuring only some sentences) how much memory it allocated. Rules are counted
+ * by language, id and sub id, so the statistics of rule objects that are created
+ * for each {@link JLanguageTool} instance are added up.
+ *
+ * <p>Rules are only measured for {@link JLanguageTool} instances that a profile has been
+ * set for with {@link JLanguageTool#setRuleProfile(RuleProfile)}, usually the one returned
+ * by {@link #getDefault()}. {@link MultiThreadedJLanguageTool} uses the times to start the
+ * slowest rules first.</p>
+ *
+ * <p><b>Thread-safety:</b> this class is thread-safe.</p>
+ * @since 3.1
+ */
+public class RuleProfile {
+
+  private static final RuleProfile DEFAULT = new RuleProfile();
+
+  // the allocated memory is measured for every n-th sentence only, as that's slower than measuring the time:
+  private static final int ALLOCATION_SAMPLE_INTERVAL = 64;
+  // the time per character is not used for scheduling before a rule has checked this many characters:
+  private static final long MIN_CHARS_FOR_ESTIMATE = 10000;
+  private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+
+  private final ConcurrentMap<RuleKey, Counters> counters = new ConcurrentHashMap<>();
+  // avoids creating a key for every rule on every check:
+  private final Cache<Rule, Counters> ruleCounters = CacheBuilder.newBuilder().weakKeys().build();
+
+  /**
+   * The profile shared by all {@link JLanguageTool} instances of this process that are to be measured.
+   */
+  public static RuleProfile getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * The statistics of all rules that have been applied, the rules that took the most time first.
+   */
+  public List<RuleStats> getStats() {
+    final List<RuleStats> stats = new ArrayList<>(counters.size());
+    for (Map.Entry<RuleKey, Counters> entry : counters.entrySet()) {
+      // rules are also added when their time is looked up for scheduling, before they have been applied:
+      if (entry.getValue().invocations.get() > 0) {
+        stats.add(entry.getValue().toStats(entry.getKey()));
+      }
+    }
+    Collections.sort(stats, new Comparator<RuleStats>() {
+      @Override
+      public int compare(RuleStats s1, RuleStats s2) {
+        return Long.compare(s2.getTotalNanos(), s1.getTotalNanos());
+      }
+    });
+    return stats;
+  }
+
+  /**
+   * Remove all statistics.
+   */
+  public void reset() {
+    counters.clear();
+    ruleCounters.invalidateAll();
+  }
+
+  /**
+   * The average time the rule took per character of the sentences it checked,
+   * or {@link Double#NaN} if it has not checked enough text yet.
+   */
+  double getNanosPerChar(Language language, Rule rule) {
+    final Counters ruleStats = getCounters(language, rule);
+    final long chars = ruleStats.chars.get();
+    if (chars < MIN_CHARS_FOR_ESTIMATE) {
+      return Double.NaN;
+    }
+    return (double) ruleStats.nanos.get() / chars;
+  }
+
+  /**
+   * A recorder for the rules of one check. The numbers are added to this profile
+   * by {@link Recorder#flush()}.
+   */
+  Recorder newRecorder(Language language, List<Rule> rules) {
+    return new Recorder(language, rules);
+  }
+
+  private Counters getCounters(Language language, Rule rule) {
+    Counters ruleStats = ruleCounters.getIfPresent(rule);
+    if (ruleStats == null) {
+      final String subId = rule instanceof AbstractPatternRule ? ((AbstractPatternRule) rule).getSubId() : null;
+      final RuleKey key = new RuleKey(language.getShortNameWithCountryAndVariant(), rule.getId(), subId);
+      ruleStats = counters.get(key);
+      if (ruleStats == null) {
+        final Counters newStats = new Counters();
+        ruleStats = counters.putIfAbsent(key, newStats);
+        if (ruleStats == null) {
+          ruleStats = newStats;
+        }
+      }
+      ruleCounters.put(rule, ruleStats);
+    }
+    return ruleStats;
+  }
+
+  @Nullable
+  private static com.sun.management.ThreadMXBean getAllocationBean() {
+    try {
+      final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+          return allocationBean;
+        }
+      }
+    } catch (Throwable e) {
+      // not a HotSpot-based JVM (NoClassDefFoundError) or not allowed - we just don't measure memory then
+    }
+    return null;
+  }
+
+  /**
+   * Collects the numbers of one check without synchronization, indexed by the
+   * position of the rule in the list of rules of the check.
+   * Not thread-safe, use one recorder per thread.
+   */
+  final class Recorder {
+
+    private final Language language;
+    private final List<Rule> rules;
+    private final long[] invocations;
+    private final long[] nanos;
+    private final long[] matches;
+    private final long[] chars;
+    private final long[] sampledInvocations;
+    private final long[] sampledBytes;
+
+    private int sentenceCount;
+    private boolean sampleAllocation;
+    private boolean recorded;
+
+    private Recorder(Language language, List<Rule> rules) {
+      this.language = language;
+      this.rules = rules;
+      final int size = rules.size();
+      invocations = new long[size];
+      nanos = new long[size];
+      matches = new long[size];
+      chars = new long[size];
+      sampledInvocations = new long[size];
+      sampledBytes = new long[size];
+    }
+
+    /**
+     * Called before the rules are applied to the next sentence.
+     */
+    void startSentence() {
+      sampleAllocation = ALLOCATION_BEAN != null && sentenceCount++ % ALLOCATION_SAMPLE_INTERVAL == 0;
+    }
+
+    /**
+     * Called before the text-level rules are applied. They are applied only once
+     * per check, so their allocated memory is always measured.
+     */
+    void startText() {
+      sampleAllocation = ALLOCATION_BEAN != null;
+    }
+
+    /**
+     * The memory allocated by the current thread so far, if it's measured for the current
+     * sentence, {@code 0} otherwise. To be passed to {@link #record(int, long, long, int, int)}.
+     */
+    long getAllocatedBytes() {
+      return sampleAllocation ? ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    /**
+     * Record one application of a rule.
+     * @param ruleIndex the position of the rule in the list of rules
+     * @param startNanos the result of {@link System#nanoTime()} before the rule was applied
+     * @param startBytes the result of {@link #getAllocatedBytes()} before the rule was applied
+     */
+    void record(int ruleIndex, long startNanos, long startBytes, int matchCount, int charCount) {
+      nanos[ruleIndex] += System.nanoTime() - startNanos;
+      invocations[ruleIndex]++;
+      matches[ruleIndex] += matchCount;
+      chars[ruleIndex] += charCount;
+      if (sampleAllocation) {
+        sampledBytes[ruleIndex] += getAllocatedBytes() - startBytes;
+        sampledInvocations[ruleIndex]++;
+      }
+      recorded = true;
+    }
+
+    /**
+     * Add the numbers recorded so far to the profile and start again at zero.
+     */
+    void flush() {
+      if (!recorded) {
+        return;
+      }
+      for (int i = 0; i < invocations.length; i++) {
+        if (invocations[i] > 0) {
+          getCounters(language, rules.get(i)).add(invocations[i], nanos[i], matches[i], chars[i],
+                  sampledInvocations[i], sampledBytes[i]);
+        }
+      }
+      Arrays.fill(invocations, 0);
+      Arrays.fill(nanos, 0);
+      Arrays.fill(matches, 0);
+      Arrays.fill(chars, 0);
+      Arrays.fill(sampledInvocations, 0);
+      Arrays.fill(sampledBytes, 0);
+      recorded = false;
+    }
+  }
+
+  /**
+   * The statistics of one rule at the time {@link RuleProfile#getStats()} was called.
+   */
+  public static final class RuleStats {
+
+    private final String languageCode;
+    private final String ruleId;
+    private final String subId;
+    private final long invocations;
+    private final long totalNanos;
+    private final long matches;
+    private final long checkedChars;
+    private final long estimatedAllocatedBytes;
+
+    RuleStats(String languageCode, String ruleId, @Nullable String subId, long invocations, long totalNanos,
+              long matches, long checkedChars, long estimatedAllocatedBytes) {
+      this.languageCode = languageCode;
+      this.ruleId = ruleId;
+      this.subId = subId;
+      this.invocations = invocations;
+      this.totalNanos = totalNanos;
+      this.matches = matches;
+      this.checkedChars = checkedChars;
+      this.estimatedAllocatedBytes = estimatedAllocatedBytes;
+    }
+
+    /** The language, as returned by {@link Language#getShortNameWithCountryAndVariant()}. */
+    public String getLanguageCode() {
+      return languageCode;
+    }
+
+    public String getRuleId() {
+      return ruleId;
+    }
+
+    /** The sub id of rules in a rule group, {@code null} for rules implemented in Java. */
+    @Nullable
+    public String getSubId() {
+      return subId;
+    }
+
+    /** How often the rule has been applied to a sentence (or a text, for text-level rules). */
+    public long getInvocations() {
+      return invocations;
+    }
+
+    /** The time spent in the rule, in nanoseconds. */
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    /** The number of matches found by the rule, before filtering. */
+    public long getMatches() {
+      return matches;
+    }
+
+    /** The length of the sentences the rule has been applied to. */
+    public long getCheckedChars() {
+      return checkedChars;
+    }
+
+    /**
+     * The memory allocated by the rule, extrapolated from the sentences for which it has
+     * been measured, or {@code 0} if the JVM doesn't support measuring it.
+     */
+    public long getEstimatedAllocatedBytes() {
+      return estimatedAllocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return languageCode + "/" + ruleId + (subId != null ? "[" + subId + "]" : "") + ": " + invocations
+              + " invocations, " + totalNanos / 1000000 + "ms, " + matches + " matches";
+    }
+  }
+
+  private static final class Counters {
+    private final AtomicLong invocations = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicLong matches = new AtomicLong();
+    private final AtomicLong chars = new AtomicLong();
+    private final AtomicLong sampledInvocations = new AtomicLong();
+    private final AtomicLong sampledBytes = new AtomicLong();
+
+    private void add(long invocationCount, long nanoCount, long matchCount, long charCount,
+                     long sampledInvocationCount, long sampledByteCount) {
+      invocations.addAndGet(invocationCount);
+      nanos.addAndGet(nanoCount);
+      matches.addAndGet(matchCount);
+      chars.addAndGet(charCount);
+      if (sampledInvocationCount > 0) {
+        sampledInvocations.addAndGet(sampledInvocationCount);
+        sampledBytes.addAndGet(sampledByteCount);
+      }
+    }
+
+    private RuleStats toStats(RuleKey key) {
+      final long invocationCount = invocations.get();
+      final long sampledInvocationCount = sampledInvocations.get();
+      final long estimatedBytes = sampledInvocationCount > 0
+              ? (long) ((double) sampledBytes.get() / sampledInvocationCount * invocationCount) : 0;
+      return new RuleStats(key.languageCode, key.ruleId, key.subId, invocationCount, nanos.get(),
+              matches.get(), chars.get(), estimatedBytes);
+    }
+  }
+
+  private static final class RuleKey {
+    private final String languageCode;
+    private final String ruleId;
+    private final String subId;
+    private RuleKey(String languageCode, String ruleId, @Nullable String subId) {
+      this.languageCode = languageCode;
+      this.ruleId = ruleId;
+      this.subId = subId;
+    }
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      final RuleKey other = (RuleKey) o;
+      return languageCode.equals(other.languageCode) && ruleId.equals(other.ruleId)
+              && (subId == null ? other.subId == null : subId.equals(other.subId));
+    }
+    @Override
+    public int hashCode() {
+      return 31 * (31 * languageCode.hashCode() + ruleId.hashCode()) + (subId != null ? subId.hashCode() : 0);
+    }
+  }
+
+}
@@ -0,0 +1,194 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.languagetool.rules.Category;
+import org.languagetool.rules.Rule;
+
+import java.util.*;
+
+/**
+ * The rules of a {@link CompiledRuleSet} that are to be used for one check, as a bit set
+ * over the rule indices. Pass it to {@link JLanguageTool#check(org.languagetool.markup.AnnotatedText, boolean, JLanguageTool.ParagraphHandling, RuleSelection)}
+ * to check a text with these rules, independent of the rules enabled or disabled in
+ * the {@link JLanguageTool} instance itself. The same rules are selected as by the
+ * corresponding methods of {@link JLanguageTool}, e.g. {@link #disableRule(String)}
+ * works like {@link JLanguageTool#disableRule(String)}.
+ *
+ * <p>Rules that are not part of the {@link CompiledRuleSet} (i.e. rules added to an instance
+ * with {@link JLanguageTool#addRule(Rule)}) are selected by their id and category.</p>
+ *
+ * <p><b>Thread-safety:</b> this class is thread-safe, but you should finish configuring
+ * a selection before using it for checks.</p>
+ * @since 3.1
+ */
+public final class RuleSelection {
+
+  private final CompiledRuleSet ruleSet;
+  private final Set<String> disabledRules = new HashSet<>();
+  private final Set<String> enabledRules = new HashSet<>();
+  private final Set<String> disabledCategories = new HashSet<>();
+  private boolean enabledOnly;
+
+  private BitSet activeRules;
+
+  /**
+   * Create a selection with all rules enabled except those that are off by default.
+   */
+  public RuleSelection(CompiledRuleSet ruleSet) {
+    this.ruleSet = Objects.requireNonNull(ruleSet);
+  }
+
+  public CompiledRuleSet getRuleSet() {
+    return ruleSet;
+  }
+
+  /**
+   * Disable the rule(s) with the given id - no error will be thrown if the id does not exist.
+   */
+  public synchronized RuleSelection disableRule(String ruleId) {
+    disabledRules.add(ruleId);
+    activeRules = null;
+    return this;
+  }
+
+  /**
+   * Enable the rule(s) with the given id, also if they are off by default.
+   * No error will be thrown if the id does not exist.
+   */
+  public synchronized RuleSelection enableRule(String ruleId) {
+    disabledRules.remove(ruleId);
+    enabledRules.add(ruleId);
+    activeRules = null;
+    return this;
+  }
+
+  /**
+   * Disable the rules of the given category - no error will be thrown if the category does not exist.
+   */
+  public synchronized RuleSelection disableCategory(String categoryName) {
+    disabledCategories.add(categoryName);
+    activeRules = null;
+    return this;
+  }
+
+  /**
+   * Disable all rules except those enabled with {@link #enableRule(String)}.
+   */
+  public synchronized RuleSelection enableOnlyEnabledRules() {
+    enabledOnly = true;
+    activeRules = null;
+    return this;
+  }
+
+  /**
+   * Enable and disable rules the same way {@link org.languagetool.tools.Tools#selectRules(JLanguageTool, List, List, boolean)} does.
+   * @param useEnabledOnly if set to {@code true} and there are enabled rules, disable all rules except those enabled explicitly
+   */
+  public synchronized RuleSelection selectRules(List<String> disabledRuleIds, List<String> enabledRuleIds, boolean useEnabledOnly) {
+    for (String ruleId : disabledRuleIds) {
+      disableRule(ruleId);
+    }
+    for (String ruleId : enabledRuleIds) {
+      enableRule(ruleId);
+    }
+    if (useEnabledOnly && enabledRuleIds.size() > 0) {
+      enableOnlyEnabledRules();
+    }
+    return this;
+  }
+
+  /**
+   * Whether the rule at the given index of the {@link CompiledRuleSet} is selected.
+   */
+  public synchronized boolean isActive(int index) {
+    return getActiveRules().get(index);
+  }
+
+  /**
+   * Whether the given rule is selected.
+   * @param index the index of the rule in the {@link CompiledRuleSet} or {@code -1} if it is not part of it
+   */
+  synchronized boolean isActive(int index, Rule rule) {
+    if (index >= 0 && index < ruleSet.size()) {
+      return getActiveRules().get(index);
+    }
+    final String id = rule.getId();
+    if (disabledRules.contains(id)) {
+      return false;
+    }
+    if (enabledOnly && !enabledRules.contains(id)) {
+      return false;
+    }
+    if (rule.isDefaultOff() && !enabledRules.contains(id)) {
+      return false;
+    }
+    final Category category = rule.getCategory();
+    return category == null || !disabledCategories.contains(category.getName());
+  }
+
+  /**
+   * The number of selected rules of the {@link CompiledRuleSet}.
+   */
+  public synchronized int getActiveRuleCount() {
+    return getActiveRules().cardinality();
+  }
+
+  private BitSet getActiveRules() {
+    if (activeRules == null) {
+      final BitSet active = new BitSet(ruleSet.size());
+      if (!enabledOnly) {
+        active.set(0, ruleSet.size());
+        active.andNot(ruleSet.getDefaultOffRules());
+      }
+      for (String ruleId : enabledRules) {
+        active.or(ruleSet.getIndicesForRuleId(ruleId));
+      }
+      for (String ruleId : disabledRules) {
+        active.andNot(ruleSet.getIndicesForRuleId(ruleId));
+      }
+      for (String categoryName : disabledCategories) {
+        active.andNot(ruleSet.getIndicesForCategory(categoryName));
+      }
+      activeRules = active;
+    }
+    return activeRules;
+  }
+
+  @Override
+  public synchronized boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    final RuleSelection other = (RuleSelection) o;
+    return ruleSet == other.ruleSet && getActiveRules().equals(other.getActiveRules())
+            && disabledRules.equals(other.disabledRules) && enabledRules.equals(other.enabledRules)
+            && disabledCategories.equals(other.disabledCategories) && enabledOnly == other.enabledOnly;
+  }
+
+  @Override
+  public synchronized int hashCode() {
+    return getActiveRules().hashCode();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return getActiveRuleCount() + " of " + ruleSet.size() + " rules active";
+  }
+
+}
@@ -18,9 +18,23 @@
  */
 package org.languagetool.databroker;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import morfologik.fsa.CFSA2;
+import morfologik.stemming.Dictionary;
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.JLanguageTool;
 
 /**
@@ -66,6 +80,15 @@ import org.languagetool.JLanguageTool;
  * /de/grammar.xml} as a string. Note: The {@code /rules} directory's name isn't
  * passed because its name might have changed. The same usage does apply for the
  * {@code /resource} directory.
+ * <p>
+ *
+ * Morfologik dictionaries are loaded only once per process: all callers of
+ * {@link #getFromResourceDirAsDictionary(String)} share the same dictionary
+ * object as long as it is in use.
+ * <p>
+ *
+ * Optionally, the resources can also be taken from a directory in the file
+ * system, see {@link #DefaultResourceDataBroker(String, String, File)}.
  *
  * @see ResourceDataBroker
  * @author PAX
@@ -73,6 +96,12 @@ import org.languagetool.JLanguageTool;
  */
 public class DefaultResourceDataBroker implements ResourceDataBroker {
 
+  /**
+   * The dictionaries in use, by URL. Values are weakly referenced so that the
+   * dictionaries of languages which are not used anymore can be garbage collected.
+   */
+  private static final Cache<String, Dictionary> dictionaries = CacheBuilder.newBuilder().weakValues().build();
+
   /**
    * The directory's name of the grammar checker's resource directory. The
    * default value equals {@link ResourceDataBroker#RESOURCE_DIR}.
@@ -85,6 +114,13 @@ public class DefaultResourceDataBroker implements ResourceDataBroker {
    */
   private final String rulesDir;
 
+  /**
+   * A directory in the file system that is searched for resources before
+   * the class path, or {@code null}.
+   */
+  @Nullable
+  private final File externalResourceDir;
+
   /**
    * Instantiates this data broker with the default resource directory names
    * as specified in:
@@ -107,8 +143,30 @@ public class DefaultResourceDataBroker implements ResourceDataBroker {
    *  The default value equals {@link ResourceDataBroker#RULES_DIR}.
    */
   public DefaultResourceDataBroker(final String resourceDir, final String rulesDir) {
+    this(resourceDir, rulesDir, null);
+  }
+
+  /**
+   * Instantiates this data broker with the passed resource directory names and
+   * a directory in the file system which is searched for resources before the
+   * class path. Its layout is that of the {@code /resource} directory, e.g.
+   * {@code /en/english.dict} is looked up as {@code externalResourceDir/en/english.dict}.
+   * Morfologik dictionaries found there are memory-mapped instead of being read
+   * into the heap, so they don't need to be garbage collected and several
+   * processes on the same host can share them.
+   *
+   * @param resourceDir The directory's name of the grammar checker's resource
+   *  directory. The default value equals {@link ResourceDataBroker#RESOURCE_DIR}.
+   * @param rulesDir The directory's name of the grammar checker's rules directory.
+   *  The default value equals {@link ResourceDataBroker#RULES_DIR}.
+   * @param externalResourceDir A directory in the file system, or {@code null}
+   *  to take all resources from the class path.
+   * @since 3.1
+   */
+  public DefaultResourceDataBroker(final String resourceDir, final String rulesDir, @Nullable final File externalResourceDir) {
     this.resourceDir = (resourceDir == null) ? "" : resourceDir;
     this.rulesDir = (rulesDir == null) ? "" : rulesDir;
+    this.externalResourceDir = externalResourceDir;
   }
 
   /**
@@ -125,6 +183,14 @@ public class DefaultResourceDataBroker implements ResourceDataBroker {
    */
   @Override
   public InputStream getFromResourceDirAsStream(final String path) {
+    final File file = getExternalResourceFile(path);
+    if (file != null) {
+      try {
+        return new FileInputStream(file);
+      } catch (IOException e) {
+        throw new RuntimeException("Could not open " + file, e);
+      }
+    }
     final String completePath = getCompleteResourceUrl(path);
     final InputStream resourceAsStream = ResourceDataBroker.class.getResourceAsStream(completePath);
     assertNotNull(resourceAsStream, path, completePath);
@@ -145,12 +211,98 @@ public class DefaultResourceDataBroker implements ResourceDataBroker {
    */
   @Override
   public URL getFromResourceDirAsUrl(final String path) {
+    final File file = getExternalResourceFile(path);
+    if (file != null) {
+      return toUrl(file);
+    }
     final String completePath = getCompleteResourceUrl(path);
     final URL resource = ResourceDataBroker.class.getResource(completePath);
     assertNotNull(resource, path, completePath);
     return resource;
   }
 
+  /**
+   * Gets a Morfologik binary dictionary from the grammar checker's {@code /resource} directory.
+   * The {@code .info} file must be next to the {@code .dict} file.
+   *
+   * @param path
+   *            The relative path to a {@code .dict} file inside of the {@code /resource}
+   *            directory.
+   * @return The dictionary, shared with all other callers that use the same dictionary
+   * @throws IOException if the dictionary cannot be read
+   * @throws RuntimeException if path cannot be found
+   * @since 3.1
+   */
+  public Dictionary getFromResourceDirAsDictionary(final String path) throws IOException {
+    final File file = getExternalResourceFile(path);
+    final URL url = file != null ? toUrl(file) : getFromResourceDirAsUrl(path);
+    try {
+      return dictionaries.get(url.toString(), new Callable<Dictionary>() {
+        @Override
+        public Dictionary call() throws IOException {
+          return file != null ? readMappedDictionary(file) : Dictionary.read(url);
+        }
+      });
+    } catch (ExecutionException e) {
+      throw new IOException("Could not load dictionary from " + url, e.getCause());
+    }
+  }
+
+  /**
+   * Gets a Morfologik binary dictionary from the {@code /resource} directory of the given broker. If it's a
+   * {@link DefaultResourceDataBroker}, the dictionary is shared (see {@link #getFromResourceDirAsDictionary(String)}),
+   * otherwise it's read from {@link ResourceDataBroker#getFromResourceDirAsUrl(String)} on every call.
+   * @since 3.1
+   */
+  public static Dictionary getDictionary(ResourceDataBroker broker, String path) throws IOException {
+    if (broker instanceof DefaultResourceDataBroker) {
+      return ((DefaultResourceDataBroker) broker).getFromResourceDirAsDictionary(path);
+    }
+    return Dictionary.read(broker.getFromResourceDirAsUrl(path));
+  }
+
+  /**
+   * Reads a dictionary without copying its automaton into the heap. Only automata
+   * in {@link CFSA2} format (the format of LanguageTool's dictionaries) are mapped,
+   * other dictionaries are read the usual way.
+   */
+  private Dictionary readMappedDictionary(File dictFile) throws IOException {
+    final File infoFile = new File(dictFile.getParentFile(), Dictionary.getExpectedFeaturesName(dictFile.getName()));
+    try (FileChannel channel = new FileInputStream(dictFile).getChannel()) {
+      final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (!MappedCFSA2.isCFSA2(buffer)) {
+        return Dictionary.read(dictFile);
+      }
+      // let Morfologik parse the header and the metadata, but not the arcs:
+      final byte[] header = new byte[MappedCFSA2.getHeaderLength(buffer)];
+      buffer.get(header);
+      final Dictionary headerOnly = Dictionary.readAndClose(new ByteArrayInputStream(header), new FileInputStream(infoFile));
+      final ByteBuffer arcs = buffer.slice();
+      return new Dictionary(new MappedCFSA2((CFSA2) headerOnly.fsa, arcs), headerOnly.metadata);
+    }
+  }
+
+  /**
+   * The file for the passed resource path in the external resource directory, or
+   * {@code null} if there's no such directory or the file doesn't exist there.
+   */
+  @Nullable
+  private File getExternalResourceFile(final String path) {
+    if (externalResourceDir == null) {
+      return null;
+    }
+    final File file = new File(externalResourceDir, path);
+    return file.isFile() ? file : null;
+  }
+
+  private URL toUrl(File file) {
+    try {
+      return file.toURI().toURL();
+    } catch (MalformedURLException e) {
+      throw new RuntimeException("Could not get URL for " + file, e);
+    }
+  }
+
   /**
    * Concatenates the passed resource path with the currently set {@code
    * resource} directory path.
@@ -237,6 +389,9 @@ public class DefaultResourceDataBroker implements ResourceDataBroker {
    */
   @Override
   public boolean resourceExists(String path) {
+    if (getExternalResourceFile(path) != null) {
+      return true;
+    }
     final String completePath = getCompleteResourceUrl(path);
     return ResourceDataBroker.class.getResource(completePath) != null;
   }
@@ -272,4 +427,14 @@ public class DefaultResourceDataBroker implements ResourceDataBroker {
     return rulesDir;
   }
 
+  /**
+   * @return The directory in the file system that is searched for resources
+   *         before the class path, or {@code null}.
+   * @since 3.1
+   */
+  @Nullable
+  public File getExternalResourceDir() {
+    return externalResourceDir;
+  }
+
 }
@@ -0,0 +1,185 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.databroker;
+
+import morfologik.fsa.CFSA2;
+import morfologik.fsa.FSA;
+import morfologik.fsa.FSAFlags;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * An automaton in Morfologik's {@link CFSA2} format whose arcs are read from a
+ * (usually memory-mapped) {@link ByteBuffer} instead of a byte array on the heap.
+ * The traversal works exactly like in {@link CFSA2}.
+ * @since 3.1
+ */
+final class MappedCFSA2 extends FSA {
+
+  private static final int MAGIC = ('\\' << 24) | ('f' << 16) | ('s' << 8) | 'a';
+  private static final int LABEL_INDEX_MASK = 0x1f;
+
+  private final ByteBuffer arcs;
+  private final Set<FSAFlags> flags;
+  private final byte[] labelMapping;
+  private final boolean hasNumbers;
+
+  /**
+   * @param header an automaton read from the header of the file only, i.e. without arcs
+   * @param arcs the arcs, starting right after the header
+   */
+  MappedCFSA2(CFSA2 header, ByteBuffer arcs) {
+    this.arcs = arcs;
+    this.flags = header.getFlags();
+    this.labelMapping = header.labelMapping;
+    this.hasNumbers = flags.contains(FSAFlags.NUMBERS);
+  }
+
+  /**
+   * Whether the buffer (starting at position 0) contains an automaton in {@link CFSA2} format.
+   */
+  static boolean isCFSA2(ByteBuffer buffer) {
+    return buffer.limit() > 8 && buffer.getInt(0) == MAGIC && buffer.get(4) == CFSA2.VERSION;
+  }
+
+  /**
+   * The length of the header of a {@link CFSA2} automaton, i.e. the offset of its first arc.
+   */
+  static int getHeaderLength(ByteBuffer buffer) {
+    // magic (4 bytes), version (1), flags (2), label mapping size (1), label mapping
+    return 8 + (buffer.get(7) & 0xff);
+  }
+
+  @Override
+  public int getRootNode() {
+    return getDestinationNodeOffset(getFirstArc(0));
+  }
+
+  @Override
+  public int getFirstArc(int node) {
+    if (hasNumbers) {
+      return skipVInt(node);
+    }
+    return node;
+  }
+
+  @Override
+  public int getNextArc(int arc) {
+    if (isArcLast(arc)) {
+      return 0;
+    }
+    return skipArc(arc);
+  }
+
+  @Override
+  public int getArc(int node, byte label) {
+    for (int arc = getFirstArc(node); arc != 0; arc = getNextArc(arc)) {
+      if (getArcLabel(arc) == label) {
+        return arc;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public int getEndNode(int arc) {
+    return getDestinationNodeOffset(arc);
+  }
+
+  @Override
+  public byte getArcLabel(int arc) {
+    int index = arcs.get(arc) & LABEL_INDEX_MASK;
+    if (index > 0) {
+      return labelMapping[index];
+    }
+    return arcs.get(arc + 1);
+  }
+
+  @Override
+  public int getRightLanguageCount(int node) {
+    if (!hasNumbers) {
+      throw new UnsupportedOperationException("Automaton not compiled with " + FSAFlags.NUMBERS);
+    }
+    return readVInt(node);
+  }
+
+  @Override
+  public boolean isArcFinal(int arc) {
+    return (arcs.get(arc) & CFSA2.BIT_FINAL_ARC) != 0;
+  }
+
+  @Override
+  public boolean isArcTerminal(int arc) {
+    return getDestinationNodeOffset(arc) == 0;
+  }
+
+  @Override
+  public Set<FSAFlags> getFlags() {
+    return flags;
+  }
+
+  private boolean isArcLast(int arc) {
+    return (arcs.get(arc) & CFSA2.BIT_LAST_ARC) != 0;
+  }
+
+  private boolean isNextSet(int arc) {
+    return (arcs.get(arc) & CFSA2.BIT_TARGET_NEXT) != 0;
+  }
+
+  private int getDestinationNodeOffset(int arc) {
+    if (isNextSet(arc)) {
+      // the target is the node right after the last arc of this node:
+      while (!isArcLast(arc)) {
+        arc = getNextArc(arc);
+      }
+      return skipArc(arc);
+    }
+    return readVInt(arc + ((arcs.get(arc) & LABEL_INDEX_MASK) == 0 ? 2 : 1));
+  }
+
+  private int skipArc(int offset) {
+    byte flag = arcs.get(offset++);
+    if ((flag & LABEL_INDEX_MASK) == 0) {
+      offset++;  // explicit label
+    }
+    if ((flag & CFSA2.BIT_TARGET_NEXT) == 0) {
+      offset = skipVInt(offset);  // explicit target address
+    }
+    return offset;
+  }
+
+  private int readVInt(int offset) {
+    byte b = arcs.get(offset);
+    int value = b & 0x7f;
+    for (int shift = 7; b < 0; shift += 7) {
+      b = arcs.get(++offset);
+      value |= (b & 0x7f) << shift;
+    }
+    return value;
+  }
+
+  private int skipVInt(int offset) {
+    while (arcs.get(offset++) < 0) {
+      // continuation bit set
+    }
+    return offset;
+  }
+
+}
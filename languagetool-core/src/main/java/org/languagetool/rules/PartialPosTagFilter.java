@@ -22,6 +22,7 @@ import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedToken;
 import org.languagetool.AnalyzedTokenReadings;
 import org.languagetool.rules.patterns.RuleFilter;
+import org.languagetool.tools.PatternCache;
 
 import java.util.List;
 import java.util.Map;
@@ -54,7 +55,7 @@ public abstract class PartialPosTagFilter implements RuleFilter {
       throw new RuntimeException("Set 'no', 'regexp' and 'postag_regexp' for filter " + PartialPosTagFilter.class.getSimpleName());
     }
     int tokenPos = Integer.parseInt(args.get("no"));
-    Pattern pattern = Pattern.compile(args.get("regexp"));
+    Pattern pattern = PatternCache.getDefault().compile(args.get("regexp"));
     String requiredTagRegexp = args.get("postag_regexp");
     boolean negatePos = args.containsKey("negate_pos");
     String token = patternTokens[tokenPos - 1].getToken();
@@ -73,17 +74,18 @@ public abstract class PartialPosTagFilter implements RuleFilter {
   private boolean partialTagHasRequiredTag(List<AnalyzedTokenReadings> tags, String requiredTagRegexp, boolean negatePos) {
     // Without negate_pos=yes: return true if any postag matches the regexp.
     // With negate_pos=yes:    return true if there are postag and none them matches the regexp.
+    Pattern requiredTagPattern = PatternCache.getDefault().compile(requiredTagRegexp);
     int postagCount = 0;
     for (AnalyzedTokenReadings tag : tags) {
       for (AnalyzedToken analyzedToken : tag.getReadings()) {
         if (analyzedToken.getPOSTag() != null) {
           if (negatePos) {
             postagCount++;
-            if (analyzedToken.getPOSTag().matches(requiredTagRegexp)) {
+            if (requiredTagPattern.matcher(analyzedToken.getPOSTag()).matches()) {
               return false;
             }
           } else {
-            if (analyzedToken.getPOSTag().matches(requiredTagRegexp)) {
+            if (requiredTagPattern.matcher(analyzedToken.getPOSTag()).matches()) {
               return true;
             }
           }
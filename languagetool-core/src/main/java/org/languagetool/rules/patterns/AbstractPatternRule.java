@@ -20,14 +20,14 @@
 package org.languagetool.rules.patterns;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.Language;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.tools.StringTools;
 
 /**
  * An Abstract Pattern Rule that describes a pattern of words or part-of-speech tags 
@@ -53,6 +53,12 @@ public abstract class AbstractPatternRule extends Rule {
   private final boolean getUnified;
   private final boolean groupsOrUnification;
 
+  // Tokens used for fast checking whether a rule can ever match.
+  private final Set<String> simpleRuleTokens;
+  private final Set<String> inflectedRuleTokens;
+  // for each of these, the sentence must have a POS tag that starts with it:
+  private final Set<String> posTagPrefixes;
+
   public AbstractPatternRule(final String id, 
       final String description,
       final Language language,
@@ -63,6 +69,9 @@ public abstract class AbstractPatternRule extends Rule {
     this.patternTokens = new ArrayList<>(Objects.requireNonNull(patternTokens, "patternTokens cannot be null")); // copy elements
     this.language = Objects.requireNonNull(language, "language cannot be null");
     this.getUnified = getUnified;
+    for (PatternToken patternToken : this.patternTokens) {
+      patternToken.intern(language.getTokenPredicates());
+    }
     testUnification = initUnifier();
     sentStart = this.patternTokens.size() > 0 && this.patternTokens.get(0).isSentenceStart();
     if (!testUnification) {
@@ -77,6 +86,107 @@ public abstract class AbstractPatternRule extends Rule {
     } else {
       groupsOrUnification = true;
     }
+    simpleRuleTokens = getSet(false);
+    inflectedRuleTokens = getSet(true);
+    posTagPrefixes = getPosTagPrefixes();
+  }
+
+  /**
+   * A fast check whether this rule can be ignored for the given sentence
+   * because it can never match. Used internally for performance optimization.
+   * @since 2.4
+   */
+  public boolean canBeIgnoredFor(AnalyzedSentence sentence) {
+    return (!simpleRuleTokens.isEmpty() && !sentence.getTokenSet().containsAll(simpleRuleTokens))
+            || (!inflectedRuleTokens.isEmpty() && !sentence.getLemmaSet().containsAll(inflectedRuleTokens))
+            || (!posTagPrefixes.isEmpty() && !containsPosTagPrefixes(sentence.getPosTagSet()));
+  }
+
+  private boolean containsPosTagPrefixes(Set<String> posTags) {
+    for (String prefix : posTagPrefixes) {
+      boolean found = false;
+      for (String posTag : posTags) {
+        if (posTag.startsWith(prefix)) {
+          found = true;
+          break;
+        }
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // tokens that just refer to a word - no regex and optionally no inflection etc.
+  private Set<String> getSet(boolean isInflected) {
+    Set<String> set = new HashSet<>();
+    for (PatternToken patternToken : patternTokens) {
+      boolean acceptInflectionValue = isInflected ? patternToken.isInflected() : !patternToken.isInflected();
+      if (acceptInflectionValue && !patternToken.getNegation() && !patternToken.isRegularExpression()
+              && !patternToken.isReferenceElement() && patternToken.getMinOccurrence() > 0) {
+        String str = patternToken.getString();
+        if (!StringTools.isEmpty(str)) {
+          set.add(str.toLowerCase());
+        }
+      }
+    }
+    return Collections.unmodifiableSet(set);
+  }
+
+  // the POS tag (or, for a regex, its literal start) of tokens that must match
+  private Set<String> getPosTagPrefixes() {
+    Set<String> set = new HashSet<>();
+    for (PatternToken patternToken : patternTokens) {
+      if (!patternToken.getPOSNegation() && !patternToken.isReferenceElement() && patternToken.getMinOccurrence() > 0) {
+        String prefix = getPosTagPrefix(patternToken);
+        if (prefix != null) {
+          set.add(prefix);
+        }
+      }
+    }
+    return Collections.unmodifiableSet(set);
+  }
+
+  @Nullable
+  static String getPosTagPrefix(PatternToken patternToken) {
+    String posTag = patternToken.getPOStag();
+    if (StringTools.isEmpty(posTag) || patternToken.isPosTagUnknownAllowed()) {
+      return null;
+    }
+    if (!patternToken.isPOStagRegularExpression()) {
+      return posTag;
+    }
+    if (posTag.indexOf('|') != -1) {
+      return null;  // alternatives may start differently
+    }
+    int end = 0;
+    while (end < posTag.length() && isLiteral(posTag.charAt(end))) {
+      end++;
+    }
+    if (end < posTag.length() && "?*{".indexOf(posTag.charAt(end)) != -1) {
+      end--;  // the last character is optional
+    }
+    return end > 0 ? posTag.substring(0, end) : null;
+  }
+
+  private static boolean isLiteral(char c) {
+    return Character.isLetterOrDigit(c) || c == ':' || c == '_' || c == '-' || c == ' ';
+  }
+
+  /** Lowercase tokens that must all occur in a sentence for this rule to match. */
+  Set<String> getSimpleRuleTokens() {
+    return simpleRuleTokens;
+  }
+
+  /** Lowercase lemmas that must all occur in a sentence for this rule to match. */
+  Set<String> getInflectedRuleTokens() {
+    return inflectedRuleTokens;
+  }
+
+  /** For each of these, a sentence must have a POS tag starting with it for this rule to match. */
+  Set<String> getPosTagPrefixSet() {
+    return posTagPrefixes;
   }
 
   @Override
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.*;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.Language;
 import org.languagetool.rules.RuleMatch;
@@ -41,10 +42,6 @@ public class PatternRule extends AbstractPatternRule {
   // A list of elements as they appear in XML file (phrases count as single tokens in case of matches or skipping).
   private final List<Integer> elementNo;
 
-  // Tokens used for fast checking whether a rule can ever match.
-  private final Set<String> simpleRuleTokens;
-
-  private final Set<String> inflectedRuleTokens;
   // a list of antipatterns used in the rule:
   private final List<DisambiguationPatternRule> antiPatterns = new ArrayList<>();
 
@@ -109,8 +106,6 @@ public class PatternRule extends AbstractPatternRule {
       }
     }
     useList = tempUseList;
-    simpleRuleTokens = getSet(false);
-    inflectedRuleTokens = getSet(true);
   }
   
   public PatternRule(final String id, final Language language,
@@ -182,9 +177,17 @@ public class PatternRule extends AbstractPatternRule {
 
   @Override
   public final RuleMatch[] match(final AnalyzedSentence sentence) throws IOException {
+    return match(sentence, null);
+  }
+
+  /**
+   * @param startPositions the positions in the sentence's tokens without whitespace at
+   *   which a match may start, or {@code null} to try every position
+   */
+  final RuleMatch[] match(final AnalyzedSentence sentence, @Nullable final BitSet startPositions) throws IOException {
     try {
       final PatternRuleMatcher matcher = new PatternRuleMatcher(this, useList);
-      return matcher.match(getSentenceWithImmunization(sentence));
+      return matcher.match(getSentenceWithImmunization(sentence), startPositions);
     } catch (IOException e) {
       throw new IOException("Error analyzing sentence: '" + sentence + "'", e);
     } catch (Exception e) {
@@ -202,32 +205,6 @@ public class PatternRule extends AbstractPatternRule {
     suggestionMatchesOutMsg.add(m);
   }
   
-  /**
-   * A fast check whether this rule can be ignored for the given sentence
-   * because it can never match. Used internally for performance optimization.
-   * @since 2.4
-   */
-  public boolean canBeIgnoredFor(AnalyzedSentence sentence) {
-    return (!simpleRuleTokens.isEmpty() && !sentence.getTokenSet().containsAll(simpleRuleTokens))
-            || (!inflectedRuleTokens.isEmpty() && !sentence.getLemmaSet().containsAll(inflectedRuleTokens));
-  }
-
-  // tokens that just refer to a word - no regex and optionally no inflection etc.
-  private Set<String> getSet(boolean isInflected) {
-    Set<String> set = new HashSet<>();
-    for (PatternToken patternToken : patternTokens) {
-      boolean acceptInflectionValue = isInflected ? patternToken.isInflected() : !patternToken.isInflected();
-      if (acceptInflectionValue && !patternToken.getNegation() && !patternToken.isRegularExpression()
-              && !patternToken.isReferenceElement() && patternToken.getMinOccurrence() > 0) {
-        String str = patternToken.getString();
-        if (!StringTools.isEmpty(str)) {
-          set.add(str.toLowerCase());
-        }
-      }
-    }
-    return Collections.unmodifiableSet(set);
-  }
-
   List<Integer> getElementNo() {
     return elementNo;
   }
@@ -0,0 +1,325 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.AnalyzedToken;
+import org.languagetool.AnalyzedTokenReadings;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * The patterns of many {@link PatternRule}s compiled into one automaton, so that a sentence
+ * is scanned once for all rules instead of once per rule. The automaton is a trie over the
+ * conditions of the pattern tokens (the part tested by {@link PatternToken#isMatched(AnalyzedToken)}),
+ * so rules that start with the same tokens share their states and each condition is tested
+ * at most once per token. Like in the Aho-Corasick algorithm, the scan keeps all states
+ * reached so far and starts a new path at each token.
+ *
+ * <p>Only the beginning of a pattern is compiled, up to the first token that needs the
+ * full matcher: references to other tokens, unification, {@code min="0"}, or anything
+ * that follows a token with {@code skip} or {@code max}. Exceptions, and-groups, chunks and
+ * antipatterns only restrict matching further and are ignored. So the automaton finds the
+ * positions at which a rule may start to match. The rule's matcher then only looks at
+ * those positions and creates the matches, so the result is the same as with
+ * {@link PatternRule#match(AnalyzedSentence)}. Rules whose first token can't be compiled and
+ * rules that are not pattern rules are matched as usual.</p>
+ *
+ * <p><b>Thread-safety:</b> this class is immutable and thread-safe.</p>
+ * @since 3.1
+ */
+public final class PatternRuleAutomaton {
+
+  private static final Edge[] NO_EDGES = new Edge[0];
+  private static final int[] NO_RULES = new int[0];
+
+  private final List<Rule> rules;
+  private final BitSet compiledRules;
+  private final List<PatternToken> conditions = new ArrayList<>();
+  private final Node root = new Node(0);
+  private int nodeCount = 1;
+
+  /**
+   * @param rules the rules, {@link #scan(AnalyzedSentence, BitSet)} refers to them by their position in this list
+   */
+  public PatternRuleAutomaton(List<Rule> rules) {
+    this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+    this.compiledRules = new BitSet(rules.size());
+    final Map<String, Integer> conditionIds = new HashMap<>();
+    for (int i = 0; i < rules.size(); i++) {
+      final Rule rule = rules.get(i);
+      if (!(rule instanceof PatternRule)) {
+        continue;
+      }
+      Node node = root;
+      for (PatternToken patternToken : ((PatternRule) rule).getPatternTokens()) {
+        if (!canBeCompiled(patternToken)) {
+          break;
+        }
+        final String key = patternToken.getMatchKey();
+        Integer conditionId = conditionIds.get(key);
+        if (conditionId == null) {
+          conditionId = conditions.size();
+          conditionIds.put(key, conditionId);
+          conditions.add(patternToken);
+        }
+        node = node.getOrAddChild(conditionId);
+        if (patternToken.getSkipNext() != 0 || patternToken.getMaxOccurrence() != 1) {
+          break;  // the position of the next token is not known
+        }
+      }
+      if (node != root) {
+        node.addRule(i);
+        compiledRules.set(i);
+      }
+    }
+    compile(root);
+  }
+
+  private static boolean canBeCompiled(PatternToken patternToken) {
+    return patternToken.getMinOccurrence() == 1 && !patternToken.isReferenceElement()
+            && !patternToken.isUnified() && !patternToken.isUnificationNeutral();
+  }
+
+  private void compile(Node node) {
+    node.compile(conditions);
+    for (Node child : node.children.values()) {
+      nodeCount++;
+      compile(child);
+    }
+  }
+
+  /**
+   * The rules of this automaton, in the order used by {@link #scan(AnalyzedSentence, BitSet)}.
+   */
+  public List<Rule> getRules() {
+    return rules;
+  }
+
+  /**
+   * Scan the sentence for the positions at which the rules may start to match.
+   * @param candidates the positions of the rules to consider - rules that are found not
+   *   to match the sentence are removed
+   * @return the scan result, to be used for matching the rules with {@link Scan#match(int)}
+   */
+  public Scan scan(AnalyzedSentence sentence, BitSet candidates) {
+    final AnalyzedTokenReadings[] tokens = sentence.getTokensWithoutWhitespace();
+    final BitSet[] startPositions = new BitSet[rules.size()];
+    // the token position + 1 at which a condition has been tested, and the result:
+    final int[] testedAt = new int[conditions.size()];
+    final BitSet results = new BitSet(conditions.size());
+    final Set<String> tokenKeys = new HashSet<>();
+    final Set<String> lemmaKeys = new HashSet<>();
+    List<Node> states = new ArrayList<>();
+    List<Node> nextStates = new ArrayList<>();
+    for (int pos = 0; pos < tokens.length; pos++) {
+      states.add(root);
+      tokenKeys.clear();
+      lemmaKeys.clear();
+      for (int i = 0; i < tokens[pos].getReadingsLength(); i++) {
+        final AnalyzedToken reading = tokens[pos].getAnalyzedToken(i);
+        tokenKeys.add(foldCase(reading.getToken()));
+        lemmaKeys.add(foldCase(reading.getTokenInflected()));
+      }
+      for (Node state : states) {
+        if (state.tokenEdges != null) {
+          for (String key : tokenKeys) {
+            follow(state.tokenEdges.get(key), tokens[pos], pos, testedAt, results, nextStates, startPositions);
+          }
+        }
+        if (state.lemmaEdges != null) {
+          for (String key : lemmaKeys) {
+            follow(state.lemmaEdges.get(key), tokens[pos], pos, testedAt, results, nextStates, startPositions);
+          }
+        }
+        follow(state.otherEdges, tokens[pos], pos, testedAt, results, nextStates, startPositions);
+      }
+      final List<Node> tmp = states;
+      states = nextStates;
+      nextStates = tmp;
+      nextStates.clear();
+    }
+    for (int i = compiledRules.nextSetBit(0); i >= 0; i = compiledRules.nextSetBit(i + 1)) {
+      if (startPositions[i] == null) {
+        candidates.clear(i);
+      }
+    }
+    return new Scan(sentence, startPositions);
+  }
+
+  private void follow(Edge[] edges, AnalyzedTokenReadings token, int pos, int[] testedAt, BitSet results,
+                      List<Node> nextStates, BitSet[] startPositions) {
+    if (edges == null) {
+      return;
+    }
+    for (Edge edge : edges) {
+      final int conditionId = edge.conditionId;
+      if (testedAt[conditionId] != pos + 1) {
+        testedAt[conditionId] = pos + 1;
+        results.set(conditionId, isMatched(conditions.get(conditionId), token));
+      }
+      if (results.get(conditionId)) {
+        final Node target = edge.target;
+        nextStates.add(target);
+        for (int ruleIndex : target.rules) {
+          if (startPositions[ruleIndex] == null) {
+            startPositions[ruleIndex] = new BitSet();
+          }
+          startPositions[ruleIndex].set(pos - target.depth + 1);
+        }
+      }
+    }
+  }
+
+  // a token can only match if one of its readings matches, see AbstractPatternRulePerformer.testAllReadings():
+  private static boolean isMatched(PatternToken patternToken, AnalyzedTokenReadings token) {
+    final int readings = token.getReadingsLength();
+    for (int i = 0; i < readings; i++) {
+      if (patternToken.isMatched(token.getAnalyzedToken(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // strings that are equal according to String.equalsIgnoreCase() have the same result:
+  private static String foldCase(String s) {
+    final char[] chars = s.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+    }
+    return new String(chars);
+  }
+
+  @Override
+  public String toString() {
+    return rules.size() + " rules, " + compiledRules.cardinality() + " compiled, "
+            + conditions.size() + " conditions, " + nodeCount + " states";
+  }
+
+  /**
+   * The result of scanning a sentence with {@link #scan(AnalyzedSentence, BitSet)}.
+   */
+  public final class Scan {
+
+    private final AnalyzedSentence sentence;
+    private final BitSet[] startPositions;
+
+    private Scan(AnalyzedSentence sentence, BitSet[] startPositions) {
+      this.sentence = sentence;
+      this.startPositions = startPositions;
+    }
+
+    /**
+     * Match the rule at the given position of the automaton's rules against the sentence.
+     * The result is the same as that of the rule's {@code match()} method.
+     */
+    public RuleMatch[] match(int ruleIndex) throws IOException {
+      final Rule rule = rules.get(ruleIndex);
+      if (!compiledRules.get(ruleIndex)) {
+        return rule.match(sentence);
+      }
+      if (startPositions[ruleIndex] == null) {
+        return new RuleMatch[0];
+      }
+      return ((PatternRule) rule).match(sentence, startPositions[ruleIndex]);
+    }
+  }
+
+  private static final class Node {
+
+    private final int depth;
+    private final Map<Integer, Node> children = new LinkedHashMap<>();
+    private int[] rules = NO_RULES;
+    // the edges by the folded string that a token or lemma must have, and all other edges:
+    private Map<String, Edge[]> tokenEdges;
+    private Map<String, Edge[]> lemmaEdges;
+    private Edge[] otherEdges = NO_EDGES;
+
+    private Node(int depth) {
+      this.depth = depth;
+    }
+
+    private Node getOrAddChild(int conditionId) {
+      Node child = children.get(conditionId);
+      if (child == null) {
+        child = new Node(depth + 1);
+        children.put(conditionId, child);
+      }
+      return child;
+    }
+
+    private void addRule(int ruleIndex) {
+      rules = Arrays.copyOf(rules, rules.length + 1);
+      rules[rules.length - 1] = ruleIndex;
+    }
+
+    private void compile(List<PatternToken> conditions) {
+      final Map<String, List<Edge>> byToken = new HashMap<>();
+      final Map<String, List<Edge>> byLemma = new HashMap<>();
+      final List<Edge> others = new ArrayList<>();
+      for (Map.Entry<Integer, Node> entry : children.entrySet()) {
+        final PatternToken condition = conditions.get(entry.getKey());
+        final Edge edge = new Edge(entry.getKey(), entry.getValue());
+        final String string = condition.getString();
+        if (string != null && !string.isEmpty() && !condition.isRegularExpression() && !condition.getNegation()) {
+          add(condition.isInflected() ? byLemma : byToken, foldCase(string), edge);
+        } else {
+          others.add(edge);
+        }
+      }
+      tokenEdges = toArrays(byToken);
+      lemmaEdges = toArrays(byLemma);
+      otherEdges = others.toArray(new Edge[others.size()]);
+    }
+
+    private static void add(Map<String, List<Edge>> map, String key, Edge edge) {
+      List<Edge> edges = map.get(key);
+      if (edges == null) {
+        edges = new ArrayList<>(1);
+        map.put(key, edges);
+      }
+      edges.add(edge);
+    }
+
+    private static Map<String, Edge[]> toArrays(Map<String, List<Edge>> map) {
+      if (map.isEmpty()) {
+        return null;
+      }
+      final Map<String, Edge[]> result = new HashMap<>(map.size() * 4 / 3 + 1);
+      for (Map.Entry<String, List<Edge>> entry : map.entrySet()) {
+        result.put(entry.getKey(), entry.getValue().toArray(new Edge[entry.getValue().size()]));
+      }
+      return result;
+    }
+  }
+
+  private static final class Edge {
+    private final int conditionId;
+    private final Node target;
+    private Edge(int conditionId, Node target) {
+      this.conditionId = conditionId;
+      this.target = target;
+    }
+  }
+
+}
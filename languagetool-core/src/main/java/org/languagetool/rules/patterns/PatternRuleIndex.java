@@ -0,0 +1,178 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.rules.Rule;
+
+import java.util.*;
+
+/**
+ * An index from the words, lemmas and POS tags that pattern rules require to the rules, so
+ * the rules that can match a sentence are found without looking at every rule. For each
+ * {@link AbstractPatternRule} (a pattern rule or a disambiguation rule), one of the tokens, lemmas
+ * or POS tag prefixes it requires is used as its key (a word if possible, as words are less common
+ * than POS tags). The rules found via the sentence's words, lemmas and tags are then checked with
+ * {@link AbstractPatternRule#canBeIgnoredFor(AnalyzedSentence)}.
+ * So {@link #getCandidates(AnalyzedSentence)} returns exactly the rules for which
+ * {@code canBeIgnoredFor()} returns {@code false}, plus all rules that are not pattern rules.
+ * Used internally for performance optimization.
+ *
+ * <p><b>Thread-safety:</b> this class is immutable and thread-safe.</p>
+ * @since 3.1
+ */
+public final class PatternRuleIndex {
+
+  private final List<Rule> rules;
+  private final BitSet unindexedRules;
+  private final Map<String, int[]> tokenIndex;
+  private final Map<String, int[]> lemmaIndex;
+  private final Map<String, int[]> posTagPrefixIndex;
+  private final BitSet posTagPrefixLengths = new BitSet();
+
+  /**
+   * @param rules the rules, {@link #getCandidates(AnalyzedSentence)} refers to them by their position in this list
+   */
+  public PatternRuleIndex(List<Rule> rules) {
+    this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+    this.unindexedRules = new BitSet(rules.size());
+    final Map<String, List<Integer>> tokens = new HashMap<>();
+    final Map<String, List<Integer>> lemmas = new HashMap<>();
+    final Map<String, List<Integer>> posTagPrefixes = new HashMap<>();
+    for (int i = 0; i < rules.size(); i++) {
+      final Rule rule = rules.get(i);
+      if (!(rule instanceof AbstractPatternRule)) {
+        unindexedRules.set(i);
+        continue;
+      }
+      final AbstractPatternRule patternRule = (AbstractPatternRule) rule;
+      final String token = getLongest(patternRule.getSimpleRuleTokens());
+      final String lemma = getLongest(patternRule.getInflectedRuleTokens());
+      if (token != null && (lemma == null || token.length() >= lemma.length())) {
+        add(tokens, token, i);
+      } else if (lemma != null) {
+        add(lemmas, lemma, i);
+      } else {
+        final String posTagPrefix = getLongest(patternRule.getPosTagPrefixSet());
+        if (posTagPrefix != null) {
+          add(posTagPrefixes, posTagPrefix, i);
+          posTagPrefixLengths.set(posTagPrefix.length());
+        } else {
+          unindexedRules.set(i);
+        }
+      }
+    }
+    this.tokenIndex = toArrays(tokens);
+    this.lemmaIndex = toArrays(lemmas);
+    this.posTagPrefixIndex = toArrays(posTagPrefixes);
+  }
+
+  @Nullable
+  private static String getLongest(Set<String> strings) {
+    String longest = null;
+    for (String s : strings) {
+      if (longest == null || s.length() > longest.length() || (s.length() == longest.length() && s.compareTo(longest) < 0)) {
+        longest = s;
+      }
+    }
+    return longest;
+  }
+
+  private static void add(Map<String, List<Integer>> map, String key, int ruleIndex) {
+    List<Integer> indices = map.get(key);
+    if (indices == null) {
+      indices = new ArrayList<>(1);
+      map.put(key, indices);
+    }
+    indices.add(ruleIndex);
+  }
+
+  private static Map<String, int[]> toArrays(Map<String, List<Integer>> map) {
+    final Map<String, int[]> result = new HashMap<>(map.size() * 4 / 3 + 1);
+    for (Map.Entry<String, List<Integer>> entry : map.entrySet()) {
+      final List<Integer> list = entry.getValue();
+      final int[] array = new int[list.size()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = list.get(i);
+      }
+      result.put(entry.getKey(), array);
+    }
+    return result;
+  }
+
+  /**
+   * The rules of this index, in the order used by {@link #getCandidates(AnalyzedSentence)}.
+   */
+  public List<Rule> getRules() {
+    return rules;
+  }
+
+  /**
+   * The positions of the rules that may match the sentence: the pattern rules that
+   * can't be ignored for it, and all other rules.
+   */
+  public BitSet getCandidates(AnalyzedSentence sentence) {
+    final BitSet candidates = (BitSet) unindexedRules.clone();
+    addCandidates(sentence, 0, candidates);
+    return candidates;
+  }
+
+  /**
+   * Adds the positions of the pattern rules from {@code fromIndex} on that may match the
+   * sentence to {@code candidates}. Rules that are already candidates are not checked again.
+   * Useful if the sentence has changed and the candidates for the old sentence are still
+   * to be applied, e.g. when disambiguation rules are applied one after the other.
+   * @since 3.1
+   */
+  public void addCandidates(AnalyzedSentence sentence, int fromIndex, BitSet candidates) {
+    for (String token : sentence.getTokenSet()) {
+      addCandidates(candidates, tokenIndex.get(token), sentence, fromIndex);
+    }
+    for (String lemma : sentence.getLemmaSet()) {
+      addCandidates(candidates, lemmaIndex.get(lemma), sentence, fromIndex);
+    }
+    if (!posTagPrefixIndex.isEmpty()) {
+      for (String posTag : sentence.getPosTagSet()) {
+        for (int length = posTagPrefixLengths.nextSetBit(1); length > 0 && length <= posTag.length();
+             length = posTagPrefixLengths.nextSetBit(length + 1)) {
+          addCandidates(candidates, posTagPrefixIndex.get(posTag.substring(0, length)), sentence, fromIndex);
+        }
+      }
+    }
+  }
+
+  private void addCandidates(BitSet candidates, @Nullable int[] ruleIndices, AnalyzedSentence sentence, int fromIndex) {
+    if (ruleIndices != null) {
+      for (int ruleIndex : ruleIndices) {
+        if (ruleIndex >= fromIndex && !candidates.get(ruleIndex)
+                && !((AbstractPatternRule) rules.get(ruleIndex)).canBeIgnoredFor(sentence)) {
+          candidates.set(ruleIndex);
+        }
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return rules.size() + " rules, " + tokenIndex.size() + " tokens, " + lemmaIndex.size() + " lemmas, "
+            + posTagPrefixIndex.size() + " POS tag prefixes, " + unindexedRules.cardinality() + " rules not indexed";
+  }
+
+}
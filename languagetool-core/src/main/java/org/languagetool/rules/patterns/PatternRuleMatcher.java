@@ -21,6 +21,7 @@ package org.languagetool.rules.patterns;
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.AnalyzedTokenReadings;
+import org.languagetool.CheckContext;
 import org.languagetool.Language;
 import org.languagetool.rules.RuleMatch;
 import org.languagetool.rules.RuleMatchFilter;
@@ -30,6 +31,7 @@ import org.languagetool.tools.StringTools;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -40,6 +42,8 @@ final class PatternRuleMatcher extends AbstractPatternRulePerformer {
   private static final String SUGGESTION_START_TAG = "<suggestion>";
   private static final String SUGGESTION_END_TAG = "</suggestion>";
   private static final String MISTAKE = "<mistake/>";
+  // how often to check whether the check has been stopped, in start positions:
+  private static final int STOP_CHECK_INTERVAL = 64;
 
   private final boolean useList;
   private final List<PatternTokenMatcher> patternTokenMatchers;
@@ -51,6 +55,14 @@ final class PatternRuleMatcher extends AbstractPatternRulePerformer {
   }
 
   RuleMatch[] match(final AnalyzedSentence sentence) throws IOException {
+    return match(sentence, null);
+  }
+
+  /**
+   * @param starts the token positions at which a match may start, or {@code null} to try
+   *   every position - other positions must not be able to start a match, so the result is the same
+   */
+  RuleMatch[] match(final AnalyzedSentence sentence, @Nullable final BitSet starts) throws IOException {
     final List<RuleMatch> ruleMatches = new ArrayList<>();
 
     final AnalyzedTokenReadings[] tokens = sentence.getTokensWithoutWhitespace();
@@ -58,9 +70,14 @@ final class PatternRuleMatcher extends AbstractPatternRulePerformer {
     final int patternSize = patternTokenMatchers.size();
     final int limit = Math.max(0, tokens.length - patternSize + 1);
     PatternTokenMatcher pTokenMatcher = null;
-    int i = 0;
+    int i = starts != null ? starts.nextSetBit(0) : 0;
     int minOccurCorrection = getMinOccurrenceCorrection();
-    while (i < limit + minOccurCorrection && !(rule.isSentStart() && i > 0)) {
+    int startPositions = 0;
+    while (i >= 0 && i < limit + minOccurCorrection && !(rule.isSentStart() && i > 0)) {
+      if (++startPositions % STOP_CHECK_INTERVAL == 0 && CheckContext.current().shouldStop()) {
+        // only relevant for very long sentences, for others the check stops between rules
+        break;
+      }
       int skipShiftTotal = 0;
       boolean allElementsMatch = false;
       int firstMatchToken = -1;
@@ -139,7 +156,7 @@ final class PatternRuleMatcher extends AbstractPatternRulePerformer {
           ruleMatches.add(ruleMatch);
         }
       }
-      i++;
+      i = starts != null ? starts.nextSetBit(i + 1) : i + 1;
     }
     RuleMatchFilter maxFilter = new RuleWithMaxFilter();
     List<RuleMatch> filteredMatches = maxFilter.filter(ruleMatches);
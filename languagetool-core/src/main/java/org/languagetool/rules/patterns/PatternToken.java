@@ -78,6 +78,8 @@ public class PatternToken implements Cloneable {
   private int maxOccurrence = 1;
 
   private Pattern pattern;
+  /** The interned {@link #pattern}, if any, see {@link #intern(TokenPredicates)}. */
+  private TokenPredicate stringPredicate;
 
   /** The reference to another element in the pattern. **/
   private Match tokenReference;
@@ -300,6 +302,7 @@ public class PatternToken implements Cloneable {
   }
 
   public final void setStringElement(final String token) {
+    stringPredicate = null;
     if (token != null) {
       stringToken = StringTools.trimWhitespace(token);
     } else {
@@ -397,7 +400,9 @@ public class PatternToken implements Cloneable {
       return posToken.posUnknown && token.hasNoTag();
     }
     boolean match;
-    if (posToken.regExp) {
+    if (posToken.predicate != null) {
+      match = posToken.predicate.matches(token);
+    } else if (posToken.regExp) {
       final Matcher mPos = posToken.posPattern.matcher(token.getPOSTag());
       match = mPos.matches();
     } else {
@@ -415,6 +420,9 @@ public class PatternToken implements Cloneable {
    * @return True if matches.
    */
   boolean isStringTokenMatched(final AnalyzedToken token) {
+    if (stringPredicate != null) {
+      return stringPredicate.matches(token);
+    }
     final String testToken = getTestToken(token);
     if (stringRegExp) {
       final Matcher m = pattern.matcher(testToken);
@@ -636,6 +644,66 @@ public class PatternToken implements Cloneable {
     return posToken != null && posToken.negation;
   }
 
+  /**
+   * Whether the POS tag of this token also matches tokens without a POS tag.
+   * @since 3.1
+   */
+  final boolean isPosTagUnknownAllowed() {
+    return posToken != null && posToken.posUnknown;
+  }
+
+  /**
+   * Use the regular expressions interned in the given table, for this token and its
+   * exceptions and and-group, so that matching them is cached in the tokens.
+   * To be called when the pattern token is complete.
+   * @since 3.1
+   */
+  final void intern(TokenPredicates predicates) {
+    if (testString && stringRegExp && pattern != null && stringPredicate == null) {
+      stringPredicate = predicates.getPredicate(
+              inflected ? TokenPredicate.Target.TOKEN_INFLECTED : TokenPredicate.Target.TOKEN, pattern.pattern());
+      pattern = stringPredicate.getPattern();
+    }
+    if (posToken != null && posToken.regExp && posToken.predicate == null) {
+      posToken = predicates.getPosToken(posToken.posTag, posToken.negation);
+    }
+    for (PatternToken patternToken : andGroupList) {
+      patternToken.intern(predicates);
+    }
+    if (exceptionList != null) {
+      for (PatternToken exception : exceptionList) {
+        exception.intern(predicates);
+      }
+    }
+    if (previousExceptionList != null) {
+      for (PatternToken exception : previousExceptionList) {
+        exception.intern(predicates);
+      }
+    }
+  }
+
+  /**
+   * A key that is equal for pattern tokens for which {@link #isMatched(AnalyzedToken)}
+   * is the same for every token. Exceptions, and-groups, chunk tags, skipping and
+   * occurrence settings are not part of the key, as {@code isMatched()} ignores them.
+   * @since 3.1
+   */
+  final String getMatchKey() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(testWhitespace ? whitespaceBefore ? 'W' : 'w' : '-');
+    sb.append(negation ? '!' : '-');
+    if (posToken != null && posToken.posTag != null) {
+      sb.append(posToken.negation ? '!' : '-').append(posToken.regExp ? 'r' : '-');
+      sb.append(posToken.posTag.length()).append(':').append(posToken.posTag);
+    }
+    sb.append('|');
+    if (testString) {
+      sb.append(inflected ? 'i' : '-').append(stringRegExp ? 'r' : '-').append(caseSensitive ? 'c' : '-');
+      sb.append(stringToken);
+    }
+    return sb.toString();
+  }
+
   /**
    * @return true if the token matches all inflected forms
    */
@@ -798,11 +866,13 @@ public class PatternToken implements Cloneable {
     private final boolean negation;
     private final Pattern posPattern;
     private final boolean posUnknown;
+    private final TokenPredicate predicate;
 
     public PosToken(String posTag, boolean regExp, boolean negation) {
       this.posTag = posTag;
       this.regExp = regExp;
       this.negation = negation;
+      this.predicate = null;
       if (regExp) {
         posPattern = Pattern.compile(posTag);
         posUnknown = posPattern.matcher(UNKNOWN_TAG).matches();
@@ -812,6 +882,16 @@ public class PatternToken implements Cloneable {
       }
     }
 
+    /** A POS token with a regular expression interned by {@link TokenPredicates}. */
+    PosToken(String posTag, boolean negation, TokenPredicate predicate) {
+      this.posTag = posTag;
+      this.regExp = true;
+      this.negation = negation;
+      this.predicate = predicate;
+      posPattern = predicate.getPattern();
+      posUnknown = posPattern.matcher(UNKNOWN_TAG).matches();
+    }
+
     @Override
     public String toString() {
       return posTag;
@@ -0,0 +1,465 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.Operations;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Compiles the regular subset of {@code java.util.regex} syntax to a (non-deterministic)
+ * Lucene {@link Automaton}. The automaton accepts the same strings as
+ * {@link java.util.regex.Matcher#matches()}, including case-insensitive matching with
+ * {@code (?iu)} as used by {@link PatternToken}. Everything else (backreferences, lookaround,
+ * anchors other than at the start and end, predefined classes like {@code \w} or {@code \p{L}},
+ * possessive quantifiers, nested classes, other flags) is not supported.
+ */
+final class RegexToAutomaton {
+
+  private static final String CASE_INSENSITIVE = "(?iu)";
+
+  private final String regex;
+  private final boolean caseInsensitive;
+  private int pos;
+
+  private RegexToAutomaton(String regex) {
+    this.regex = regex;
+    this.caseInsensitive = regex.startsWith(CASE_INSENSITIVE);
+    this.pos = caseInsensitive ? CASE_INSENSITIVE.length() : 0;
+  }
+
+  /**
+   * @return the automaton, or {@code null} if the expression uses a feature that is not supported
+   */
+  @Nullable
+  static Automaton toAutomaton(String regex) {
+    try {
+      final RegexToAutomaton parser = new RegexToAutomaton(regex);
+      final Automaton automaton = parser.alternatives(0);
+      if (parser.pos < regex.length()) {
+        throw new UnsupportedRegexException();  // unbalanced ')'
+      }
+      return automaton;
+    } catch (UnsupportedRegexException e) {
+      return null;
+    }
+  }
+
+  private Automaton alternatives(int depth) {
+    final List<Automaton> alternatives = new ArrayList<>();
+    alternatives.add(sequence(depth));
+    while (peek() == '|') {
+      pos++;
+      alternatives.add(sequence(depth));
+    }
+    return alternatives.size() == 1 ? alternatives.get(0) : Operations.union(alternatives);
+  }
+
+  private Automaton sequence(int depth) {
+    final List<Automaton> items = new ArrayList<>();
+    if (depth == 0 && peek() == '^') {
+      pos++;  // the start of the string, always true for matches()
+    }
+    while (pos < regex.length() && peek() != '|' && peek() != ')') {
+      if (depth == 0 && peek() == '$') {
+        pos++;  // the end of the string, always true for matches() if nothing follows
+        if (pos < regex.length() && peek() != '|') {
+          throw new UnsupportedRegexException();
+        }
+        break;
+      }
+      items.add(quantified(atom(depth)));
+    }
+    if (items.isEmpty()) {
+      return Automata.makeEmptyString();
+    }
+    return items.size() == 1 ? items.get(0) : Operations.concatenate(items);
+  }
+
+  private Automaton quantified(Automaton atom) {
+    final Automaton result;
+    final int c = peek();
+    if (c == '*') {
+      pos++;
+      result = Operations.repeat(atom);
+    } else if (c == '+') {
+      pos++;
+      result = Operations.repeat(atom, 1);
+    } else if (c == '?') {
+      pos++;
+      result = Operations.optional(atom);
+    } else if (c == '{') {
+      pos++;
+      result = repetition(atom);
+    } else {
+      return atom;
+    }
+    if (peek() == '?') {
+      pos++;  // reluctant, the same for matches()
+    }
+    final int next = peek();
+    if (next == '*' || next == '+' || next == '?' || next == '{') {
+      throw new UnsupportedRegexException();  // possessive, or invalid
+    }
+    return result;
+  }
+
+  // {n}, {n,}, {n,m}
+  private Automaton repetition(Automaton atom) {
+    final int min = number();
+    int max = min;
+    if (peek() == ',') {
+      pos++;
+      max = peek() == '}' ? -1 : number();
+    }
+    if (next() != '}' || max != -1 && max < min) {
+      throw new UnsupportedRegexException();
+    }
+    return max == -1 ? Operations.repeat(atom, min) : Operations.repeat(atom, min, max);
+  }
+
+  private int number() {
+    final int start = pos;
+    while (pos < regex.length() && pos - start < 3 && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '9') {
+      pos++;
+    }
+    if (pos == start || peek() >= '0' && peek() <= '9') {
+      throw new UnsupportedRegexException();
+    }
+    return Integer.parseInt(regex.substring(start, pos));
+  }
+
+  private Automaton atom(int depth) {
+    final int c = next();
+    switch (c) {
+      case '(':
+        if (peek() == '?') {
+          pos++;
+          if (next() != ':') {
+            throw new UnsupportedRegexException();
+          }
+        }
+        final Automaton group = alternatives(depth + 1);
+        if (next() != ')') {
+          throw new UnsupportedRegexException();
+        }
+        return group;
+      case '.':
+        // what '.' matches without DOTALL, see java.util.regex.Pattern:
+        return chars(new CharSet().add('\n').add('\r').add(0x85).add(0x2028).add(0x2029), true);
+      case '[':
+        return charClass();
+      case '\\':
+        final CharSet predefined = predefinedClass(peek());
+        if (predefined != null) {
+          pos++;
+          return chars(predefined, false);
+        }
+        return literal(escaped());
+      case '*': case '+': case '?': case '{': case '}': case ']': case '^': case '$':
+        throw new UnsupportedRegexException();
+      default:
+        return literal(c);
+    }
+  }
+
+  private Automaton literal(int c) {
+    if (caseInsensitive) {
+      return chars(CaseFolding.literal(c), false);
+    }
+    return Automata.makeChar(c);
+  }
+
+  // a class like [a-z_] or [^,.], without nested classes and intersections:
+  private Automaton charClass() {
+    final boolean negated = peek() == '^';
+    if (negated) {
+      pos++;
+    }
+    final CharSet chars = new CharSet();
+    boolean first = true;
+    while (true) {
+      int c = next();
+      if (c == ']' && !first) {
+        break;
+      }
+      if (c == '[' || c == ']' || (c == '&' && peek() == '&') || (c == '-' && !first && peek() != ']')) {
+        throw new UnsupportedRegexException();
+      }
+      first = false;
+      if (c == '\\') {
+        final CharSet predefined = predefinedClass(peek());
+        if (predefined != null) {
+          pos++;
+          if (isRange()) {
+            throw new UnsupportedRegexException();
+          }
+          chars.addAll(predefined);
+          continue;
+        }
+        c = escaped();
+      }
+      if (isRange()) {
+        pos++;
+        int to = next();
+        if (to == '[' || to == '&') {
+          throw new UnsupportedRegexException();
+        }
+        if (to == '\\') {
+          to = escaped();
+        }
+        if (to < c) {
+          throw new UnsupportedRegexException();
+        }
+        chars.add(c, to);
+        if (caseInsensitive) {
+          chars.addAll(CaseFolding.rangeCaseVariants(c, to));
+        }
+      } else if (caseInsensitive) {
+        chars.addAll(CaseFolding.classMember(c));
+      } else {
+        chars.add(c);
+      }
+    }
+    return chars(chars, negated);
+  }
+
+  private boolean isRange() {
+    return peek() == '-' && pos + 1 < regex.length() && regex.charAt(pos + 1) != ']';
+  }
+
+  // \d and \s, which are not affected by (?iu):
+  @Nullable
+  private static CharSet predefinedClass(int c) {
+    if (c == 'd') {
+      return new CharSet().add('0', '9');
+    } else if (c == 's') {
+      return new CharSet().add(' ').add('\t', '\r');
+    }
+    return null;
+  }
+
+  // the character after a backslash - only escaped punctuation is a literal:
+  private int escaped() {
+    final int c = next();
+    if (Character.isLetterOrDigit(c) || c > 127) {
+      throw new UnsupportedRegexException();
+    }
+    return c;
+  }
+
+  private int next() {
+    if (pos >= regex.length()) {
+      throw new UnsupportedRegexException();
+    }
+    final int c = regex.codePointAt(pos);
+    if (Character.isSurrogate((char) c)) {
+      throw new UnsupportedRegexException();
+    }
+    pos += Character.charCount(c);
+    return c;
+  }
+
+  private int peek() {
+    return pos < regex.length() ? regex.codePointAt(pos) : -1;
+  }
+
+  private static Automaton chars(CharSet chars, boolean negated) {
+    final Automaton automaton = new Automaton();
+    final int start = automaton.createState();
+    final int end = automaton.createState();
+    automaton.setAccept(end, true);
+    final List<int[]> ranges = chars.getRanges();
+    if (negated) {
+      int from = 0;
+      for (int[] range : ranges) {
+        if (range[0] > from) {
+          automaton.addTransition(start, end, from, range[0] - 1);
+        }
+        from = range[1] + 1;
+      }
+      if (from <= Character.MAX_CODE_POINT) {
+        automaton.addTransition(start, end, from, Character.MAX_CODE_POINT);
+      }
+    } else {
+      for (int[] range : ranges) {
+        automaton.addTransition(start, end, range[0], range[1]);
+      }
+    }
+    automaton.finishState();
+    return automaton;
+  }
+
+  private static class UnsupportedRegexException extends RuntimeException {
+    private UnsupportedRegexException() {
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * A set of characters, as ranges.
+   */
+  private static final class CharSet {
+
+    private final List<int[]> ranges = new ArrayList<>();
+
+    CharSet add(int c) {
+      return add(c, c);
+    }
+
+    CharSet add(int from, int to) {
+      ranges.add(new int[] {from, to});
+      return this;
+    }
+
+    CharSet addAll(CharSet chars) {
+      ranges.addAll(chars.ranges);
+      return this;
+    }
+
+    // sorted and merged:
+    List<int[]> getRanges() {
+      final List<int[]> sorted = new ArrayList<>(ranges);
+      Collections.sort(sorted, new Comparator<int[]>() {
+        @Override
+        public int compare(int[] r1, int[] r2) {
+          return Integer.compare(r1[0], r2[0]);
+        }
+      });
+      final List<int[]> result = new ArrayList<>();
+      for (int[] range : sorted) {
+        final int[] last = result.isEmpty() ? null : result.get(result.size() - 1);
+        if (last != null && range[0] <= last[1] + 1) {
+          last[1] = Math.max(last[1], range[1]);
+        } else {
+          result.add(new int[] {range[0], range[1]});
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The characters that match a character with {@code CASE_INSENSITIVE} and
+   * {@code UNICODE_CASE}, as implemented by {@link java.util.regex.Pattern}.
+   */
+  private static final class CaseFolding {
+
+    // code points c with Character.toLowerCase(Character.toUpperCase(c)) != c, by that value:
+    private static final Map<Integer, List<Integer>> FOLDED = new HashMap<>();
+    // code points c with Character.toUpperCase(c) != c or the folded value != c:
+    private static final List<Integer> CASED = new ArrayList<>();
+
+    static {
+      for (int c = 0; c <= Character.MAX_CODE_POINT; c++) {
+        final int upper = Character.toUpperCase(c);
+        final int folded = Character.toLowerCase(upper);
+        if (folded != c) {
+          List<Integer> chars = FOLDED.get(folded);
+          if (chars == null) {
+            chars = new ArrayList<>(2);
+            FOLDED.put(folded, chars);
+          }
+          chars.add(c);
+        }
+        if (upper != c || folded != c) {
+          CASED.add(c);
+        }
+      }
+    }
+
+    private CaseFolding() {
+    }
+
+    // a literal is matched as a single character or as part of a sequence of literals,
+    // which differs for a few characters like U+00DF - those are not supported:
+    static CharSet literal(int c) {
+      if (Character.isSupplementaryCodePoint(c)) {
+        throw new UnsupportedRegexException();
+      }
+      final Set<Integer> single = single(c);
+      final Set<Integer> inSequence = equivalent(Character.toLowerCase(Character.toUpperCase(c)));
+      if (!single.equals(inSequence)) {
+        throw new UnsupportedRegexException();
+      }
+      return toCharSet(single);
+    }
+
+    // see Pattern.bitsOrSingle() and Pattern.BitClass.add():
+    static CharSet classMember(int c) {
+      if (Character.isSupplementaryCodePoint(c)) {
+        throw new UnsupportedRegexException();
+      }
+      if (c < 256 && !(c == 0xff || c == 0xb5 || c == 0x49 || c == 0x69 || c == 0x53 || c == 0x73
+                     || c == 0x4b || c == 0x6b || c == 0xc5 || c == 0xe5)) {
+        return new CharSet().add(c).add(Character.toLowerCase(c)).add(Character.toUpperCase(c));
+      }
+      return toCharSet(single(c));
+    }
+
+    // the characters outside the range that match it, see Pattern.rangeFor():
+    static CharSet rangeCaseVariants(int from, int to) {
+      if (Character.isSupplementaryCodePoint(to)) {
+        throw new UnsupportedRegexException();
+      }
+      final CharSet chars = new CharSet();
+      for (int c : CASED) {
+        final int upper = Character.toUpperCase(c);
+        final int folded = Character.toLowerCase(upper);
+        if (upper >= from && upper <= to || folded >= from && folded <= to) {
+          chars.add(c);
+        }
+      }
+      return chars;
+    }
+
+    // see Pattern.newSingle() and Pattern.SingleU:
+    private static Set<Integer> single(int c) {
+      final int upper = Character.toUpperCase(c);
+      final int lower = Character.toLowerCase(upper);
+      if (upper != lower) {
+        return equivalent(lower);
+      }
+      return Collections.singleton(c);
+    }
+
+    // the characters c with c == folded or fold(c) == folded:
+    private static Set<Integer> equivalent(int folded) {
+      final Set<Integer> chars = new HashSet<>();
+      chars.add(folded);
+      final List<Integer> others = FOLDED.get(folded);
+      if (others != null) {
+        chars.addAll(others);
+      }
+      return chars;
+    }
+
+    private static CharSet toCharSet(Set<Integer> chars) {
+      final CharSet result = new CharSet();
+      for (int c : chars) {
+        result.add(c);
+      }
+      return result;
+    }
+  }
+
+}
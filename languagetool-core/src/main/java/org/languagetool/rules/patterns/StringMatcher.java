@@ -0,0 +1,181 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.TooComplexToDeterminizeException;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Matches whole strings against a regular expression, like {@link java.util.regex.Matcher#matches()}.
+ * Expressions that only use the regular subset of the syntax (no backreferences, lookaround etc.)
+ * are compiled to a DFA, which matches in linear time without backtracking. This is faster for
+ * the alternations common in rules, like {@code NN.*|JJ.*}. All other expressions
+ * are matched with {@code java.util.regex}.
+ *
+ * <p><b>Thread-safety:</b> this class is immutable and thread-safe.</p>
+ * @since 3.1
+ */
+public abstract class StringMatcher {
+
+  // the size of the DFA's transition table, larger ones aren't worth the memory:
+  private static final int MAX_TRANSITIONS = 16 * 1024;
+  private static final int MAX_STATES = 1000;
+
+  /**
+   * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+   */
+  public static StringMatcher create(String regex) {
+    final Pattern pattern = Pattern.compile(regex);
+    final Automaton nfa = RegexToAutomaton.toAutomaton(regex);
+    if (nfa != null) {
+      try {
+        final CharacterRunAutomaton automaton = new CharacterRunAutomaton(nfa, MAX_STATES);
+        if ((long) automaton.getSize() * automaton.getCharIntervals().length <= MAX_TRANSITIONS) {
+          return new AutomatonMatcher(pattern, automaton);
+        }
+      } catch (TooComplexToDeterminizeException ignored) {
+        // use java.util.regex
+      }
+    }
+    return new RegexMatcher(pattern);
+  }
+
+  private final Pattern pattern;
+
+  private StringMatcher(Pattern pattern) {
+    this.pattern = pattern;
+  }
+
+  /**
+   * Whether the whole string matches the expression.
+   */
+  public abstract boolean matches(String s);
+
+  /**
+   * Whether the expression has been compiled to a DFA.
+   */
+  public abstract boolean isAutomaton();
+
+  public final Pattern getPattern() {
+    return pattern;
+  }
+
+  @Override
+  public String toString() {
+    return pattern.pattern();
+  }
+
+  private static final class RegexMatcher extends StringMatcher {
+    private RegexMatcher(Pattern pattern) {
+      super(pattern);
+    }
+    @Override
+    public boolean matches(String s) {
+      return getPattern().matcher(s).matches();
+    }
+    @Override
+    public boolean isAutomaton() {
+      return false;
+    }
+  }
+
+  /**
+   * Runs the DFA with a transition table. Unlike Lucene's {@link CharacterRunAutomaton}, which
+   * uses a binary search to find the character class, the classes of the common characters
+   * (up to the Cyrillic block) are looked up in a table.
+   */
+  private static final class AutomatonMatcher extends StringMatcher {
+
+    private static final int CLASS_TABLE_LIMIT = 0x500;
+    private static final char DEAD_STATE = Character.MAX_VALUE;
+
+    private final int[] points;
+    private final byte[] classes;
+    private final char[] transitions;
+    private final boolean[] accept;
+    private final int initialState;
+
+    private AutomatonMatcher(Pattern pattern, CharacterRunAutomaton automaton) {
+      super(pattern);
+      points = automaton.getCharIntervals();
+      final int size = automaton.getSize();
+      transitions = new char[size * points.length];
+      accept = new boolean[size];
+      for (int state = 0; state < size; state++) {
+        for (int i = 0; i < points.length; i++) {
+          final int target = automaton.step(state, points[i]);
+          transitions[state * points.length + i] = target == -1 ? DEAD_STATE : (char) target;
+        }
+        accept[state] = automaton.isAccept(state);
+      }
+      initialState = automaton.getInitialState();
+      // the characters after the last interval start in the table are found with a binary search:
+      int tableSize = 0;
+      for (int point : points) {
+        if (point < CLASS_TABLE_LIMIT) {
+          tableSize = point + 1;
+        }
+      }
+      if (points.length <= 256) {
+        classes = new byte[tableSize];
+        for (int c = 0; c < tableSize; c++) {
+          classes[c] = (byte) findClass(c);
+        }
+      } else {
+        classes = new byte[0];
+      }
+    }
+
+    @Override
+    public boolean matches(String s) {
+      int state = initialState;
+      final int length = s.length();
+      for (int i = 0; i < length; i++) {
+        int c = s.charAt(i);
+        if (Character.isHighSurrogate((char) c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+          c = Character.toCodePoint((char) c, s.charAt(i + 1));
+          i++;
+        }
+        final int charClass = c < classes.length ? classes[c] & 0xff : findClass(c);
+        final char next = transitions[state * points.length + charClass];
+        if (next == DEAD_STATE) {
+          return false;
+        }
+        state = next;
+      }
+      return accept[state];
+    }
+
+    // the index of the interval that contains the character:
+    private int findClass(int c) {
+      final int i = Arrays.binarySearch(points, c);
+      return i >= 0 ? i : -i - 2;
+    }
+
+    @Override
+    public boolean isAutomaton() {
+      return true;
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.languagetool.AnalyzedToken;
+
+import java.util.regex.Pattern;
+
+/**
+ * A regular expression interned by {@link TokenPredicates}, matched against one part of
+ * a token. The result is cached in the token.
+ * @since 3.1
+ */
+final class TokenPredicate {
+
+  enum Target { TOKEN, TOKEN_INFLECTED, POS_TAG }
+
+  private final int id;
+  private final Target target;
+  private final StringMatcher matcher;
+
+  TokenPredicate(int id, Target target, StringMatcher matcher) {
+    this.id = id;
+    this.target = target;
+    this.matcher = matcher;
+  }
+
+  Pattern getPattern() {
+    return matcher.getPattern();
+  }
+
+  StringMatcher getMatcher() {
+    return matcher;
+  }
+
+  /**
+   * Whether the whole target string of the token matches the expression. For {@link Target#POS_TAG},
+   * the token must have a POS tag.
+   */
+  boolean matches(AnalyzedToken token) {
+    final int cached = token.getCachedMatch(id);
+    if (cached != -1) {
+      return cached == 1;
+    }
+    final String s;
+    switch (target) {
+      case TOKEN: s = token.getToken(); break;
+      case TOKEN_INFLECTED: s = token.getTokenInflected(); break;
+      default: s = token.getPOSTag(); break;
+    }
+    final boolean matches = matcher.matches(s);
+    token.setCachedMatch(id, matches);
+    return matches;
+  }
+
+  @Override
+  public String toString() {
+    return id + ":" + target + ":" + matcher;
+  }
+
+}
@@ -0,0 +1,91 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.languagetool.AnalyzedToken;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The regular expressions of a language's pattern tokens (in rules and disambiguation rules),
+ * interned so that all pattern tokens with the same expression share one compiled {@link StringMatcher}
+ * and one id. The id is used to remember the result of matching an {@link AnalyzedToken}
+ * against the expression in the token, so each expression is evaluated at most once per token,
+ * no matter how many pattern tokens use it. Used internally for performance optimization.
+ *
+ * <p><b>Thread-safety:</b> this class is thread-safe.</p>
+ * @since 3.1
+ */
+public final class TokenPredicates {
+
+  // ids are unique across languages, as a token may be matched by rules of several languages:
+  private static final AtomicInteger nextId = new AtomicInteger();
+
+  private final ConcurrentMap<String, TokenPredicate> predicates = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, PatternToken.PosToken> posTokens = new ConcurrentHashMap<>();
+
+  /**
+   * @param regex the regular expression, including flags like {@code (?iu)}
+   */
+  TokenPredicate getPredicate(TokenPredicate.Target target, String regex) {
+    final String key = target.name() + ':' + regex;
+    TokenPredicate predicate = predicates.get(key);
+    if (predicate == null) {
+      final TokenPredicate newPredicate = new TokenPredicate(nextId.getAndIncrement(), target, StringMatcher.create(regex));
+      predicate = predicates.putIfAbsent(key, newPredicate);
+      if (predicate == null) {
+        predicate = newPredicate;
+      }
+    }
+    return predicate;
+  }
+
+  /**
+   * Get a POS token with the regular expression, sharing the compiled expression
+   * with the predicate for the POS tag.
+   */
+  PatternToken.PosToken getPosToken(String posTagRegex, boolean negation) {
+    final String key = (negation ? "!" : "-") + posTagRegex;
+    PatternToken.PosToken posToken = posTokens.get(key);
+    if (posToken == null) {
+      final TokenPredicate predicate = getPredicate(TokenPredicate.Target.POS_TAG, posTagRegex);
+      final PatternToken.PosToken newPosToken = new PatternToken.PosToken(posTagRegex, negation, predicate);
+      posToken = posTokens.putIfAbsent(key, newPosToken);
+      if (posToken == null) {
+        posToken = newPosToken;
+      }
+    }
+    return posToken;
+  }
+
+  /**
+   * The number of different regular expressions.
+   */
+  public int size() {
+    return predicates.size();
+  }
+
+  @Override
+  public String toString() {
+    return predicates.size() + " predicates, " + posTokens.size() + " POS tokens";
+  }
+
+}
@@ -20,7 +20,6 @@
 package org.languagetool.rules.patterns;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedToken;
@@ -65,12 +64,6 @@ public class Unifier {
   private int tokCnt;
   private int readingsCounter;
 
-  // Marks found interpretations in subsequent tokens:
-  private List<Boolean> featuresFound;
-
-  // For checking the current token:
-  private List<Boolean> tmpFeaturesFound;
-
   // Maps that store equivalences to be removed or kept after every next token has been analyzed:
   private final Map<String, Set<String>> equivalencesToBeKept;
 
@@ -90,9 +83,7 @@ public class Unifier {
     equivalencesMatched = new ArrayList<>();
     this.equivalenceTypes = equivalenceTypes;
     this.equivalenceFeatures = equivalenceFeatures;
-    equivalencesToBeKept = new ConcurrentHashMap<>();
-    featuresFound = new ArrayList<>();
-    tmpFeaturesFound = new ArrayList<>();
+    equivalencesToBeKept = new HashMap<>();
     tokSequence = new ArrayList<>();
     tokSequenceEquivalences = new ArrayList<>();
   }
@@ -120,7 +111,7 @@ public class Unifier {
       unified = checkNext(aToken, uFeatures);
     } else {
       while (equivalencesMatched.size() <= tokCnt) {
-        equivalencesMatched.add(new ConcurrentHashMap<String, Set<String>>());
+        equivalencesMatched.add(new HashMap<String, Set<String>>());
       }
       for (final Map.Entry<String, List<String>> feat : uFeatures.entrySet()) {
         List<String> types = feat.getValue();
@@ -168,8 +159,8 @@ public class Unifier {
   private boolean checkNext(final AnalyzedToken aToken,
                             final Map<String, List<String>> uFeatures) {
     boolean anyFeatUnified = false;
-    final List<Boolean> tokenFeaturesFound = new ArrayList<>(tmpFeaturesFound);
-    final Map<String, Set<String>> equivalencesMatchedHere = new ConcurrentHashMap<>();
+    // only created if a feature matches, as most readings don't match:
+    Map<String, Set<String>> equivalencesMatchedHere = null;
     if (allFeatsIn) {
       for (int i = 0; i < tokCnt; i++) {
         boolean allFeatsUnified = true;
@@ -194,6 +185,9 @@ public class Unifier {
                 } else {
                   equivalencesToBeKept.get(feat.getKey()).add(typeName);
                 }
+                if (equivalencesMatchedHere == null) {
+                  equivalencesMatchedHere = new HashMap<>();
+                }
                 if (!equivalencesMatchedHere.containsKey(feat.getKey())) { // just for this reading
                   final Set<String> typeSet = new HashSet<>();
                   typeSet.add(typeName);
@@ -206,10 +200,12 @@ public class Unifier {
           }
           allFeatsUnified &= featUnified;
         }
-        tokenFeaturesFound.set(i, tokenFeaturesFound.get(i) || allFeatsUnified);
         anyFeatUnified = anyFeatUnified || allFeatsUnified;
       }
       if (anyFeatUnified) {
+        if (equivalencesMatchedHere == null) {  // no features to unify
+          equivalencesMatchedHere = new HashMap<>();
+        }
         if (tokSequence.size() == readingsCounter) {
           tokSequence.add(new AnalyzedTokenReadings(aToken, 0));
           List<Map<String, Set<String>>> equivList = new ArrayList<>();
@@ -223,7 +219,6 @@ public class Unifier {
             anyFeatUnified = false;
           }
         }
-        tmpFeaturesFound = tokenFeaturesFound;
       }
     }
     return anyFeatUnified;
@@ -233,7 +228,6 @@ public class Unifier {
    * Call after every complete token (AnalyzedTokenReadings) checked.
    */
   public final void startNextToken() {
-    featuresFound = new ArrayList<>(tmpFeaturesFound);
     readingsCounter++;
     // Removes features
     for (int j = 0; j < tokSequence.size(); j++) {
@@ -261,10 +255,6 @@ public class Unifier {
    */
   public final void startUnify() {
     allFeatsIn = true;
-    for (int i = 0; i < tokCnt; i++) {
-      featuresFound.add(false);
-    }
-    tmpFeaturesFound = new ArrayList<>(featuresFound);
   }
 
   /**
@@ -319,8 +309,6 @@ public class Unifier {
     equivalencesMatched.clear();
     allFeatsIn = false;
     tokCnt = 0;
-    featuresFound.clear();
-    tmpFeaturesFound.clear();
     tokSequence.clear();
     tokSequenceEquivalences.clear();
     readingsCounter = 1;
@@ -442,7 +430,7 @@ public class Unifier {
   public final void addNeutralElement(final AnalyzedTokenReadings analyzedTokenReadings) {
     tokSequence.add(analyzedTokenReadings);
     List<Map<String, Set<String>>> tokEquivs = new ArrayList<>(analyzedTokenReadings.getReadingsLength());
-    Map<String, Set<String>> dummy = new ConcurrentHashMap<>();
+    Map<String, Set<String>> dummy = new HashMap<>();
     Set<String> dummySet = new HashSet<>();
     dummy.put(UNIFY_IGNORE, dummySet);
     for (int i = 0; i < analyzedTokenReadings.getReadingsLength(); i++) {
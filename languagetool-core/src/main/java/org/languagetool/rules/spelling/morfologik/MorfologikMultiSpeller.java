@@ -18,6 +18,8 @@
  */
 package org.languagetool.rules.spelling.morfologik;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import morfologik.fsa.CFSA2Serializer;
 import morfologik.fsa.FSA;
 import morfologik.fsa.FSABuilder;
@@ -37,6 +39,9 @@ import java.util.List;
  */
 public class MorfologikMultiSpeller {
 
+  // the dictionaries built from plain text files, by path, shared as long as they are in use:
+  private static final Cache<String, Dictionary> plainTextDicts = CacheBuilder.newBuilder().weakValues().build();
+
   private final List<MorfologikSpeller> spellers = new ArrayList<>();
   private final boolean convertsCase;
 
@@ -46,12 +51,7 @@ public class MorfologikMultiSpeller {
    * @param maxEditDistance maximum edit distance for accepting suggestions
    */
   public MorfologikMultiSpeller(String binaryDictPath, String plainTextPath, int maxEditDistance) throws IOException {
-    this(binaryDictPath,
-         new BufferedReader(new InputStreamReader(JLanguageTool.getDataBroker().getFromResourceDirAsStream(plainTextPath), "utf-8")),
-         maxEditDistance);
-    if (!plainTextPath.endsWith(".txt")) {
-      throw new RuntimeException("Unsupported dictionary, plain text file needs to have suffix .txt: " + plainTextPath);
-    }
+    this(binaryDictPath, getPlainTextDictOrNull(binaryDictPath, plainTextPath), maxEditDistance);
   }
 
   /**
@@ -61,13 +61,15 @@ public class MorfologikMultiSpeller {
    * @since 3.0
    */
   public MorfologikMultiSpeller(String binaryDictPath, BufferedReader plainTextReader, int maxEditDistance) throws IOException {
+    this(binaryDictPath, getPlainTextDictOrNull(plainTextReader, getInfoFile(binaryDictPath)), maxEditDistance);
+  }
+
+  private MorfologikMultiSpeller(String binaryDictPath, @Nullable Dictionary plainTextDict, int maxEditDistance) throws IOException {
     MorfologikSpeller speller = getBinaryDict(binaryDictPath, maxEditDistance);
     spellers.add(speller);
     convertsCase = speller.convertsCase();
-    String infoFile = binaryDictPath.replace(".dict", ".info");
-    MorfologikSpeller plainTextDict = getPlainTextDictOrNull(plainTextReader, infoFile, maxEditDistance);
     if (plainTextDict != null) {
-      spellers.add(plainTextDict);
+      spellers.add(new MorfologikSpeller(plainTextDict, maxEditDistance));
     }
   }
 
@@ -79,17 +81,40 @@ public class MorfologikMultiSpeller {
     }
   }
 
+  private static String getInfoFile(String binaryDictPath) {
+    return binaryDictPath.replace(".dict", ".info");
+  }
+
+  @Nullable
+  private static Dictionary getPlainTextDictOrNull(String binaryDictPath, String plainTextPath) throws IOException {
+    if (!plainTextPath.endsWith(".txt")) {
+      throw new RuntimeException("Unsupported dictionary, plain text file needs to have suffix .txt: " + plainTextPath);
+    }
+    String infoFile = getInfoFile(binaryDictPath);
+    String key = plainTextPath + "|" + infoFile;
+    Dictionary dictionary = plainTextDicts.getIfPresent(key);
+    if (dictionary == null) {
+      InputStream stream = JLanguageTool.getDataBroker().getFromResourceDirAsStream(plainTextPath);
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "utf-8"))) {
+        dictionary = getPlainTextDictOrNull(reader, infoFile);
+      }
+      if (dictionary != null) {
+        plainTextDicts.put(key, dictionary);
+      }
+    }
+    return dictionary;
+  }
+
   @Nullable
-  private MorfologikSpeller getPlainTextDictOrNull(BufferedReader plainTextReader, String infoFile, int maxEditDistance) throws IOException {
+  private static Dictionary getPlainTextDictOrNull(BufferedReader plainTextReader, String infoFile) throws IOException {
     List<byte[]> lines = getLines(plainTextReader);
     if (lines.size() == 0) {
       return null;
     }
-    Dictionary dictionary = getDictionary(lines, infoFile);
-    return new MorfologikSpeller(dictionary, maxEditDistance);
+    return getDictionary(lines, infoFile);
   }
 
-  private List<byte[]> getLines(BufferedReader br) throws IOException {
+  private static List<byte[]> getLines(BufferedReader br) throws IOException {
     List<byte[]> lines = new ArrayList<>();
     String line;
     while ((line = br.readLine()) != null) {
@@ -100,7 +125,7 @@ public class MorfologikMultiSpeller {
     return lines;
   }
 
-  private Dictionary getDictionary(List<byte[]> lines, String infoFile) throws IOException {
+  private static Dictionary getDictionary(List<byte[]> lines, String infoFile) throws IOException {
     Collections.sort(lines, FSABuilder.LEXICAL_ORDERING);
     FSA fsa = FSABuilder.build(lines);
     ByteArrayOutputStream fsaOutStream = new CFSA2Serializer().serialize(fsa, new ByteArrayOutputStream());
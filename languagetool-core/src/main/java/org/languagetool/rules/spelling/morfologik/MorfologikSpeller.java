@@ -21,6 +21,7 @@ package org.languagetool.rules.spelling.morfologik;
 import morfologik.speller.Speller;
 import morfologik.stemming.Dictionary;
 import org.languagetool.JLanguageTool;
+import org.languagetool.databroker.DefaultResourceDataBroker;
 import org.languagetool.rules.spelling.SpellingCheckRule;
 import org.languagetool.tools.StringTools;
 
@@ -42,7 +43,7 @@ public class MorfologikSpeller {
    * @param fileInClassPath path in classpath to morfologik dictionary
    */
   public MorfologikSpeller(String fileInClassPath, int maxEditDistance) throws IOException {
-    this(Dictionary.read(JLanguageTool.getDataBroker().getFromResourceDirAsUrl(fileInClassPath)), maxEditDistance);
+    this(DefaultResourceDataBroker.getDictionary(JLanguageTool.getDataBroker(), fileInClassPath), maxEditDistance);
   }
 
   /**
@@ -20,12 +20,15 @@ package org.languagetool.synthesis;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.regex.Pattern;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import morfologik.stemming.Dictionary;
 import morfologik.stemming.DictionaryLookup;
 import morfologik.stemming.IStemmer;
@@ -33,14 +36,29 @@ import morfologik.stemming.WordData;
 
 import org.languagetool.AnalyzedToken;
 import org.languagetool.JLanguageTool;
+import org.languagetool.databroker.DefaultResourceDataBroker;
+import org.languagetool.tools.PatternCache;
 
+/**
+ * Synthesizer using a Morfologik binary dictionary. It can be used by several threads
+ * at the same time without locking, as every call uses a stemmer that no other call
+ * uses at the same time.
+ */
 public class BaseSynthesizer implements Synthesizer {
 
+  private static final int FORMS_CACHE_SIZE = 10_000;
+  private static final int MATCHING_TAGS_CACHE_SIZE = 1000;
+
   protected volatile List<String> possibleTags;
 
   private final String tagFileName;
   private final String resourceFileName;
-  private final IStemmer stemmer;
+  // the stemmers are not thread-safe, so a call borrows one - there are only as many stemmers as parallel calls:
+  private final Queue<IStemmer> stemmers = new ConcurrentLinkedQueue<>();
+  // "lemma|tag" -> inflected forms:
+  private final Cache<String, List<String>> forms = CacheBuilder.newBuilder().maximumSize(FORMS_CACHE_SIZE).build();
+  // POS tag regular expression -> the possible tags it matches:
+  private final Cache<String, List<String>> matchingTags = CacheBuilder.newBuilder().maximumSize(MATCHING_TAGS_CACHE_SIZE).build();
 
   private volatile Dictionary dictionary;
 
@@ -51,7 +69,7 @@ public class BaseSynthesizer implements Synthesizer {
   public BaseSynthesizer(final String resourceFileName, final String tagFileName) {
     this.resourceFileName = resourceFileName;
     this.tagFileName = tagFileName;
-    this.stemmer = createStemmer();
+    stemmers.offer(createStemmer());  // fail early if the dictionary cannot be loaded
   }
 
   /**
@@ -65,8 +83,7 @@ public class BaseSynthesizer implements Synthesizer {
       synchronized (this) {
         dict = this.dictionary;
         if (dict == null) {
-          final URL url = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(resourceFileName);
-          this.dictionary = dict = Dictionary.read(url);
+          this.dictionary = dict = DefaultResourceDataBroker.getDictionary(JLanguageTool.getDataBroker(), resourceFileName);
         }
       }
     }
@@ -75,7 +92,8 @@ public class BaseSynthesizer implements Synthesizer {
 
   /**
    * Creates a new {@link IStemmer} based on the configured {@link #getDictionary() dictionary}.
-   * The result must not be shared among threads.
+   * The result must not be shared among threads. This is called once for each of
+   * the stemmers that are needed by parallel calls.
    * @since 2.3
    */
   protected IStemmer createStemmer() {
@@ -93,12 +111,25 @@ public class BaseSynthesizer implements Synthesizer {
    * @param results the list to collect the inflected forms.
    */
   protected void lookup(String lemma, String posTag, List<String> results) {
-    synchronized (this) { // the stemmer is not thread-safe
-      final List<WordData> wordForms = stemmer.lookup(lemma + "|" + posTag);
-      for (WordData wd : wordForms) {
-        results.add(wd.getStem().toString());
+    final String key = lemma + "|" + posTag;
+    List<String> cachedForms = forms.getIfPresent(key);
+    if (cachedForms == null) {
+      IStemmer stemmer = stemmers.poll();
+      if (stemmer == null) {
+        stemmer = createStemmer();
+      }
+      final List<String> result = new ArrayList<>();
+      try {
+        for (WordData wd : stemmer.lookup(key)) {
+          result.add(wd.getStem().toString());
+        }
+      } finally {
+        stemmers.offer(stemmer);
       }
+      cachedForms = Collections.unmodifiableList(result);
+      forms.put(key, cachedForms);
     }
+    results.addAll(cachedForms);
   }
 
   /**
@@ -119,15 +150,9 @@ public class BaseSynthesizer implements Synthesizer {
   public String[] synthesize(final AnalyzedToken token, final String posTag,
       final boolean posTagRegExp) throws IOException {
     if (posTagRegExp) {
-      initPossibleTags();
-      final Pattern p = Pattern.compile(posTag);
       final List<String> results = new ArrayList<>();
-
-      for (final String tag : possibleTags) {
-        final Matcher m = p.matcher(tag);
-        if (m.matches()) {
-          lookup(token.getLemma(), tag, results);
-        }
+      for (final String tag : getMatchingTags(posTag)) {
+        lookup(token.getLemma(), tag, results);
       }
       return results.toArray(new String[results.size()]);
     }
@@ -139,26 +164,61 @@ public class BaseSynthesizer implements Synthesizer {
     return posTag;
   }
 
+  /**
+   * The possible tags (see {@link #initPossibleTags()}) that match the given regular expression.
+   * @param posTagRegExp a regular expression that needs to match the whole tag
+   * @since 3.1
+   */
+  protected List<String> getMatchingTags(final String posTagRegExp) throws IOException {
+    initPossibleTags();
+    List<String> tags = matchingTags.getIfPresent(posTagRegExp);
+    if (tags == null) {
+      final Pattern p = PatternCache.getDefault().compile(posTagRegExp);
+      final List<String> result = new ArrayList<>();
+      for (final String tag : possibleTags) {
+        if (p.matcher(tag).matches()) {
+          result.add(tag);
+        }
+      }
+      tags = Collections.unmodifiableList(result);
+      matchingTags.put(posTagRegExp, tags);
+    }
+    return tags;
+  }
+
   /**
    * @since 2.5
-   * @return the stemmer interface to be used.
+   * @return a new stemmer for the caller's own use. It must not be passed to other threads.
    */
   public IStemmer getStemmer() {
-    return stemmer;
+    return createStemmer();
   }
 
+  /**
+   * Sets {@link #possibleTags} to the result of {@link #loadPossibleTags()} if that hasn't happened yet.
+   */
   protected void initPossibleTags() throws IOException {
     List<String> tags = possibleTags;
     if (tags == null) {
       synchronized (this) {
         tags = possibleTags;
         if (tags == null) {
-          try (InputStream stream = JLanguageTool.getDataBroker().getFromResourceDirAsStream(tagFileName)) {
-            possibleTags = SynthesizerTools.loadWords(stream);
-          }
+          // other threads may use the list as soon as it's set, so it must not be changed afterwards:
+          possibleTags = loadPossibleTags();
         }
       }
     }
   }
 
+  /**
+   * Loads all possible tags, by default from the tag file given in the constructor.
+   * Subclasses can override this to add tags.
+   * @since 3.1
+   */
+  protected List<String> loadPossibleTags() throws IOException {
+    try (InputStream stream = JLanguageTool.getDataBroker().getFromResourceDirAsStream(tagFileName)) {
+      return SynthesizerTools.loadWords(stream);
+    }
+  }
+
 }
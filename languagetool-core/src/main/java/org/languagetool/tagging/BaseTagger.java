@@ -20,11 +20,14 @@ package org.languagetool.tagging;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import morfologik.stemming.Dictionary;
 
 import morfologik.stemming.WordData;
@@ -32,21 +35,32 @@ import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedToken;
 import org.languagetool.AnalyzedTokenReadings;
 import org.languagetool.JLanguageTool;
+import org.languagetool.databroker.DefaultResourceDataBroker;
 import org.languagetool.tools.StringTools;
 
 /**
  * Base tagger using Morfologik binary dictionaries.
+ * The analyses of the most recently tagged words are cached, see {@link #setWordCacheSize(int)}.
  *
  * @author Marcin Milkowski
  */
 public abstract class BaseTagger implements Tagger {
 
+  /** @since 3.1 */
+  public static final int DEFAULT_WORD_CACHE_SIZE = 10_000;
+
   protected final WordTagger wordTagger;
   protected final Locale conversionLocale;
 
   private final boolean tagLowercaseWithUppercase;
   private final String dictionaryPath;
   private final Dictionary dictionary;
+  private final AtomicLong wordCacheHits = new AtomicLong();
+  private final AtomicLong wordCacheMisses = new AtomicLong();
+
+  // the cached tokens are never handed out, callers get copies (AnalyzedToken is not immutable):
+  @Nullable
+  private volatile Cache<String, List<AnalyzedToken>> wordCache = createWordCache(DEFAULT_WORD_CACHE_SIZE);
 
   /**
    * Get the filename for manual additions, e.g., {@code /en/added.txt}, or {@code null}.
@@ -70,13 +84,12 @@ public abstract class BaseTagger implements Tagger {
     this.dictionaryPath = filename;
     this.conversionLocale = locale;
     this.tagLowercaseWithUppercase = tagLowercaseWithUppercase;
-    this.wordTagger = initWordTagger(filename);
     try {
-      URL url = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(filename);
-      this.dictionary = Dictionary.read(url);
+      this.dictionary = DefaultResourceDataBroker.getDictionary(JLanguageTool.getDataBroker(), filename);
     } catch (IOException e) {
       throw new RuntimeException("Could not load dictionary from " + filename, e);
     }
+    this.wordTagger = initWordTagger();
   }
 
   /**
@@ -95,12 +108,45 @@ public abstract class BaseTagger implements Tagger {
     return false;
   }
 
+  /**
+   * Set the maximum number of words whose analysis is cached, or {@code 0} to disable the cache.
+   * As the tagger is shared by all {@link JLanguageTool} objects of a language, so is the cache.
+   * Calling this method clears the cache.
+   * @since 3.1
+   */
+  public void setWordCacheSize(int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0: " + maxSize);
+    }
+    wordCache = maxSize == 0 ? null : createWordCache(maxSize);
+  }
+
+  /**
+   * The number of words whose analysis was found in the cache.
+   * @since 3.1
+   */
+  public long getWordCacheHitCount() {
+    return wordCacheHits.get();
+  }
+
+  /**
+   * The number of words that had to be analyzed because they were not in the cache.
+   * @since 3.1
+   */
+  public long getWordCacheMissCount() {
+    return wordCacheMisses.get();
+  }
+
+  private static Cache<String, List<AnalyzedToken>> createWordCache(int maxSize) {
+    return CacheBuilder.newBuilder().maximumSize(maxSize).build();
+  }
+
   protected WordTagger getWordTagger() {
     return wordTagger;
   }
 
-  private WordTagger initWordTagger(String filename) {
-    MorfologikTagger morfologikTagger = new MorfologikTagger(filename);
+  private WordTagger initWordTagger() {
+    MorfologikTagger morfologikTagger = new MorfologikTagger(dictionary);
     try {
       String manualFileName = getManualAdditionsFileName();
       if (manualFileName != null) {
@@ -126,7 +172,7 @@ public abstract class BaseTagger implements Tagger {
     final List<AnalyzedTokenReadings> tokenReadings = new ArrayList<>();
     int pos = 0;
     for (String word : sentenceTokens) {
-      final List<AnalyzedToken> l = getAnalyzedTokens(word);
+      final List<AnalyzedToken> l = getCachedAnalyzedTokens(word);
       tokenReadings.add(new AnalyzedTokenReadings(l, pos));
       pos += word.length();
     }
@@ -135,11 +181,38 @@ public abstract class BaseTagger implements Tagger {
 
   protected List<AnalyzedTokenReadings> tag(String token) throws IOException {
     final List<AnalyzedTokenReadings> tokenReadings = new ArrayList<>();
-    final List<AnalyzedToken> l = getAnalyzedTokens(token);
+    final List<AnalyzedToken> l = getCachedAnalyzedTokens(token);
     tokenReadings.add(new AnalyzedTokenReadings(l, 0));
     return tokenReadings;
   }
 
+  private List<AnalyzedToken> getCachedAnalyzedTokens(String word) {
+    final Cache<String, List<AnalyzedToken>> cache = wordCache;
+    if (cache == null) {
+      return getAnalyzedTokens(word);
+    }
+    final List<AnalyzedToken> cached = cache.getIfPresent(word);
+    if (cached != null) {
+      wordCacheHits.incrementAndGet();
+      return copyTokens(cached);
+    }
+    wordCacheMisses.incrementAndGet();
+    final List<AnalyzedToken> result = getAnalyzedTokens(word);
+    cache.put(word, Collections.unmodifiableList(copyTokens(result)));
+    return result;
+  }
+
+  private List<AnalyzedToken> copyTokens(List<AnalyzedToken> tokens) {
+    final List<AnalyzedToken> result = new ArrayList<>(tokens.size());
+    for (AnalyzedToken token : tokens) {
+      final AnalyzedToken copy = new AnalyzedToken(token.getToken(), token.getPOSTag(), token.getLemma());
+      copy.setWhitespaceBefore(token.isWhitespaceBefore());
+      copy.setNoPOSTag(token.hasNoTag());
+      result.add(copy);
+    }
+    return result;
+  }
+
   protected List<AnalyzedToken> getAnalyzedTokens(String word) {
     final List<AnalyzedToken> result = new ArrayList<>();
     final String lowerWord = word.toLowerCase(conversionLocale);
@@ -23,54 +23,97 @@ import morfologik.stemming.DictionaryLookup;
 import morfologik.stemming.IStemmer;
 import morfologik.stemming.WordData;
 import org.languagetool.JLanguageTool;
+import org.languagetool.databroker.DefaultResourceDataBroker;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Tags a word using a Morfologik binary dictionary.
+ * <p>Thread-safety: this class is thread-safe. Each call uses a dictionary lookup that no other
+ * call uses at the same time, so tagging does not need any locking once the dictionary has been loaded.</p>
  * @since 2.8
  */
 public class MorfologikTagger implements WordTagger {
 
+  private final String dictPath;
   private final URL dictUrl;
+  // a DictionaryLookup is not thread-safe, but it can be re-used for any number of lookups, so a
+  // call borrows one from here - there are only as many lookups as parallel calls:
+  private final Queue<IStemmer> stemmers = new ConcurrentLinkedQueue<>();
 
-  private Dictionary dictionary;
+  private volatile Dictionary dictionary;
 
   public MorfologikTagger(String dictPath) {
-    dictUrl = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(Objects.requireNonNull(dictPath));
+    this.dictPath = Objects.requireNonNull(dictPath);
+    this.dictUrl = null;
+  }
+
+  /**
+   * Use an already loaded dictionary.
+   * @since 3.1
+   */
+  public MorfologikTagger(Dictionary dictionary) {
+    this.dictionary = Objects.requireNonNull(dictionary);
+    this.dictPath = null;
+    this.dictUrl = null;
   }
 
   MorfologikTagger(URL dictUrl) {
+    this.dictPath = null;
     this.dictUrl = Objects.requireNonNull(dictUrl);
   }
 
-  private synchronized Dictionary getDictionary() throws IOException {
-    if (dictionary == null) {
-      dictionary = Dictionary.read(dictUrl);
+  private Dictionary getDictionary() throws IOException {
+    Dictionary dict = dictionary;
+    if (dict == null) {
+      synchronized (this) {
+        dict = dictionary;
+        if (dict == null) {
+          if (dictPath != null) {
+            dict = DefaultResourceDataBroker.getDictionary(JLanguageTool.getDataBroker(), dictPath);
+          } else {
+            dict = Dictionary.read(dictUrl);
+          }
+          dictionary = dict;
+        }
+      }
     }
-    return dictionary;
+    return dict;
+  }
+
+  private IStemmer borrowStemmer() throws IOException {
+    final IStemmer stemmer = stemmers.poll();
+    return stemmer != null ? stemmer : new DictionaryLookup(getDictionary());
   }
 
   @Override
   public List<TaggedWord> tag(String word) {
     List<TaggedWord> result = new ArrayList<>();
     try {
-      IStemmer dictLookup = new DictionaryLookup(getDictionary());
-      List<WordData> lookup = dictLookup.lookup(word);
-      for (WordData wordData : lookup) {
-        String tag = wordData.getTag() == null ? null : wordData.getTag().toString();
-        // Remove frequency data from tags (if exists)
-        // The frequency data is in the last byte after a separator
-        if (dictionary.metadata.isFrequencyIncluded() && tag != null && tag.length() > 2) {
-          tag = tag.substring(0, tag.length() - 2);
+      boolean frequencyIncluded = getDictionary().metadata.isFrequencyIncluded();
+      IStemmer stemmer = borrowStemmer();
+      try {
+        // the returned WordData objects are re-used by the next lookup, so convert them right away:
+        List<WordData> lookup = stemmer.lookup(word);
+        for (WordData wordData : lookup) {
+          String tag = wordData.getTag() == null ? null : wordData.getTag().toString();
+          // Remove frequency data from tags (if exists)
+          // The frequency data is in the last byte after a separator
+          if (frequencyIncluded && tag != null && tag.length() > 2) {
+            tag = tag.substring(0, tag.length() - 2);
+          }
+          String stem = wordData.getStem() == null ? null : wordData.getStem().toString();
+          TaggedWord taggedWord = new TaggedWord(stem, tag);
+          result.add(taggedWord);
         }
-        String stem = wordData.getStem() == null ? null : wordData.getStem().toString();
-        TaggedWord taggedWord = new TaggedWord(stem, tag);
-        result.add(taggedWord);
+      } finally {
+        stemmers.offer(stemmer);
       }
     } catch (IOException e) {
       throw new RuntimeException("Could not tag word '" + word + "'", e);
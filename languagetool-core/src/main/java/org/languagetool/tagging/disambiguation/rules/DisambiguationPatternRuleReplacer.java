@@ -24,6 +24,7 @@ import org.languagetool.AnalyzedToken;
 import org.languagetool.AnalyzedTokenReadings;
 import org.languagetool.chunking.ChunkTag;
 import org.languagetool.rules.patterns.*;
+import org.languagetool.tools.PatternCache;
 import org.languagetool.tools.StringTools;
 
 import java.io.IOException;
@@ -33,20 +34,29 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
+ * Applies a disambiguation rule. A replacer can be used for any number of sentences,
+ * but not by several threads at the same time.
  * @since 2.3
  */
 class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
 
   private final List<Boolean> pTokensMatched;
+  private final List<PatternTokenMatcher> patternTokenMatchers;
+  // the matches used for filtering and the POS pattern of the rule, created when the rule first applies:
+  private final Match[] filterAllMatches;
+  private Match filterMatch;
+  private Pattern disambiguatedPOSPattern;
 
   DisambiguationPatternRuleReplacer(DisambiguationPatternRule rule) {
     super(rule, rule.getLanguage().getDisambiguationUnifier());
     pTokensMatched = new ArrayList<>(rule.getPatternTokens().size());
+    patternTokenMatchers = createElementMatchers();
+    filterAllMatches = new Match[rule.getPatternTokens().size()];
   }
 
   public final AnalyzedSentence replace(final AnalyzedSentence sentence)
       throws IOException {
-    List<PatternTokenMatcher> patternTokenMatchers = createElementMatchers();
+    unifier.reset();
 
     final AnalyzedTokenReadings[] tokens = sentence.getTokensWithoutWhitespace();
     AnalyzedTokenReadings[] whTokens = sentence.getTokens();
@@ -253,7 +263,7 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
           }
         }
       } else if (!StringTools.isEmpty(disambiguatedPOS)) { // negative filtering
-        Pattern p = Pattern.compile(disambiguatedPOS);
+        final Pattern p = getDisambiguatedPOSPattern(disambiguatedPOS);
         AnalyzedTokenReadings tmp = new AnalyzedTokenReadings(whTokens[fromPos].getReadings(),
             whTokens[fromPos].getStartPos());
         for (AnalyzedToken analyzedToken : tmp) {
@@ -301,22 +311,27 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
     case FILTERALL:
       for (int i = 0; i < matchingTokensWithCorrection - startPositionCorrection + endPositionCorrection; i++) {
         final int position = sentence.getOriginalPosition(firstMatchToken + correctedStPos + i);
-        PatternToken pToken;
+        int pTokenIndex;
         if (pTokensMatched.get(i + startPositionCorrection)) {
-          pToken = rule.getPatternTokens().get(i + startPositionCorrection);
+          pTokenIndex = i + startPositionCorrection;
         } else {
           int k = 1;
           while (i + startPositionCorrection + k < rule.getPatternTokens().size() + endPositionCorrection &&
               !pTokensMatched.get(i + startPositionCorrection + k)) {
             k++;
           }
-         pToken = rule.getPatternTokens().get(i + k + startPositionCorrection);
+         pTokenIndex = i + k + startPositionCorrection;
+        }
+        Match tmpMatchToken = filterAllMatches[pTokenIndex];
+        if (tmpMatchToken == null) {
+          final PatternToken pToken = rule.getPatternTokens().get(pTokenIndex);
+          tmpMatchToken = new Match(pToken.getPOStag(), null,
+              true,
+              pToken.getPOStag(),
+              null, Match.CaseConversion.NONE, false, false,
+              Match.IncludeRange.NONE);
+          filterAllMatches[pTokenIndex] = tmpMatchToken;
         }
-        final Match tmpMatchToken = new Match(pToken.getPOStag(), null,
-            true,
-            pToken.getPOStag(),
-            null, Match.CaseConversion.NONE, false, false,
-            Match.IncludeRange.NONE);
 
         MatchState matchState = tmpMatchToken.createState(rule.getLanguage().getSynthesizer(), whTokens[position]);
         final String prevValue = whTokens[position].toString();
@@ -337,22 +352,25 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
       break;
     case FILTER:
       if (matchElement == null) { // same as REPLACE if using <match>
-        final Match tmpMatchToken = new Match(disambiguatedPOS, null,
-            true, disambiguatedPOS, null,
-            Match.CaseConversion.NONE, false, false,
-            Match.IncludeRange.NONE);
+        if (filterMatch == null) {
+          filterMatch = new Match(disambiguatedPOS, null,
+              true, disambiguatedPOS, null,
+              Match.CaseConversion.NONE, false, false,
+              Match.IncludeRange.NONE);
+        }
+        final Pattern posPattern = getDisambiguatedPOSPattern(disambiguatedPOS);
         boolean newPOSmatches = false;
 
         // only apply filter rule when it matches previous tags:
         for (int i = 0; i < whTokens[fromPos].getReadingsLength(); i++) {
           if (!whTokens[fromPos].getAnalyzedToken(i).hasNoTag() &&
-              whTokens[fromPos].getAnalyzedToken(i).getPOSTag().matches(disambiguatedPOS)) {
+              posPattern.matcher(whTokens[fromPos].getAnalyzedToken(i).getPOSTag()).matches()) {
             newPOSmatches = true;
             break;
           }
         }
         if (newPOSmatches) {
-          final MatchState matchState = tmpMatchToken.createState(rule.getLanguage().getSynthesizer(), whTokens[fromPos]);
+          final MatchState matchState = filterMatch.createState(rule.getLanguage().getSynthesizer(), whTokens[fromPos]);
           final String prevValue = whTokens[fromPos].toString();
           final String prevAnot = whTokens[fromPos].getHistoricalAnnotations();
           whTokens[fromPos] = matchState.filterReadings();
@@ -423,6 +441,13 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
         + rule.getSubId() + " " + prevValue + " -> " + atr);
   }
 
+  private Pattern getDisambiguatedPOSPattern(String disambiguatedPOS) {
+    if (disambiguatedPOSPattern == null) {
+      disambiguatedPOSPattern = PatternCache.getDefault().compile(disambiguatedPOS);
+    }
+    return disambiguatedPOSPattern;
+  }
+
   private AnalyzedTokenReadings replaceTokens(AnalyzedTokenReadings oldAtr,
       final AnalyzedTokenReadings newAtr) {
     final String prevValue = oldAtr.toString();
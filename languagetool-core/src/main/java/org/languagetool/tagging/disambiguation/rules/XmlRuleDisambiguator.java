@@ -20,14 +20,20 @@
 package org.languagetool.tagging.disambiguation.rules;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.patterns.PatternRuleIndex;
 import org.languagetool.tagging.disambiguation.Disambiguator;
 import org.languagetool.tools.Tools;
 import org.xml.sax.SAXException;
@@ -43,6 +49,10 @@ public class XmlRuleDisambiguator implements Disambiguator {
   private static final String DISAMBIGUATION_FILE = "disambiguation.xml";
 
   private final List<DisambiguationPatternRule> disambiguationRules;
+  private final PatternRuleIndex ruleIndex;
+  // the replacers keep their state between sentences, so a call borrows a set of them (created when first
+  // needed) that no other call uses at the same time - there are only as many sets as parallel calls:
+  private final Queue<DisambiguationPatternRuleReplacer[]> replacers = new ConcurrentLinkedQueue<>();
 
   public XmlRuleDisambiguator(final Language language) {
     Objects.requireNonNull(language);
@@ -53,13 +63,35 @@ public class XmlRuleDisambiguator implements Disambiguator {
     } catch (Exception e) {
       throw new RuntimeException("Problems with loading disambiguation file: " + disambiguationFile, e);
     }
+    ruleIndex = new PatternRuleIndex(new ArrayList<Rule>(disambiguationRules));
   }
 
   @Override
   public AnalyzedSentence disambiguate(final AnalyzedSentence input) throws IOException {
     AnalyzedSentence sentence = input;
-    for (final DisambiguationPatternRule patternRule : disambiguationRules) {
-      sentence = patternRule.replace(sentence);
+    // only apply the rules that can match, i.e. whose words, lemmas and POS tags occur in the sentence
+    // (the sentence is re-created, as the readings may have been changed in place since it was created):
+    final BitSet candidates = ruleIndex.getCandidates(new AnalyzedSentence(sentence.getTokens()));
+    DisambiguationPatternRuleReplacer[] callReplacers = replacers.poll();
+    if (callReplacers == null) {
+      callReplacers = new DisambiguationPatternRuleReplacer[disambiguationRules.size()];
+    }
+    try {
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+        DisambiguationPatternRuleReplacer replacer = callReplacers[i];
+        if (replacer == null) {
+          replacer = new DisambiguationPatternRuleReplacer(disambiguationRules.get(i));
+          callReplacers[i] = replacer;
+        }
+        final AnalyzedSentence result = replacer.replace(sentence);
+        if (result != sentence) {
+          // the readings have changed, so more of the remaining rules may match now:
+          sentence = result;
+          ruleIndex.addCandidates(sentence, i + 1, candidates);
+        }
+      }
+    } finally {
+      replacers.offer(callReplacers);
     }
     return sentence;
   }
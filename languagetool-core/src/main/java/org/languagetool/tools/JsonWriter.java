@@ -0,0 +1,241 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Writes JSON encoded as UTF-8 to a stream. Strings are escaped and encoded directly
+ * into a byte buffer, which is written to the stream when it's full, so no intermediate
+ * strings are created. Commas between values are added automatically.
+ * Not thread-safe.
+ * @since 3.1
+ */
+final class JsonWriter {
+
+  private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+  private final OutputStream out;
+  private final byte[] buffer;
+  private int pos;
+  // for each open object or array, whether a value has been written into it:
+  private boolean[] hasValue = new boolean[8];
+  private int depth;
+  private boolean afterName;
+
+  /**
+   * @param buffer the buffer to use, its content gets overwritten
+   */
+  JsonWriter(OutputStream out, byte[] buffer) {
+    if (buffer.length < 16) {
+      throw new IllegalArgumentException("Buffer too small: " + buffer.length);
+    }
+    this.out = out;
+    this.buffer = buffer;
+  }
+
+  JsonWriter beginObject() throws IOException {
+    beginValue();
+    writeByte('{');
+    push();
+    return this;
+  }
+
+  JsonWriter endObject() throws IOException {
+    depth--;
+    writeByte('}');
+    return this;
+  }
+
+  JsonWriter beginArray() throws IOException {
+    beginValue();
+    writeByte('[');
+    push();
+    return this;
+  }
+
+  JsonWriter endArray() throws IOException {
+    depth--;
+    writeByte(']');
+    return this;
+  }
+
+  JsonWriter name(String name) throws IOException {
+    beginValue();
+    writeString(name);
+    writeByte(':');
+    afterName = true;
+    return this;
+  }
+
+  JsonWriter value(@Nullable String value) throws IOException {
+    beginValue();
+    if (value == null) {
+      writeAscii("null");
+    } else {
+      writeString(value);
+    }
+    return this;
+  }
+
+  JsonWriter value(long value) throws IOException {
+    beginValue();
+    writeAscii(Long.toString(value));
+    return this;
+  }
+
+  /**
+   * Start a string value, to be continued with {@link #stringPart(CharSequence, int, int)}
+   * and ended with {@link #endString()}. Useful to write a string that is built from parts.
+   */
+  JsonWriter beginString() throws IOException {
+    beginValue();
+    writeByte('"');
+    return this;
+  }
+
+  JsonWriter stringPart(CharSequence s, int start, int end) throws IOException {
+    for (int i = start; i < end; i++) {
+      final char c = s.charAt(i);
+      if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(s.charAt(i + 1))) {
+        writeCodePoint(Character.toCodePoint(c, s.charAt(++i)));
+      } else {
+        writeChar(c);
+      }
+    }
+    return this;
+  }
+
+  JsonWriter endString() throws IOException {
+    writeByte('"');
+    return this;
+  }
+
+  /**
+   * Write the buffered output to the stream and flush the stream.
+   */
+  void flush() throws IOException {
+    out.write(buffer, 0, pos);
+    pos = 0;
+    out.flush();
+  }
+
+  private void push() {
+    if (depth == hasValue.length) {
+      hasValue = Arrays.copyOf(hasValue, depth * 2);
+    }
+    hasValue[depth++] = false;
+  }
+
+  private void beginValue() throws IOException {
+    if (afterName) {
+      afterName = false;
+      return;
+    }
+    if (depth > 0) {
+      if (hasValue[depth - 1]) {
+        writeByte(',');
+      }
+      hasValue[depth - 1] = true;
+    }
+  }
+
+  private void writeString(String s) throws IOException {
+    writeByte('"');
+    stringPart(s, 0, s.length());
+    writeByte('"');
+  }
+
+  private void writeChar(char c) throws IOException {
+    if (c < 0x80) {
+      switch (c) {
+        case '"':  writeEscape('"'); break;
+        case '\\': writeEscape('\\'); break;
+        case '\n': writeEscape('n'); break;
+        case '\r': writeEscape('r'); break;
+        case '\t': writeEscape('t'); break;
+        default:
+          if (c < 0x20) {
+            writeUnicodeEscape(c);
+          } else {
+            writeByte(c);
+          }
+      }
+    } else if (c < 0x800) {
+      ensureCapacity(2);
+      buffer[pos++] = (byte) (0xc0 | (c >> 6));
+      buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+    } else if (Character.isSurrogate(c)) {
+      // an unpaired surrogate can't be encoded as UTF-8:
+      writeUnicodeEscape(c);
+    } else {
+      ensureCapacity(3);
+      buffer[pos++] = (byte) (0xe0 | (c >> 12));
+      buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+      buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+    }
+  }
+
+  private void writeCodePoint(int codePoint) throws IOException {
+    ensureCapacity(4);
+    buffer[pos++] = (byte) (0xf0 | (codePoint >> 18));
+    buffer[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+    buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+    buffer[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+  }
+
+  private void writeEscape(char c) throws IOException {
+    ensureCapacity(2);
+    buffer[pos++] = '\\';
+    buffer[pos++] = (byte) c;
+  }
+
+  private void writeUnicodeEscape(char c) throws IOException {
+    ensureCapacity(6);
+    buffer[pos++] = '\\';
+    buffer[pos++] = 'u';
+    buffer[pos++] = HEX[(c >> 12) & 0xf];
+    buffer[pos++] = HEX[(c >> 8) & 0xf];
+    buffer[pos++] = HEX[(c >> 4) & 0xf];
+    buffer[pos++] = HEX[c & 0xf];
+  }
+
+  private void writeAscii(String s) throws IOException {
+    for (int i = 0; i < s.length(); i++) {
+      writeByte(s.charAt(i));
+    }
+  }
+
+  private void writeByte(char c) throws IOException {
+    ensureCapacity(1);
+    buffer[pos++] = (byte) c;
+  }
+
+  private void ensureCapacity(int bytes) throws IOException {
+    if (pos + bytes > buffer.length) {
+      out.write(buffer, 0, pos);
+      pos = 0;
+    }
+  }
+
+}
@@ -0,0 +1,104 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded cache of compiled regular expressions, for code that gets its expressions
+ * as strings at runtime (e.g. from rule arguments) and would otherwise compile them
+ * on every call. If the cache gets full, the least recently used expressions are removed.
+ *
+ * <p><b>Thread-safety:</b> this class is thread-safe.</p>
+ * @since 3.1
+ */
+public final class PatternCache {
+
+  private static final PatternCache DEFAULT = new PatternCache(4096);
+
+  private final Cache<String, Pattern> patterns;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * The cache shared by LanguageTool's own code.
+   */
+  public static PatternCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @param maxSize the maximum number of expressions in the cache
+   */
+  public PatternCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be > 0: " + maxSize);
+    }
+    patterns = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+  }
+
+  /**
+   * Like {@link Pattern#compile(String)}, but returns the cached pattern if the
+   * expression has been compiled before.
+   * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+   */
+  public Pattern compile(String regex) {
+    Pattern pattern = patterns.getIfPresent(regex);
+    if (pattern != null) {
+      hits.incrementAndGet();
+      return pattern;
+    }
+    misses.incrementAndGet();
+    pattern = Pattern.compile(regex);
+    patterns.put(regex, pattern);
+    return pattern;
+  }
+
+  /** The number of calls of {@link #compile(String)} that found the pattern in the cache. */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /** The number of calls of {@link #compile(String)} that had to compile the pattern. */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /** The ratio of calls that found the pattern in the cache, or 1 if there were no calls yet. */
+  public double getHitRate() {
+    final long hitCount = hits.get();
+    final long total = hitCount + misses.get();
+    return total == 0 ? 1.0 : (double) hitCount / total;
+  }
+
+  /** The number of patterns in the cache. */
+  public long size() {
+    return patterns.size();
+  }
+
+  /** Remove all patterns from the cache. */
+  public void invalidateAll() {
+    patterns.invalidateAll();
+  }
+
+}
@@ -0,0 +1,289 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.rules.Category;
+import org.languagetool.rules.ITSIssueType;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.patterns.AbstractPatternRule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Generate JSON to represent matching rules. The JSON contains the same information as
+ * the XML of {@link RuleAsXmlSerializer}, like this:
+ * <pre>
+ * {"software":{"name":"LanguageTool","version":"3.1","buildDate":"..."},
+ *  "language":{"name":"English (US)","code":"en-US"},
+ *  "matches":[{"message":"...","replacements":["..."],"offset":8,"length":2,
+ *              "fromY":0,"fromX":8,"toY":0,"toX":10,
+ *              "context":{"text":"...","offset":8,"length":2},
+ *              "rule":{"id":"...","subId":"1","description":"...","category":"...",
+ *                      "issueType":"...","urls":["..."]}}]}
+ * </pre>
+ * Optional values ({@code subId}, {@code category}, {@code issueType}, {@code urls}) are left out if not set,
+ * {@code motherTongue} is added to {@code language} like in the XML.
+ *
+ * @since 3.1
+ */
+public class RuleAsJsonSerializer {
+
+  private static final String START_MARKER = "__languagetool_start_marker";
+  private static final String SUGGESTION_START = "<suggestion>";
+  private static final String SUGGESTION_END = "</suggestion>";
+  private static final int BUFFER_SIZE = 8192;
+
+  // the output is encoded into this buffer, so a thread that serializes many responses
+  // doesn't need a new buffer every time:
+  private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+    @Override
+    protected byte[] initialValue() {
+      return new byte[BUFFER_SIZE];
+    }
+  };
+
+  /**
+   * Write a JSON representation of the given rule matches to the stream, encoded as UTF-8.
+   * The stream is flushed, but not closed.
+   * @param text the original text that was checked, used to get the context of the matches
+   * @param contextSize the desired context size in characters
+   * @param motherTongue the mother tongue of the user or {@code null}
+   */
+  public void ruleMatchesToJson(List<RuleMatch> ruleMatches, String text, int contextSize,
+                                @Nullable Language lang, @Nullable Language motherTongue, OutputStream outputStream) throws IOException {
+    final JsonWriter json = new JsonWriter(outputStream, BUFFER.get());
+    json.beginObject();
+    writeSoftware(json);
+    writeLanguage(json, lang, motherTongue);
+    writeMatches(json, ruleMatches, text, getContextTools(contextSize));
+    json.endObject();
+    json.flush();
+  }
+
+  /**
+   * Start writing the results of several checks to the stream, like this:
+   * <pre>
+   * {"software":{...},
+   *  "results":[{"id":"1","language":{...},"matches":[...]},
+   *             {"id":"2","error":"..."}]}
+   * </pre>
+   * The {@code language} and {@code matches} of each result are the same as in
+   * {@link #ruleMatchesToJson(List, String, int, Language, Language, OutputStream)}.
+   * @param contextSize the desired context size in characters
+   */
+  public BatchWriter startBatch(OutputStream outputStream, int contextSize) throws IOException {
+    return new BatchWriter(outputStream, contextSize);
+  }
+
+  /**
+   * Get a JSON representation of the given rule matches.
+   * @param text the original text that was checked, used to get the context of the matches
+   * @param contextSize the desired context size in characters
+   */
+  public String ruleMatchesToJson(List<RuleMatch> ruleMatches, String text, int contextSize, @Nullable Language lang) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      ruleMatchesToJson(ruleMatches, text, contextSize, lang, null, out);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not write to ByteArrayOutputStream", e);  // can't happen
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static void writeSoftware(JsonWriter json) throws IOException {
+    json.name("software").beginObject()
+            .name("name").value("LanguageTool")
+            .name("version").value(JLanguageTool.VERSION)
+            .name("buildDate").value(JLanguageTool.BUILD_DATE)
+            .endObject();
+  }
+
+  private static void writeLanguage(JsonWriter json, @Nullable Language lang, @Nullable Language motherTongue) throws IOException {
+    if (lang != null || motherTongue != null) {
+      json.name("language").beginObject();
+      if (lang != null) {
+        json.name("name").value(lang.getName());
+        json.name("code").value(lang.getShortNameWithCountryAndVariant());
+      }
+      if (motherTongue != null && (lang == null || !motherTongue.getShortName().equals(lang.getShortNameWithCountryAndVariant()))) {
+        json.name("motherTongueName").value(motherTongue.getName());
+        json.name("motherTongueCode").value(motherTongue.getShortName());
+      }
+      json.endObject();
+    }
+  }
+
+  private static ContextTools getContextTools(int contextSize) {
+    final ContextTools contextTools = new ContextTools();
+    contextTools.setEscapeHtml(false);
+    contextTools.setContextSize(contextSize);
+    contextTools.setErrorMarkerStart(START_MARKER);
+    contextTools.setErrorMarkerEnd("");
+    return contextTools;
+  }
+
+  private static void writeMatches(JsonWriter json, List<RuleMatch> ruleMatches, String text, ContextTools contextTools) throws IOException {
+    json.name("matches").beginArray();
+    for (RuleMatch match : ruleMatches) {
+      writeMatch(json, match, text, contextTools);
+    }
+    json.endArray();
+  }
+
+  private static void writeMatch(JsonWriter json, RuleMatch match, String text, ContextTools contextTools) throws IOException {
+    final Rule rule = match.getRule();
+    json.beginObject();
+    json.name("message");
+    writeMessage(json, match.getMessage());
+    json.name("replacements").beginArray();
+    for (String replacement : match.getSuggestedReplacements()) {
+      json.value(replacement);
+    }
+    json.endArray();
+    json.name("offset").value(match.getFromPos());
+    json.name("length").value(match.getToPos() - match.getFromPos());
+    json.name("fromY").value(match.getLine());
+    json.name("fromX").value(match.getColumn() - 1);
+    json.name("toY").value(match.getEndLine());
+    json.name("toX").value(match.getEndColumn() - 1);
+    final String context = contextTools.getContext(match.getFromPos(), match.getToPos(), text);
+    final int contextOffset = context.indexOf(START_MARKER);
+    json.name("context").beginObject();
+    json.name("text").beginString();
+    if (contextOffset >= 0) {
+      json.stringPart(context, 0, contextOffset);
+      json.stringPart(context, contextOffset + START_MARKER.length(), context.length());
+    } else {
+      json.stringPart(context, 0, context.length());
+    }
+    json.endString();
+    json.name("offset").value(contextOffset);
+    json.name("length").value(match.getToPos() - match.getFromPos());
+    json.endObject();
+    json.name("rule").beginObject();
+    json.name("id").value(rule.getId());
+    if (rule instanceof AbstractPatternRule && ((AbstractPatternRule) rule).getSubId() != null) {
+      json.name("subId").value(((AbstractPatternRule) rule).getSubId());
+    }
+    json.name("description").value(rule.getDescription());
+    final Category category = rule.getCategory();
+    if (category != null) {
+      json.name("category").value(category.getName());
+    }
+    final ITSIssueType type = rule.getLocQualityIssueType();
+    if (type != null) {
+      json.name("issueType").value(type.toString());
+    }
+    final List<URL> urls = rule.getUrls();
+    if (urls != null && !urls.isEmpty()) {
+      json.name("urls").beginArray();
+      for (URL url : urls) {
+        json.value(url.toString());
+      }
+      json.endArray();
+    }
+    json.endObject();
+    json.endObject();
+  }
+
+  // like the XML output, suggestions in the message are quoted with "'":
+  private static void writeMessage(JsonWriter json, String message) throws IOException {
+    json.beginString();
+    int start = 0;
+    int pos = message.indexOf('<');
+    while (pos != -1) {
+      final int tagLength = message.startsWith(SUGGESTION_START, pos) ? SUGGESTION_START.length()
+              : message.startsWith(SUGGESTION_END, pos) ? SUGGESTION_END.length() : 0;
+      if (tagLength > 0) {
+        json.stringPart(message, start, pos);
+        json.stringPart("'", 0, 1);
+        start = pos + tagLength;
+      }
+      pos = message.indexOf('<', pos + 1);
+    }
+    json.stringPart(message, start, message.length());
+    json.endString();
+  }
+
+  /**
+   * Writes the results of several checks, see {@link #startBatch(OutputStream, int)}.
+   * Not thread-safe.
+   */
+  public static final class BatchWriter {
+
+    private final JsonWriter json;
+    private final ContextTools contextTools;
+
+    private BatchWriter(OutputStream outputStream, int contextSize) throws IOException {
+      // not the thread's buffer, as a batch may be written while other output is serialized:
+      json = new JsonWriter(outputStream, new byte[BUFFER_SIZE]);
+      contextTools = getContextTools(contextSize);
+      json.beginObject();
+      writeSoftware(json);
+      json.name("results").beginArray();
+    }
+
+    /**
+     * @param text the text that was checked, used to get the context of the matches
+     */
+    public void writeResult(String id, Language lang, List<RuleMatch> ruleMatches, String text) throws IOException {
+      json.beginObject();
+      json.name("id").value(id);
+      writeLanguage(json, lang, null);
+      writeMatches(json, ruleMatches, text, contextTools);
+      json.endObject();
+    }
+
+    /**
+     * Write the result of a check that failed.
+     */
+    public void writeError(String id, String message) throws IOException {
+      json.beginObject();
+      json.name("id").value(id);
+      json.name("error").value(message);
+      json.endObject();
+    }
+
+    /**
+     * Send the results written so far.
+     */
+    public void flush() throws IOException {
+      json.flush();
+    }
+
+    /**
+     * Complete the JSON and flush the stream, which is not closed.
+     */
+    public void finish() throws IOException {
+      json.endArray();
+      json.endObject();
+      json.flush();
+    }
+  }
+
+}
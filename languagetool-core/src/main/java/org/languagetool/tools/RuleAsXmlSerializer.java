@@ -18,7 +18,9 @@
  */
 package org.languagetool.tools;
 
+import java.io.*;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.languagetool.JLanguageTool;
@@ -76,6 +78,31 @@ public class RuleAsXmlSerializer {
    */
   public String ruleMatchesToXmlSnippet(List<RuleMatch> ruleMatches, String text, int contextSize) {
     StringBuilder xml = new StringBuilder(CAPACITY);
+    try {
+      appendRuleMatches(ruleMatches, text, contextSize, xml);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not append to StringBuilder", e);  // can't happen
+    }
+    return xml.toString();
+  }
+
+  /**
+   * Write an XML representation of the given rule matches to the stream, one match after the
+   * other, so the complete XML doesn't need to be kept in memory. The result is the same as that
+   * of {@link #ruleMatchesToXml(List, String, int, Language, Language)}, encoded as UTF-8.
+   * The stream is flushed, but not closed.
+   * @since 3.1
+   */
+  public void ruleMatchesToXml(List<RuleMatch> ruleMatches, String text, int contextSize,
+                               Language lang, Language motherTongue, OutputStream outputStream) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    writer.write(getXmlStart(lang, motherTongue));
+    appendRuleMatches(ruleMatches, text, contextSize, writer);
+    writer.write(getXmlEnd());
+    writer.flush();
+  }
+
+  private void appendRuleMatches(List<RuleMatch> ruleMatches, String text, int contextSize, Appendable xml) throws IOException {
     //
     // IMPORTANT: people rely on this format, don't change it!
     //
@@ -94,10 +121,10 @@ public class RuleAsXmlSerializer {
           subId = " subId=\"" + escapeXMLForAPIOutput(pRule.getSubId()) + "\" ";
         }
       }
-      xml.append("<error fromy=\"").append(match.getLine()).append('"')
-              .append(" fromx=\"").append(match.getColumn() - 1).append('"')
-              .append(" toy=\"").append(match.getEndLine()).append('"')
-              .append(" tox=\"").append(match.getEndColumn() - 1).append('"')
+      xml.append("<error fromy=\"").append(String.valueOf(match.getLine())).append('"')
+              .append(" fromx=\"").append(String.valueOf(match.getColumn() - 1)).append('"')
+              .append(" toy=\"").append(String.valueOf(match.getEndLine())).append('"')
+              .append(" tox=\"").append(String.valueOf(match.getEndColumn() - 1)).append('"')
               .append(" ruleId=\"").append(match.getRule().getId()).append('"');
       String msg = match.getMessage().replaceAll("</?suggestion>", "'");
       xml.append(subId);
@@ -110,9 +137,9 @@ public class RuleAsXmlSerializer {
       context = context.replaceFirst(startMarker, "");
       context = context.replaceAll("[\n\r]", " ");
       xml.append(" context=\"").append(escapeForXmlAttribute(context)).append('"')
-              .append(" contextoffset=\"").append(contextOffset).append('"')
-              .append(" offset=\"").append(match.getFromPos()).append('"')
-              .append(" errorlength=\"").append(match.getToPos() - match.getFromPos()).append('"');
+              .append(" contextoffset=\"").append(String.valueOf(contextOffset)).append('"')
+              .append(" offset=\"").append(String.valueOf(match.getFromPos())).append('"')
+              .append(" errorlength=\"").append(String.valueOf(match.getToPos() - match.getFromPos())).append('"');
       Category category = match.getRule().getCategory();
       if (category != null) {
         xml.append(" category=\"").append(escapeXMLForAPIOutput(category.getName())).append('"');
@@ -127,7 +154,6 @@ public class RuleAsXmlSerializer {
       }
       xml.append("</error>\n");
     }
-    return xml.toString();
   }
 
   /**
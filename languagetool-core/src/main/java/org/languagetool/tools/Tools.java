@@ -18,9 +18,11 @@
  */
 package org.languagetool.tools;
 
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
+import org.languagetool.RuleSelection;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
 import org.languagetool.rules.bitext.BitextRule;
@@ -68,6 +70,20 @@ public final class Tools {
   public static List<RuleMatch> checkBitext(final String src, final String trg,
                                             final JLanguageTool srcLt, final JLanguageTool trgLt,
                                             final List<BitextRule> bRules) throws IOException {
+    return checkBitext(src, trg, srcLt, trgLt, bRules, null);
+  }
+
+  /**
+   * Checks the bilingual input (bitext) with a selection of the target language rules.
+   *
+   * @param trgRules the target language rules to use, created from the {@link org.languagetool.CompiledRuleSet}
+   *                 of {@code trgLt}, or {@code null} to use the rules enabled in {@code trgLt}
+   * @see #checkBitext(String, String, JLanguageTool, JLanguageTool, List)
+   * @since 3.1
+   */
+  public static List<RuleMatch> checkBitext(final String src, final String trg,
+                                            final JLanguageTool srcLt, final JLanguageTool trgLt,
+                                            final List<BitextRule> bRules, @Nullable final RuleSelection trgRules) throws IOException {
     final AnalyzedSentence srcText = srcLt.getAnalyzedSentence(src);
     final AnalyzedSentence trgText = trgLt.getAnalyzedSentence(trg);
     List<Rule> nonBitextRules = trgLt.getAllRules();
@@ -75,7 +91,7 @@ public final class Tools {
       rule.reset();
     }
     final List<RuleMatch> ruleMatches = trgLt.checkAnalyzedSentence(JLanguageTool.ParagraphHandling.NORMAL,
-            nonBitextRules, 0, 0, 1, trg, trgText, null);
+            nonBitextRules, 0, 0, 1, trg, trgText, null, trgRules);
     for (BitextRule bRule : bRules) {
       final RuleMatch[] curMatch = bRule.match(srcText, trgText);
       if (curMatch != null && curMatch.length > 0) {
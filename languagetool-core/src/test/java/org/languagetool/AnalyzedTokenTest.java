@@ -46,4 +46,18 @@ public class AnalyzedTokenTest extends TestCase {
     assertTrue(testToken1.matches(new AnalyzedToken("", null, "lemma")));
   }
   
+  public void testCachedMatch() {
+    final AnalyzedToken token = new AnalyzedToken("word", "POS", "lemma");
+    assertEquals(-1, token.getCachedMatch(3));
+    token.setCachedMatch(3, true);
+    token.setCachedMatch(4, false);
+    assertEquals(1, token.getCachedMatch(3));
+    assertEquals(0, token.getCachedMatch(4));
+    assertEquals(-1, token.getCachedMatch(5));
+    // same slot, the older result is replaced:
+    token.setCachedMatch(3 + 64, false);
+    assertEquals(-1, token.getCachedMatch(3));
+    assertEquals(0, token.getCachedMatch(3 + 64));
+  }
+
 }
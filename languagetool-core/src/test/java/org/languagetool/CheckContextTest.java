@@ -0,0 +1,108 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class CheckContextTest {
+
+  private static final AnnotatedText TEXT = new AnnotatedTextBuilder().addText("This is foo bar. And foo bar again.").build();
+
+  @Test
+  public void testComplete() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    CheckContext context = new CheckContext();
+    List<RuleMatch> matches = check(lt, context);
+    assertFalse(context.isIncomplete());
+    assertThat(matches.size(), is(lt.check(TEXT).size()));
+    assertTrue(matches.size() > 0);
+    // cancelling after the check doesn't change its result:
+    context.cancel();
+    assertFalse(context.isIncomplete());
+  }
+
+  @Test
+  public void testCancelled() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    CheckContext context = new CheckContext();
+    context.cancel();
+    assertThat(check(lt, context).size(), is(0));
+    assertTrue(context.isIncomplete());
+  }
+
+  @Test
+  public void testTimeout() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    CheckContext context = CheckContext.withTimeout(0);
+    assertThat(check(lt, context).size(), is(0));
+    assertTrue(context.isIncomplete());
+    CheckContext context2 = CheckContext.withTimeout(60_000);
+    assertTrue(check(lt, context2).size() > 0);
+    assertFalse(context2.isIncomplete());
+  }
+
+  @Test
+  public void testInterrupted() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    CheckContext context = new CheckContext();
+    Thread.currentThread().interrupt();
+    try {
+      assertThat(check(lt, context).size(), is(0));
+      assertTrue(context.isIncomplete());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void testMultiThreaded() throws IOException {
+    MultiThreadedJLanguageTool lt = new MultiThreadedJLanguageTool(new Demo());
+    try {
+      CheckContext context = new CheckContext();
+      context.cancel();
+      assertThat(check(lt, context).size(), is(0));
+      assertTrue(context.isIncomplete());
+      CheckContext context2 = new CheckContext();
+      assertThat(check(lt, context2).size(), is(lt.check(TEXT).size()));
+      assertFalse(context2.isIncomplete());
+    } finally {
+      lt.shutdown();
+    }
+  }
+
+  @Test
+  public void testNoContextOutsideOfCheck() {
+    assertFalse(CheckContext.current().shouldStop());
+  }
+
+  private List<RuleMatch> check(JLanguageTool lt, CheckContext context) throws IOException {
+    return lt.check(TEXT, true, JLanguageTool.ParagraphHandling.NORMAL, null, context);
+  }
+
+}
@@ -0,0 +1,102 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class DocumentSessionTest {
+
+  private static final String TEXT = "This is foo bar. And foo bar again.\n\nthis is a test. Here's another sentence! And one more? Yes.";
+
+  @Test
+  public void testEdits() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    DocumentSession session = new DocumentSession(new JLanguageTool(new Demo()));
+    session.setText(TEXT);
+    assertSameResult(lt, session);
+    int analyzedBefore = session.getAnalyzedSentenceCount();
+    // change one word of the sentence in the middle:
+    int pos = TEXT.indexOf("test");
+    session.applyEdit(pos, 4, "tests");
+    assertThat(session.getText(), is(TEXT.replace("test", "tests")));
+    assertSameResult(lt, session);
+    assertThat(session.getAnalyzedSentenceCount() - analyzedBefore, is(1));
+    // merge two sentences:
+    session.applyEdit(session.getText().indexOf("sentence!") + 8, 1, ",");
+    assertSameResult(lt, session);
+    // split a sentence:
+    session.applyEdit(session.getText().indexOf("foo bar again"), 0, "Foo. ");
+    assertSameResult(lt, session);
+    // delete everything:
+    session.setText("");
+    assertSameResult(lt, session);
+    session.setText(TEXT);
+    assertSameResult(lt, session);
+  }
+
+  @Test
+  public void testRandomEdits() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    DocumentSession session = new DocumentSession(new JLanguageTool(new Demo()));
+    session.setText(TEXT);
+    Random random = new Random(42);
+    String[] insertions = {"", " ", ".", "foo", "bar. ", "\n", "\n\n", "And", "! this"};
+    for (int i = 0; i < 200; i++) {
+      String text = session.getText();
+      int offset = random.nextInt(text.length() + 1);
+      int deletedLength = random.nextInt(Math.min(10, text.length() - offset) + 1);
+      session.applyEdit(offset, deletedLength, insertions[random.nextInt(insertions.length)]);
+      if (i % 10 == 0) {
+        assertSameResult(lt, session);
+      }
+    }
+    assertSameResult(lt, session);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidEdit() {
+    DocumentSession session = new DocumentSession(new JLanguageTool(new Demo()));
+    session.setText("A short text.");
+    session.applyEdit(10, 10, "");
+  }
+
+  private void assertSameResult(JLanguageTool lt, DocumentSession session) throws IOException {
+    assertThat(describe(session.check()), is(describe(lt.check(session.getText()))));
+  }
+
+  private List<String> describe(List<RuleMatch> matches) {
+    List<String> result = new ArrayList<>();
+    for (RuleMatch match : matches) {
+      result.add(match.getRule().getId() + ":" + match.getFromPos() + "-" + match.getToPos()
+              + ":" + match.getLine() + "/" + match.getColumn() + "-" + match.getEndLine() + "/" + match.getEndColumn());
+    }
+    return result;
+  }
+
+}
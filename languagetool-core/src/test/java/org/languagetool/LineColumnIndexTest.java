@@ -0,0 +1,65 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LineColumnIndexTest {
+
+  @Test
+  public void testLineAndColumn() {
+    // "This.\nSome stuff.\nIt is a test."
+    LineColumnIndex index = new LineColumnIndex(Arrays.asList("This.\n", "Some stuff.\n", "It is a test."));
+    assertThat(index.getLine(0), is(0));
+    assertThat(index.getColumn(0), is(0));
+    assertThat(index.getLine(5), is(0));
+    assertThat(index.getColumn(5), is(5));
+    assertThat(index.getLine(6), is(1));
+    assertThat(index.getColumn(6), is(1));
+    assertThat(index.getLine(17), is(1));
+    assertThat(index.getLine(18), is(2));
+    assertThat(index.getColumn(21), is(4));
+  }
+
+  @Test
+  public void testManyLines() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      sb.append("line\n\n");
+    }
+    LineColumnIndex index = new LineColumnIndex(Collections.singletonList(sb.toString()));
+    assertThat(index.getLine(sb.length()), is(2000));
+    assertThat(index.getLine(sb.length() - 3), is(1998));
+    assertThat(index.getColumn(sb.length() - 3), is(4));
+  }
+
+  @Test
+  public void testNoSentences() {
+    LineColumnIndex index = new LineColumnIndex(Collections.<String>emptyList());
+    assertThat(index.getLine(0), is(0));
+    assertThat(index.getColumn(0), is(0));
+  }
+
+}
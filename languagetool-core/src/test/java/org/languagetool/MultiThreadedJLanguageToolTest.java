@@ -114,6 +114,36 @@ public class MultiThreadedJLanguageToolTest {
     lt.shutdown();
   }
 
+  @Test
+  public void testSameResultAsSingleThreaded() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      sb.append("A small toast. No error here.\nFoo go bar. First goes last there, please!  this is foo bar.\n\n");
+    }
+    String text = sb.toString();
+    List<String> expected = getMatches(new JLanguageTool(new Demo()), text);
+    for (int threads : new int[] {1, 3, 8}) {
+      MultiThreadedJLanguageTool lt = new MultiThreadedJLanguageTool(new Demo(), threads);
+      try {
+        // the split of the work changes when the rule cost estimates have been updated:
+        for (int i = 0; i < 3; i++) {
+          assertEquals(expected, getMatches(lt, text));
+        }
+      } finally {
+        lt.shutdown();
+      }
+    }
+  }
+
+  private List<String> getMatches(JLanguageTool langTool, String text) throws IOException {
+    List<String> result = new ArrayList<>();
+    for (RuleMatch match : langTool.check(text)) {
+      result.add(match.getRule().getId() + ":" + match.getFromPos() + "-" + match.getToPos()
+              + ":" + match.getLine() + "/" + match.getColumn() + "-" + match.getEndLine() + "/" + match.getEndColumn());
+    }
+    return result;
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testIllegalThreadPoolSize1() throws IOException {
     new MultiThreadedJLanguageTool(new Demo(), 0);
@@ -0,0 +1,118 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+  private static final String TEXT = "This is foo bar. And foo bar again. this is a test.";
+
+  @Test
+  public void testSameResultAsWithoutCache() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    JLanguageTool cachedLt = new JLanguageTool(new Demo());
+    ResultCache cache = new ResultCache(1_000_000);
+    cachedLt.setResultCache(cache);
+    List<String> expected = describe(lt.check(TEXT));
+    assertTrue(lt.check(TEXT).size() > 0);
+    assertThat(describe(cachedLt.check(TEXT)), is(expected));
+    assertThat(cache.getHitCount(), is(0L));
+    assertThat(cache.size(), is(3L));
+    assertThat(describe(cachedLt.check(TEXT)), is(expected));
+    assertThat(cache.getHitCount(), is(3L));
+    assertThat(cache.getMatchHitCount(), is(3L));
+  }
+
+  @Test
+  public void testPositionsOfCachedMatches() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    JLanguageTool cachedLt = new JLanguageTool(new Demo());
+    cachedLt.setResultCache(new ResultCache(1_000_000));
+    cachedLt.check(TEXT);
+    String text = "A new first sentence.\nFoo bar here. " + TEXT;
+    assertThat(describe(cachedLt.check(text)), is(describe(lt.check(text))));
+  }
+
+  @Test
+  public void testParagraphEnd() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    JLanguageTool cachedLt = new JLanguageTool(new Demo());
+    ResultCache cache = new ResultCache(1_000_000);
+    cachedLt.setResultCache(cache);
+    cachedLt.check("This is foo bar.");
+    // the same sentence, but not at the end of the text:
+    String text = "This is foo bar. And another one.";
+    assertThat(describe(cachedLt.check(text)), is(describe(lt.check(text))));
+    assertThat(cache.getHitCount(), is(0L));
+  }
+
+  @Test
+  public void testDifferentRules() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new CompiledRuleSet(new Demo(), null));
+    ResultCache cache = new ResultCache(1_000_000);
+    lt.setResultCache(cache);
+    RuleSelection selection = lt.getCompiledRuleSet().createSelection().disableRule("DEMO_RULE");
+    List<RuleMatch> matches = lt.check(new AnnotatedTextBuilder().addText(TEXT).build(), true,
+            JLanguageTool.ParagraphHandling.NORMAL, selection);
+    assertThat(describe(lt.check(TEXT)), is(describe(new JLanguageTool(new Demo()).check(TEXT))));
+    for (RuleMatch match : matches) {
+      assertFalse(match.getRule().getId().equals("DEMO_RULE"));
+    }
+    // the analysis was cached, the matches were not as the rules differ:
+    assertThat(cache.getHitCount(), is(3L));
+    assertThat(cache.getMatchHitCount(), is(0L));
+  }
+
+  @Test
+  public void testMultiThreaded() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    MultiThreadedJLanguageTool cachedLt = new MultiThreadedJLanguageTool(new Demo());
+    try {
+      ResultCache cache = new ResultCache(1_000_000);
+      cachedLt.setResultCache(cache);
+      List<String> expected = describe(lt.check(TEXT));
+      assertThat(describe(cachedLt.check(TEXT)), is(expected));
+      assertThat(describe(cachedLt.check(TEXT)), is(expected));
+      assertThat(cache.getHitCount(), is(3L));
+    } finally {
+      cachedLt.shutdown();
+    }
+  }
+
+  private List<String> describe(List<RuleMatch> matches) {
+    List<String> result = new ArrayList<>();
+    for (RuleMatch match : matches) {
+      result.add(match.getRule().getId() + ":" + match.getFromPos() + "-" + match.getToPos()
+              + ":" + match.getLine() + "/" + match.getColumn() + "-" + match.getEndLine() + "/" + match.getEndColumn());
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,108 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class RuleProfileTest {
+
+  private static final String TEXT = "This is foo bar. And foo bar again. this is a test.";
+
+  @Test
+  public void testStats() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    RuleProfile profile = new RuleProfile();
+    lt.setRuleProfile(profile);
+    List<RuleMatch> matches = lt.check(TEXT);
+    assertTrue(matches.size() > 0);
+    List<RuleProfile.RuleStats> stats = profile.getStats();
+    assertTrue(stats.size() > 0);
+    long totalMatches = 0;
+    long previousNanos = Long.MAX_VALUE;
+    for (RuleProfile.RuleStats ruleStats : stats) {
+      assertThat(ruleStats.getLanguageCode(), is("xx-XX"));
+      assertTrue(ruleStats.getInvocations() > 0);
+      assertTrue(ruleStats.getTotalNanos() <= previousNanos);
+      previousNanos = ruleStats.getTotalNanos();
+      totalMatches += ruleStats.getMatches();
+    }
+    // matches may be filtered, but each one has been found by a rule:
+    assertTrue(totalMatches >= matches.size());
+    profile.reset();
+    assertThat(profile.getStats().size(), is(0));
+  }
+
+  @Test
+  public void testStatsAreAddedUp() throws IOException {
+    RuleProfile profile = new RuleProfile();
+    JLanguageTool lt1 = new JLanguageTool(new Demo());
+    lt1.setRuleProfile(profile);
+    JLanguageTool lt2 = new JLanguageTool(new Demo());
+    lt2.setRuleProfile(profile);
+    lt1.check(TEXT);
+    int ruleCount = profile.getStats().size();
+    long invocations = getInvocations(profile);
+    lt2.check(TEXT);
+    // the Java rules of lt2 are other objects, but have the same ids:
+    assertThat(profile.getStats().size(), is(ruleCount));
+    assertThat(getInvocations(profile), is(2 * invocations));
+  }
+
+  @Test
+  public void testNoProfile() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    assertNull(lt.getRuleProfile());
+    assertTrue(lt.check(TEXT).size() > 0);
+  }
+
+  @Test
+  public void testNanosPerChar() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    RuleProfile profile = new RuleProfile();
+    lt.setRuleProfile(profile);
+    Rule rule = lt.getAllActiveRules().get(0);
+    assertTrue(Double.isNaN(profile.getNanosPerChar(lt.getLanguage(), rule)));
+    StringBuilder sb = new StringBuilder();
+    while (sb.length() < 20000) {
+      sb.append(TEXT).append(' ');
+    }
+    lt.check(sb.toString());
+    assertTrue(profile.getNanosPerChar(lt.getLanguage(), rule) >= 0);
+    // rules that can be skipped for a sentence are not counted:
+    assertTrue(profile.getStats().size() <= lt.getAllActiveRules().size());
+  }
+
+  private long getInvocations(RuleProfile profile) {
+    long invocations = 0;
+    for (RuleProfile.RuleStats ruleStats : profile.getStats()) {
+      invocations += ruleStats.getInvocations();
+    }
+    return invocations;
+  }
+
+}
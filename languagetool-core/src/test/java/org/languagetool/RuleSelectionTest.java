@@ -0,0 +1,119 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.patterns.PatternRule;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class RuleSelectionTest {
+
+  private static final AnnotatedText TEXT = new AnnotatedTextBuilder().addText("This is foo bar. And foosomething.").build();
+
+  @Test
+  public void testSharedRules() {
+    Demo demo = new Demo();
+    CompiledRuleSet ruleSet = CompiledRuleSet.get(demo, null);
+    assertSame(ruleSet, CompiledRuleSet.get(demo, null));
+    JLanguageTool lt1 = new JLanguageTool(ruleSet);
+    JLanguageTool lt2 = new JLanguageTool(ruleSet);
+    assertThat(lt1.getAllRules().size(), is(ruleSet.size()));
+    for (int i = 0; i < ruleSet.size(); i++) {
+      assertThat(lt1.getAllRules().get(i).getId(), is(ruleSet.getRules().get(i).getId()));
+      if (lt1.getAllRules().get(i) instanceof PatternRule) {
+        assertSame(lt1.getAllRules().get(i), lt2.getAllRules().get(i));
+      }
+    }
+  }
+
+  @Test
+  public void testSameResultAsInstanceSettings() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new CompiledRuleSet(new Demo(), null));
+    RuleSelection selection = lt.getCompiledRuleSet().createSelection();
+    assertThat(getRuleIds(lt.check(TEXT, true, JLanguageTool.ParagraphHandling.NORMAL, selection)),
+            is(getRuleIds(lt.check(TEXT))));
+    assertThat(getRuleIds(lt.check(TEXT)), is(Arrays.asList("DEMO_RULE")));
+  }
+
+  @Test
+  public void testSelection() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new CompiledRuleSet(new Demo(), null));
+    CompiledRuleSet ruleSet = lt.getCompiledRuleSet();
+    RuleSelection disabled = ruleSet.createSelection().disableRule("DEMO_RULE");
+    RuleSelection enabled = ruleSet.createSelection().enableRule("DEMO_RULE_OFF");
+    RuleSelection noCategory = ruleSet.createSelection().enableRule("DEMO_RULE_OFF").disableCategory("misc");
+    RuleSelection enabledOnly = ruleSet.createSelection().selectRules(Collections.<String>emptyList(), Arrays.asList("DEMO_RULE_OFF"), true);
+    assertThat(getRuleIds(check(lt, disabled)), is(Collections.<String>emptyList()));
+    assertThat(getRuleIds(check(lt, enabled)), is(Arrays.asList("DEMO_RULE", "DEMO_RULE_OFF")));
+    assertThat(getRuleIds(check(lt, noCategory)), is(Collections.<String>emptyList()));
+    assertThat(getRuleIds(check(lt, enabledOnly)), is(Arrays.asList("DEMO_RULE_OFF")));
+    assertThat(enabledOnly.getActiveRuleCount(), is(1));
+    // the selections don't change the instance:
+    assertThat(getRuleIds(lt.check(TEXT)), is(Arrays.asList("DEMO_RULE")));
+    assertThat(getRuleIds(check(lt, disabled)), is(Collections.<String>emptyList()));
+  }
+
+  @Test
+  public void testEquals() {
+    CompiledRuleSet ruleSet = new CompiledRuleSet(new Demo(), null);
+    assertEquals(ruleSet.createSelection().disableRule("DEMO_RULE"), ruleSet.createSelection().disableRule("DEMO_RULE"));
+    assertNotEquals(ruleSet.createSelection().disableRule("DEMO_RULE"), ruleSet.createSelection());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSelectionForOtherRuleSet() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new CompiledRuleSet(new Demo(), null));
+    check(lt, new CompiledRuleSet(new Demo(), null).createSelection());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSelectionWithoutRuleSet() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    check(lt, new CompiledRuleSet(new Demo(), null).createSelection());
+  }
+
+  private List<RuleMatch> check(JLanguageTool lt, RuleSelection selection) throws IOException {
+    return lt.check(TEXT, true, JLanguageTool.ParagraphHandling.NORMAL, selection);
+  }
+
+  // only the rules this test is about, other Demo rules also match the text:
+  private List<String> getRuleIds(List<RuleMatch> matches) {
+    List<String> ruleIds = new ArrayList<>();
+    for (RuleMatch match : matches) {
+      String id = match.getRule().getId();
+      if (id.equals("DEMO_RULE") || id.equals("DEMO_RULE_OFF")) {
+        ruleIds.add(id);
+      }
+    }
+    return ruleIds;
+  }
+
+}
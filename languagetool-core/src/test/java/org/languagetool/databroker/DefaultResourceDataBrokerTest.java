@@ -0,0 +1,99 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2013 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.databroker;
+
+import morfologik.stemming.Dictionary;
+import org.junit.Test;
+import org.languagetool.JLanguageTool;
+import org.languagetool.tagging.MorfologikTagger;
+import org.languagetool.tagging.TaggedWord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DefaultResourceDataBrokerTest {
+
+  @Test
+  public void testGetFromResourceDirAsDictionary() throws IOException {
+    DefaultResourceDataBroker broker = new DefaultResourceDataBroker();
+    Dictionary dictionary = broker.getFromResourceDirAsDictionary("/xx/spelling/test.dict");
+    assertNotNull(dictionary.fsa);
+    assertSame(dictionary, broker.getFromResourceDirAsDictionary("/xx/spelling/test.dict"));
+    assertSame(dictionary, DefaultResourceDataBroker.getDictionary(JLanguageTool.getDataBroker(), "/xx/spelling/test.dict"));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testGetFromResourceDirAsDictionaryNotFound() throws IOException {
+    new DefaultResourceDataBroker().getFromResourceDirAsDictionary("/xx/spelling/no-such-file.dict");
+  }
+
+  @Test
+  public void testExternalResourceDir() throws IOException {
+    // files are deleted in reverse order of registration, and only on exit as they are mapped:
+    File dir = Files.createTempDirectory("broker-test").toFile();
+    dir.deleteOnExit();
+    File taggingDir = new File(dir, "xx/tagging");
+    assertTrue(taggingDir.mkdirs());
+    taggingDir.getParentFile().deleteOnExit();
+    taggingDir.deleteOnExit();
+    for (String fileName : new String[] {"test.dict", "test.info"}) {
+      File file = new File(taggingDir, fileName);
+      file.deleteOnExit();
+      try (InputStream stream = MorfologikTagger.class.getResourceAsStream(fileName)) {
+        Files.copy(stream, file.toPath());
+      }
+    }
+    DefaultResourceDataBroker broker = new DefaultResourceDataBroker(ResourceDataBroker.RESOURCE_DIR, ResourceDataBroker.RULES_DIR, dir);
+    assertEquals(dir, broker.getExternalResourceDir());
+    assertTrue(broker.resourceExists("/xx/tagging/test.dict"));
+    assertTrue(broker.resourceExists("/xx/spelling/test.dict"));  // from the class path
+    assertEquals("file", broker.getFromResourceDirAsUrl("/xx/tagging/test.dict").getProtocol());
+    assertEquals("file", broker.getFromResourceDirAsUrl("/xx/spelling/test.dict").getProtocol());
+
+    Dictionary mapped = broker.getFromResourceDirAsDictionary("/xx/tagging/test.dict");
+    assertTrue(mapped.fsa instanceof MappedCFSA2);
+    assertSame(mapped, broker.getFromResourceDirAsDictionary("/xx/tagging/test.dict"));
+    Dictionary onHeap = Dictionary.read(MorfologikTagger.class.getResource("test.dict"));
+    assertFalse(getSequences(mapped).isEmpty());
+    assertEquals(getSequences(onHeap), getSequences(mapped));
+    assertEquals(onHeap.metadata.getEncoding(), mapped.metadata.getEncoding());
+    List<TaggedWord> tags = new MorfologikTagger(mapped).tag("lowercase");
+    assertEquals(2, tags.size());
+    assertEquals("lclemma", tags.get(0).getLemma());
+    assertEquals("POS1", tags.get(0).getPosTag());
+    assertEquals(0, new MorfologikTagger(mapped).tag("noSuchWord").size());
+  }
+
+  private List<String> getSequences(Dictionary dictionary) {
+    List<String> result = new ArrayList<>();
+    for (ByteBuffer sequence : dictionary.fsa) {
+      result.add(new String(sequence.array(), 0, sequence.remaining(), StandardCharsets.ISO_8859_1));
+    }
+    return result;
+  }
+
+}
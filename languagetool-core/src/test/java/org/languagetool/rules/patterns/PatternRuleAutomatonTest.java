@@ -0,0 +1,147 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Test;
+import org.languagetool.*;
+import org.languagetool.rules.MultipleWhitespaceRule;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PatternRuleAutomatonTest {
+
+  private static final Language LANG = TestTools.getDemoLanguage();
+
+  @Test
+  public void testScan() throws IOException {
+    List<Rule> rules = new ArrayList<>();
+    rules.add(rule(token("foo")));                                        // 0
+    rules.add(rule(token("foo"), token("bar")));                          // 1
+    rules.add(rule(new PatternToken("walk", false, false, true)));        // 2
+    rules.add(rule(posToken("VB.*"), token("bar")));                      // 3
+    rules.add(new MultipleWhitespaceRule(TestTools.getEnglishMessages(), LANG));  // 4
+    rules.add(rule(optional(token("the")), token("bar")));                // 5
+    rules.add(rule(new PatternToken("ba.*", false, true, false)));        // 6
+    rules.add(rule(token("Foo", true)));                                  // 7
+    PatternRuleAutomaton automaton = new PatternRuleAutomaton(rules);
+    assertThat(automaton.toString(), is("8 rules, 6 compiled, 6 conditions, 8 states"));
+
+    AnalyzedSentence sentence = sentence("foo/XX/foo", "walked/VBD/walk", "bar/XX/bar", "foo/XX/foo", "bar/XX/bar");
+    BitSet candidates = new BitSet();
+    candidates.set(0, rules.size());
+    PatternRuleAutomaton.Scan scan = automaton.scan(sentence, candidates);
+    // "Foo" is case-sensitive:
+    assertThat(candidates, is(bits(0, 1, 2, 3, 4, 5, 6)));
+    assertSameMatches(rules, sentence, scan);
+    assertThat(scan.match(0).length, is(2));
+    assertThat(scan.match(1).length, is(1));
+    assertThat(scan.match(3).length, is(1));
+    assertThat(scan.match(7).length, is(0));
+
+    AnalyzedSentence sentence2 = sentence("Foo/XX/foo", "the/DT/the", "baz/XX/baz");
+    candidates.set(0, rules.size());
+    PatternRuleAutomaton.Scan scan2 = automaton.scan(sentence2, candidates);
+    assertThat(candidates, is(bits(0, 4, 5, 6, 7)));
+    assertSameMatches(rules, sentence2, scan2);
+  }
+
+  @Test
+  public void testSameMatchesAsPatternRules() throws IOException {
+    JLanguageTool lt = new JLanguageTool(LANG);
+    List<Rule> rules = lt.getAllRules();
+    PatternRuleAutomaton automaton = new PatternRuleAutomaton(rules);
+    for (String text : Arrays.asList("This is a test sentence.", "Foo bar blah.", "An sentence with a error in the Hitchhiker's Guide tot he Galaxy",
+            "Und hier ist ein Test.", "Here's another test. And yet another one.", "This is is a test")) {
+      for (AnalyzedSentence sentence : lt.analyzeText(text)) {
+        BitSet candidates = new BitSet();
+        candidates.set(0, rules.size());
+        assertSameMatches(rules, sentence, automaton.scan(sentence, candidates));
+      }
+    }
+  }
+
+  @Test
+  public void testCheckWithAutomaton() throws IOException {
+    JLanguageTool lt = new JLanguageTool(LANG);
+    String text = "An sentence with a error in the Hitchhiker's Guide tot he Galaxy. This is is a test.";
+    List<RuleMatch> expected = lt.check(text);
+    lt.setUsePatternRuleAutomaton(true);
+    assertThat(lt.check(text), is(expected));
+  }
+
+  private void assertSameMatches(List<Rule> rules, AnalyzedSentence sentence, PatternRuleAutomaton.Scan scan) throws IOException {
+    for (int i = 0; i < rules.size(); i++) {
+      assertThat(rules.get(i).getId(), Arrays.asList(scan.match(i)), is(Arrays.asList(rules.get(i).match(sentence))));
+    }
+  }
+
+  private BitSet bits(int... indices) {
+    BitSet bits = new BitSet();
+    for (int i : indices) {
+      bits.set(i);
+    }
+    return bits;
+  }
+
+  private PatternToken token(String token) {
+    return token(token, false);
+  }
+
+  private PatternToken token(String token, boolean caseSensitive) {
+    return new PatternToken(token, caseSensitive, false, false);
+  }
+
+  private PatternToken optional(PatternToken patternToken) {
+    patternToken.setMinOccurrence(0);
+    return patternToken;
+  }
+
+  private PatternToken posToken(String posTag) {
+    PatternToken patternToken = new PatternToken(null, false, false, false);
+    patternToken.setPosToken(new PatternToken.PosToken(posTag, true, false));
+    return patternToken;
+  }
+
+  private PatternRule rule(PatternToken... patternTokens) {
+    return new PatternRule("ID", LANG, Arrays.asList(patternTokens), "description", "message", "short message");
+  }
+
+  // tokens like "walks/VBZ/walk":
+  private AnalyzedSentence sentence(String... tokens) {
+    List<AnalyzedTokenReadings> readings = new ArrayList<>();
+    readings.add(new AnalyzedTokenReadings(new AnalyzedToken("", JLanguageTool.SENTENCE_START_TAGNAME, null), 0));
+    int pos = 0;
+    for (String token : tokens) {
+      String[] parts = token.split("/");
+      readings.add(new AnalyzedTokenReadings(new AnalyzedToken(parts[0], parts[1], parts[2]), pos));
+      pos += parts[0].length() + 1;
+    }
+    return new AnalyzedSentence(readings.toArray(new AnalyzedTokenReadings[readings.size()]));
+  }
+
+}
@@ -0,0 +1,161 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Test;
+import org.languagetool.*;
+import org.languagetool.rules.MultipleWhitespaceRule;
+import org.languagetool.rules.Rule;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule.DisambiguatorAction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class PatternRuleIndexTest {
+
+  private static final Language LANG = TestTools.getDemoLanguage();
+
+  @Test
+  public void testGetPosTagPrefix() {
+    assertThat(getPosTagPrefix("NN", false), is("NN"));
+    assertThat(getPosTagPrefix("NN.*", true), is("NN"));
+    assertThat(getPosTagPrefix("VB[DN]", true), is("VB"));
+    assertThat(getPosTagPrefix("VBZ?", true), is("VB"));
+    assertThat(getPosTagPrefix("SUB:NOM.*", true), is("SUB:NOM"));
+    assertThat(getPosTagPrefix("NN|JJ", true), is(nullValue()));
+    assertThat(getPosTagPrefix(".*", true), is(nullValue()));
+    assertThat(getPosTagPrefix("(?i)nn", true), is(nullValue()));
+    assertThat(getPosTagPrefix("N?", true), is(nullValue()));
+    // UNKNOWN also matches tokens without a tag:
+    assertThat(getPosTagPrefix("UNKNOWN", false), is(nullValue()));
+    assertThat(getPosTagPrefix("UNKNOWN|NN", true), is(nullValue()));
+  }
+
+  @Test
+  public void testCanBeIgnoredForPosTags() {
+    PatternRule rule = rule(posToken("VB.*", true, false), posToken("NN", false, false));
+    assertThat(rule.canBeIgnoredFor(sentence("walks/VBZ/walk", "big/JJ/big")), is(true));
+    assertThat(rule.canBeIgnoredFor(sentence("big/JJ/big", "dog/NN/dog")), is(true));
+    assertThat(rule.canBeIgnoredFor(sentence("walks/VBZ/walk", "dog/NN/dog")), is(false));
+    PatternRule negatedRule = rule(posToken("VB.*", true, true));
+    assertThat(negatedRule.canBeIgnoredFor(sentence("dog/NN/dog")), is(false));
+  }
+
+  @Test
+  public void testGetCandidates() {
+    List<Rule> rules = new ArrayList<>();
+    rules.add(rule(new PatternToken("foo", false, false, false)));                           // 0
+    rules.add(rule(new PatternToken("walk", false, false, true)));                           // 1
+    rules.add(rule(posToken("VB.*", true, false)));                                          // 2
+    rules.add(rule(posToken("NN", false, false), new PatternToken("bar", false, false, false)));  // 3
+    rules.add(rule(posToken("VB.*", true, true)));                                           // 4
+    rules.add(new MultipleWhitespaceRule(TestTools.getEnglishMessages(), LANG));            // 5
+    rules.add(rule(posToken("NN.*", true, false), posToken("VBZ", false, false)));           // 6
+    PatternRuleIndex index = new PatternRuleIndex(rules);
+    assertCandidates(index, sentence("Foo/XX/foo"), 0, 4, 5);
+    assertCandidates(index, sentence("walked/VBD/walk"), 1, 2, 4, 5);
+    assertCandidates(index, sentence("dog/NN/dog", "bar/XX/bar"), 3, 4, 5);
+    assertCandidates(index, sentence("dog/NN/dog", "walks/VBZ/walk", "bar/XX/bar"), 1, 2, 3, 4, 5, 6);
+    assertCandidates(index, sentence("dogs/NNS/dog", "runs/VBZ/run"), 2, 4, 5, 6);
+  }
+
+  @Test
+  public void testAddCandidates() {
+    List<Rule> rules = new ArrayList<>();
+    rules.add(rule(new PatternToken("foo", false, false, false)));                           // 0
+    rules.add(new DisambiguationPatternRule("ID", "description", LANG,
+            Arrays.asList(posToken("NN", false, false)), null, null, DisambiguatorAction.IMMUNIZE));  // 1
+    rules.add(rule(posToken("VB.*", true, false)));                                          // 2
+    rules.add(rule(new PatternToken("bar", false, false, false)));                           // 3
+    PatternRuleIndex index = new PatternRuleIndex(rules);
+    assertCandidates(index, sentence("dog/NN/dog"), 1);
+    BitSet candidates = new BitSet();
+    candidates.set(3);
+    index.addCandidates(sentence("foo/NN/foo", "walks/VBZ/walk"), 1, candidates);
+    BitSet expected = new BitSet();
+    expected.set(1);
+    expected.set(2);
+    expected.set(3);
+    assertThat(candidates, is(expected));
+  }
+
+  @Test
+  public void testSameAsCanBeIgnoredFor() throws IOException {
+    JLanguageTool lt = new JLanguageTool(LANG);
+    List<Rule> rules = lt.getAllRules();
+    PatternRuleIndex index = new PatternRuleIndex(rules);
+    for (String text : Arrays.asList("This is a test sentence.", "Foo bar blah.", "An sentence with a error in the Hitchhiker's Guide tot he Galaxy",
+            "Und hier ist ein Test.", "Here's another test.")) {
+      for (AnalyzedSentence sentence : lt.analyzeText(text)) {
+        BitSet expected = new BitSet();
+        for (int i = 0; i < rules.size(); i++) {
+          Rule rule = rules.get(i);
+          if (!(rule instanceof PatternRule) || !((PatternRule) rule).canBeIgnoredFor(sentence)) {
+            expected.set(i);
+          }
+        }
+        assertThat(index.getCandidates(sentence), is(expected));
+      }
+    }
+  }
+
+  private void assertCandidates(PatternRuleIndex index, AnalyzedSentence sentence, int... expected) {
+    BitSet expectedBits = new BitSet();
+    for (int i : expected) {
+      expectedBits.set(i);
+    }
+    assertThat(index.getCandidates(sentence), is(expectedBits));
+  }
+
+  private String getPosTagPrefix(String posTag, boolean regex) {
+    return PatternRule.getPosTagPrefix(posToken(posTag, regex, false));
+  }
+
+  private PatternToken posToken(String posTag, boolean regex, boolean negation) {
+    PatternToken patternToken = new PatternToken(null, false, false, false);
+    patternToken.setPosToken(new PatternToken.PosToken(posTag, regex, negation));
+    return patternToken;
+  }
+
+  private PatternRule rule(PatternToken... patternTokens) {
+    return new PatternRule("ID", LANG, Arrays.asList(patternTokens), "description", "message", "short message");
+  }
+
+  // tokens like "walks/VBZ/walk":
+  private AnalyzedSentence sentence(String... tokens) {
+    List<AnalyzedTokenReadings> readings = new ArrayList<>();
+    readings.add(new AnalyzedTokenReadings(new AnalyzedToken("", JLanguageTool.SENTENCE_START_TAGNAME, null), 0));
+    int pos = 0;
+    for (String token : tokens) {
+      String[] parts = token.split("/");
+      readings.add(new AnalyzedTokenReadings(new AnalyzedToken(parts[0], parts[1], parts[2]), pos));
+      pos += parts[0].length() + 1;
+    }
+    return new AnalyzedSentence(readings.toArray(new AnalyzedTokenReadings[readings.size()]));
+  }
+
+}
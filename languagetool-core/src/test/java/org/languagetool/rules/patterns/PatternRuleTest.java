@@ -44,6 +44,10 @@ public class PatternRuleTest extends TestCase {
   // This check prints a warning for affected rules, but it's disabled by default because
   // it makes the tests very slow:
   private static final boolean CHECK_WITH_SENTENCE_SPLITTING = false;
+
+  // all rules compiled into one automaton, which must find the same matches as each rule:
+  private PatternRuleAutomaton automaton;
+  private final Map<Rule, Integer> automatonRuleIndices = new IdentityHashMap<>();
   
   public void testFake() {
     // there's no test here - the languages are supposed to extend this class and call runGrammarRulesFromXmlTest() 
@@ -247,6 +251,7 @@ public class PatternRuleTest extends TestCase {
                                        final JLanguageTool languageTool,
                                        final JLanguageTool allRulesLanguageTool, final Language lang) throws IOException {
     final Map<String, PatternRule> complexRules = new HashMap<>();
+    initAutomaton(allRulesLanguageTool);
     for (final PatternRule rule : rules) {
       testCorrectSentences(languageTool, allRulesLanguageTool, lang, rule);
       testBadSentences(languageTool, allRulesLanguageTool, lang, complexRules, rule);
@@ -446,6 +451,26 @@ public class PatternRuleTest extends TestCase {
     }
   }
 
+  private void initAutomaton(JLanguageTool allRulesLanguageTool) {
+    final List<Rule> allRules = allRulesLanguageTool.getAllRules();
+    automaton = new PatternRuleAutomaton(allRules);
+    automatonRuleIndices.clear();
+    for (int i = 0; i < allRules.size(); i++) {
+      automatonRuleIndices.put(allRules.get(i), i);
+    }
+  }
+
+  private void assertSameMatchesWithAutomaton(Rule rule, AnalyzedSentence analyzedSentence, RuleMatch[] matches) throws IOException {
+    final Integer ruleIndex = automatonRuleIndices.get(rule);
+    if (automaton != null && ruleIndex != null) {
+      final BitSet candidates = new BitSet();
+      candidates.set(ruleIndex);
+      final RuleMatch[] automatonMatches = automaton.scan(analyzedSentence, candidates).match(ruleIndex);
+      assertEquals("Matches with " + automaton.getClass().getSimpleName() + " differ for rule " + rule
+              + " in: " + analyzedSentence, Arrays.asList(matches), Arrays.asList(automatonMatches));
+    }
+  }
+
   protected String cleanXML(final String str) {
     return str.replaceAll("<([^<].*?)>", "");
   }
@@ -453,6 +478,7 @@ public class PatternRuleTest extends TestCase {
   private boolean match(final Rule rule, final String sentence, final JLanguageTool languageTool) throws IOException {
     final AnalyzedSentence analyzedSentence = languageTool.getAnalyzedSentence(sentence);
     final RuleMatch[] matches = rule.match(analyzedSentence);
+    assertSameMatchesWithAutomaton(rule, analyzedSentence, matches);
     return matches.length > 0;
   }
 
@@ -460,6 +486,7 @@ public class PatternRuleTest extends TestCase {
       final JLanguageTool languageTool) throws IOException {
     final AnalyzedSentence analyzedSentence = languageTool.getAnalyzedSentence(sentence);
     final RuleMatch[] matches = rule.match(analyzedSentence);
+    assertSameMatchesWithAutomaton(rule, analyzedSentence, matches);
     if (CHECK_WITH_SENTENCE_SPLITTING) {
       // "real check" with sentence splitting:
       for (Rule r : languageTool.getAllActiveRules()) {
@@ -0,0 +1,90 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class StringMatcherTest {
+
+  private static final List<String> STRINGS = Arrays.asList("", "a", "A", "ab", "NN", "NNS", "NN:UN", "JJ", "VBZ",
+          "Straße", "STRASSE", "strasse", "ǅ", "ǆ", "Ǆ", "İ", "i", "I", "ı", "K", "k", "K", "s", "S", "ſ",
+          "ß", "ẞ", "é", "É", "ЇЖАК", "їжак", "σ", "Σ", "ς", "x\n", "\n", "a.b", "a-b", "12", "1.5", " ", "\t");
+
+  @Test
+  public void testAutomaton() {
+    assertAutomaton("NN.*|JJ.*");
+    assertAutomaton("(?iu)foo|bar|straat|é");
+    assertAutomaton("(?iu)[a-z].*");
+    assertAutomaton("(?iu)[^sk]+");
+    assertAutomaton("(?iu)їжак|ς");
+    assertAutomaton("VB[DGNPZ]?|MD");
+    assertAutomaton("(?:a|)b?");
+    assertAutomaton("\\d+([\\.\\-]\\d+)*");
+    assertAutomaton("[\\d., ]+\\s?");
+    assertAutomaton("a{1,2}b{2}c{1,}");
+    assertAutomaton("a.*?b|c+?");
+    assertAutomaton("^NN.*$|^JJ$");
+    assertAutomaton("[-a]|[a-]");
+    assertAutomaton("");
+  }
+
+  @Test
+  public void testRegex() {
+    assertRegex("\\p{Lu}\\p{Ll}+");
+    assertRegex("(.)\\1");
+    assertRegex("(?!NN).*");
+    assertRegex("a(?i)b");
+    assertRegex("a++");
+    assertRegex("[a-z&&[^b]]");
+    assertRegex("a$b");
+    assertRegex("\\w+");
+    assertRegex("(?iu)ß.*");  // matched differently as a single character and in a sequence
+  }
+
+  @Test(expected = java.util.regex.PatternSyntaxException.class)
+  public void testInvalid() {
+    StringMatcher.create("a(b");
+  }
+
+  private void assertAutomaton(String regex) {
+    StringMatcher matcher = StringMatcher.create(regex);
+    assertTrue(regex, matcher.isAutomaton());
+    assertSameMatches(regex, matcher);
+  }
+
+  private void assertRegex(String regex) {
+    StringMatcher matcher = StringMatcher.create(regex);
+    assertFalse(regex, matcher.isAutomaton());
+    assertSameMatches(regex, matcher);
+  }
+
+  private void assertSameMatches(String regex, StringMatcher matcher) {
+    Pattern pattern = Pattern.compile(regex);
+    for (String s : STRINGS) {
+      assertEquals(regex + " on '" + s + "'", pattern.matcher(s).matches(), matcher.matches(s));
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Test;
+import org.languagetool.AnalyzedToken;
+
+import static org.junit.Assert.*;
+
+public class TokenPredicatesTest {
+
+  @Test
+  public void testIntern() {
+    TokenPredicates predicates = new TokenPredicates();
+    PatternToken token1 = new PatternToken("foo|bar", false, true, false);
+    PatternToken token2 = new PatternToken("foo|bar", false, true, false);
+    PatternToken caseSensitive = new PatternToken("foo|bar", true, true, false);
+    PatternToken inflected = new PatternToken("foo|bar", false, true, true);
+    token1.intern(predicates);
+    token2.intern(predicates);
+    caseSensitive.intern(predicates);
+    inflected.intern(predicates);
+    assertEquals(3, predicates.size());
+
+    PatternToken posToken1 = new PatternToken(null, false, false, false);
+    posToken1.setPosToken(new PatternToken.PosToken("NN.*", true, false));
+    PatternToken posToken2 = new PatternToken(null, false, false, false);
+    posToken2.setPosToken(new PatternToken.PosToken("NN.*", true, true));
+    posToken1.intern(predicates);
+    posToken2.intern(predicates);
+    assertEquals(4, predicates.size());
+    assertEquals("4 predicates, 2 POS tokens", predicates.toString());
+
+    AnalyzedToken foo = new AnalyzedToken("Foo", "NNS", "bar");
+    assertTrue(token1.isMatched(foo));
+    assertTrue(token2.isMatched(foo));
+    assertFalse(caseSensitive.isMatched(foo));
+    assertTrue(inflected.isMatched(foo));
+    assertTrue(posToken1.isMatched(foo));
+    assertFalse(posToken2.isMatched(foo));
+    // the cached results give the same answers:
+    assertTrue(token1.isMatched(foo));
+    assertFalse(caseSensitive.isMatched(foo));
+    assertFalse(posToken2.isMatched(foo));
+    assertFalse(token1.isMatched(new AnalyzedToken("baz", "VB", "foo")));
+    assertTrue(inflected.isMatched(new AnalyzedToken("baz", "VB", "foo")));
+  }
+
+  @Test
+  public void testSamePredicate() {
+    TokenPredicates predicates = new TokenPredicates();
+    TokenPredicate predicate = predicates.getPredicate(TokenPredicate.Target.TOKEN, "a.*");
+    assertSame(predicate, predicates.getPredicate(TokenPredicate.Target.TOKEN, "a.*"));
+    assertNotSame(predicate, predicates.getPredicate(TokenPredicate.Target.POS_TAG, "a.*"));
+    assertSame(predicates.getPosToken("a.*", false), predicates.getPosToken("a.*", false));
+    assertNotSame(predicates.getPosToken("a.*", false), predicates.getPosToken("a.*", true));
+    assertEquals(2, predicates.size());
+  }
+
+}
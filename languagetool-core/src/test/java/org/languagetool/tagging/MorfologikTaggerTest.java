@@ -21,7 +21,9 @@ package org.languagetool.tagging;
 import org.junit.Test;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
@@ -52,4 +54,35 @@ public class MorfologikTaggerTest {
     assertThat(noResult.size(), is(0));
   }
 
+  @Test
+  public void testTagMultiThreaded() throws Exception {
+    URL url = MorfologikTaggerTest.class.getResource("/org/languagetool/tagging/test.dict");
+    final MorfologikTagger tagger = new MorfologikTagger(url);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() {
+            int count = 0;
+            for (int j = 0; j < 1000; j++) {
+              List<TaggedWord> result = tagger.tag(j % 2 == 0 ? "lowercase" : "schön");
+              count += result.size();
+              if (j % 2 == 1) {
+                assertThat(result.get(0).getLemma(), is("testlemma"));
+              }
+            }
+            return count;
+          }
+        }));
+      }
+      for (Future<Integer> future : futures) {
+        assertThat(future.get(), is(1500));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
 }
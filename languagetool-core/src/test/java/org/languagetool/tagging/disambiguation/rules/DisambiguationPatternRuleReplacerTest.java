@@ -0,0 +1,92 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tagging.disambiguation.rules;
+
+import org.junit.Test;
+import org.languagetool.*;
+import org.languagetool.rules.patterns.PatternToken;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule.DisambiguatorAction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class DisambiguationPatternRuleReplacerTest {
+
+  @Test
+  public void testReuse() throws IOException {
+    Language lang = TestTools.getDemoLanguage();
+    JLanguageTool lt = new JLanguageTool(lang);
+    DisambiguationPatternRule rule = new DisambiguationPatternRule("ID", "description", lang,
+            Arrays.asList(new PatternToken("foo", false, false, false), new PatternToken("bar", false, false, false)),
+            null, null, DisambiguatorAction.IMMUNIZE);
+    DisambiguationPatternRuleReplacer replacer = new DisambiguationPatternRuleReplacer(rule);
+    for (int i = 0; i < 2; i++) {
+      AnalyzedSentence result = replacer.replace(lt.getAnalyzedSentence("This is foo bar."));
+      assertThat(getImmunizedCount(result), is(2));
+      AnalyzedSentence other = lt.getAnalyzedSentence("This is bar foo.");
+      assertThat(replacer.replace(other), sameInstance(other));
+    }
+  }
+
+  @Test
+  public void testFilterReuse() throws IOException {
+    Language lang = TestTools.getDemoLanguage();
+    DisambiguationPatternRule rule = new DisambiguationPatternRule("ID", "description", lang,
+            Arrays.asList(new PatternToken("foo", false, false, false)),
+            "VB.*", null, DisambiguatorAction.FILTER);
+    DisambiguationPatternRuleReplacer replacer = new DisambiguationPatternRuleReplacer(rule);
+    for (int i = 0; i < 2; i++) {
+      AnalyzedSentence result = replacer.replace(getSentence("foo", "NN", "VBZ"));
+      AnalyzedTokenReadings readings = result.getTokensWithoutWhitespace()[1];
+      assertThat(readings.getReadingsLength(), is(1));
+      assertThat(readings.getAnalyzedToken(0).getPOSTag(), is("VBZ"));
+      // the filter isn't applied if no reading matches:
+      AnalyzedTokenReadings unchanged = replacer.replace(getSentence("foo", "NN", "JJ")).getTokensWithoutWhitespace()[1];
+      assertThat(unchanged.getReadingsLength(), is(2));
+    }
+  }
+
+  private AnalyzedSentence getSentence(String word, String... posTags) {
+    List<AnalyzedToken> readings = new ArrayList<>();
+    for (String posTag : posTags) {
+      readings.add(new AnalyzedToken(word, posTag, word));
+    }
+    return new AnalyzedSentence(new AnalyzedTokenReadings[] {
+            new AnalyzedTokenReadings(new AnalyzedToken("", JLanguageTool.SENTENCE_START_TAGNAME, null), 0),
+            new AnalyzedTokenReadings(readings, 0)
+    });
+  }
+
+  private int getImmunizedCount(AnalyzedSentence sentence) {
+    int count = 0;
+    for (AnalyzedTokenReadings token : sentence.getTokensWithoutWhitespace()) {
+      if (token.isImmunized()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+}
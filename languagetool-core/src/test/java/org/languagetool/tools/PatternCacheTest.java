@@ -0,0 +1,58 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.Assert.*;
+
+public class PatternCacheTest {
+
+  @Test
+  public void testCompile() {
+    PatternCache cache = new PatternCache(2);
+    assertEquals(1.0, cache.getHitRate(), 0.0);
+    Pattern pattern = cache.compile("NN.*");
+    assertTrue(pattern.matcher("NNS").matches());
+    assertSame(pattern, cache.compile("NN.*"));
+    assertNotSame(pattern, cache.compile("JJ.*"));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(1.0 / 3, cache.getHitRate(), 0.0001);
+    assertEquals(2, cache.size());
+    cache.compile("VB.*");
+    assertEquals(2, cache.size());
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+  }
+
+  @Test(expected = PatternSyntaxException.class)
+  public void testInvalid() {
+    new PatternCache(10).compile("a(b");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    new PatternCache(0);
+  }
+
+}
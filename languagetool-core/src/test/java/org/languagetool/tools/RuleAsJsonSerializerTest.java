@@ -0,0 +1,129 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import org.junit.Test;
+import org.languagetool.FakeLanguage;
+import org.languagetool.Language;
+import org.languagetool.TestTools;
+import org.languagetool.rules.ITSIssueType;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.patterns.PatternRule;
+import org.languagetool.rules.patterns.PatternToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class RuleAsJsonSerializerTest {
+
+  private static final RuleAsJsonSerializer SERIALIZER = new RuleAsJsonSerializer();
+  private static final Language LANG = TestTools.getDemoLanguage();
+
+  @Test
+  public void testNoMatches() throws IOException {
+    String json = SERIALIZER.ruleMatchesToJson(Collections.<RuleMatch>emptyList(), "Fake", 5, LANG);
+    assertTrue(json.startsWith("{\"software\":{\"name\":\"LanguageTool\",\"version\":\""));
+    assertTrue(json.endsWith(",\"language\":{\"name\":\"Testlanguage\",\"code\":\"xx-XX\"},\"matches\":[]}"));
+  }
+
+  @Test
+  public void testMotherTongue() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    SERIALIZER.ruleMatchesToJson(Collections.<RuleMatch>emptyList(), "Fake", 5, LANG, new FakeLanguage(), out);
+    assertTrue(out.toString("UTF-8").contains(
+            "\"language\":{\"name\":\"Testlanguage\",\"code\":\"xx-XX\",\"motherTongueName\":\"FakeLanguage\",\"motherTongueCode\":\"yy\"}"));
+  }
+
+  @Test
+  public void testRuleMatchesToJson() throws IOException {
+    String text = "This is an test sentence. Here's another sentence with more text.";
+    RuleMatch match = new RuleMatch(new FakeRule(), 8, 10, "Use <suggestion>a</suggestion> \"here\"");
+    match.setSuggestedReplacement("a");
+    match.setColumn(99);
+    match.setEndColumn(100);
+    match.setLine(44);
+    match.setEndLine(45);
+    String json = SERIALIZER.ruleMatchesToJson(Collections.singletonList(match), text, 5, LANG);
+    assertTrue(json, json.endsWith("\"matches\":[{\"message\":\"Use 'a' \\\"here\\\"\",\"replacements\":[\"a\"]," +
+            "\"offset\":8,\"length\":2,\"fromY\":44,\"fromX\":98,\"toY\":45,\"toX\":99," +
+            "\"context\":{\"text\":\"...s is an test...\",\"offset\":8,\"length\":2}," +
+            "\"rule\":{\"id\":\"FAKE_ID\",\"subId\":\"1\",\"description\":\"My fake description\",\"issueType\":\"misspelling\"}}]}"));
+  }
+
+  @Test
+  public void testEscaping() throws IOException {
+    String text = "Tab\there, line\nbreak, \u0001 control, \"quote\" back\\slash, äöü € 😀.";
+    RuleMatch match = new RuleMatch(new FakeRule(), 0, text.length(), text);
+    List<String> replacements = Arrays.asList("😀", "a\uD800b");
+    match.setSuggestedReplacements(replacements);
+    String json = SERIALIZER.ruleMatchesToJson(Collections.singletonList(match), text, 5, LANG);
+    assertTrue(json, json.contains("\"message\":\"Tab\\there, line\\nbreak, \\u0001 control, \\\"quote\\\" back\\\\slash, äöü € 😀.\""));
+    // an unpaired surrogate is escaped:
+    assertTrue(json, json.contains("\"replacements\":[\"😀\",\"a\\ud800b\"]"));
+  }
+
+  @Test
+  public void testLongOutput() throws IOException {
+    // more output than fits into the buffer:
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      sb.append("äöü ");
+    }
+    String text = sb.toString();
+    RuleMatch match = new RuleMatch(new FakeRule(), 0, text.length(), text);
+    String json = SERIALIZER.ruleMatchesToJson(Collections.singletonList(match), text, 5, LANG);
+    assertTrue(json.contains("\"message\":\"" + text + "\""));
+    assertTrue(json.endsWith("}]}"));
+  }
+
+  @Test
+  public void testBatch() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    RuleAsJsonSerializer.BatchWriter writer = SERIALIZER.startBatch(out, 5);
+    String text = "This is an test.";
+    writer.writeResult("a", LANG, Collections.singletonList(new RuleMatch(new FakeRule(), 8, 10, "msg")), text);
+    writer.flush();
+    assertTrue(out.toString("UTF-8").contains("\"results\":[{\"id\":\"a\",\"language\":{\"name\":\"Testlanguage\",\"code\":\"xx-XX\"},\"matches\":[{\"message\":\"msg\""));
+    writer.writeError("b", "Unknown language");
+    writer.finish();
+    String json = out.toString("UTF-8");
+    assertTrue(json.startsWith("{\"software\":{\"name\":\"LanguageTool\""));
+    assertTrue(json, json.endsWith("\"misspelling\"}}]},{\"id\":\"b\",\"error\":\"Unknown language\"}]}"));
+  }
+
+  private static class FakeRule extends PatternRule {
+    FakeRule() {
+      super("FAKE_ID", TestTools.getDemoLanguage(), Collections.singletonList(new PatternToken("foo", true, false, false)),
+              "My fake description", "Fake message", "Fake short message");
+      setSubId("1");
+    }
+    @Override
+    public ITSIssueType getLocQualityIssueType() {
+      return ITSIssueType.Misspelling;
+    }
+  }
+
+}
@@ -31,6 +31,7 @@ import org.languagetool.FakeLanguage;
 import org.languagetool.rules.patterns.PatternToken;
 import org.languagetool.rules.patterns.PatternRule;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -181,6 +182,19 @@ public class RuleAsXmlSerializerTest {
             "</matches>\n"));
   }
 
+  @Test
+  public void testRuleMatchesToStream() throws IOException {
+    final List<RuleMatch> matches = new ArrayList<>();
+    final String text = "This is an test sentence with \"quotes\" and umlauts: äöü.";
+    final RuleMatch match1 = new RuleMatch(new FakeRule(), 8, 10, "my <suggestion>Message</suggestion>");
+    match1.setSuggestedReplacement("ä");
+    matches.add(match1);
+    matches.add(new RuleMatch(new FakeRule(), 30, 38, "another message"));
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    SERIALIZER.ruleMatchesToXml(matches, text, 5, LANG, new FakeLanguage(), out);
+    assertThat(out.toString("UTF-8"), is(SERIALIZER.ruleMatchesToXml(matches, text, 5, LANG, new FakeLanguage())));
+  }
+
   private static class FakeRule extends PatternRule {
     FakeRule() {
       super("FAKE_ID", TestTools.getDemoLanguage(), Collections.singletonList(new PatternToken("foo", true, false, false)),
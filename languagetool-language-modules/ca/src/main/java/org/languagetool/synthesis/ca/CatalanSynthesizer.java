@@ -24,9 +24,6 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import morfologik.stemming.IStemmer;
-import morfologik.stemming.WordData;
-
 import org.languagetool.AnalyzedToken;
 import org.languagetool.synthesis.BaseSynthesizer;
 
@@ -75,8 +72,6 @@ public class CatalanSynthesizer extends BaseSynthesizer {
 
   @Override
   public String[] synthesize(final AnalyzedToken token, final String posTag) throws IOException {
-    initPossibleTags();
-    Pattern p;
     boolean addDt = false; 
     String prep = ""; 
     final Matcher mPrep = pPrep.matcher(posTag);
@@ -86,24 +81,16 @@ public class CatalanSynthesizer extends BaseSynthesizer {
         prep=mPrep.group(2); // add preposition before article
       }
     }
-    if (addDt) {
-      p = Pattern.compile("N.*|A.*|V.P.*|PX.");
-    } else {
-      p = Pattern.compile(posTag);
-    }
+    final List<String> tags = getMatchingTags(addDt ? "N.*|A.*|V.P.*|PX." : posTag);
     final List<String> results = new ArrayList<>();
-    final IStemmer synthesizer = createStemmer();
-    
-    for (final String tag : possibleTags) {
-      final Matcher m = p.matcher(tag);
-      if (m.matches()) {
-        if (addDt) {
-          lookupWithEl(token.getLemma(), tag, prep, results, synthesizer);
-        } else {
-          lookup(token.getLemma(), tag, results);
-        }
+
+    for (final String tag : tags) {
+      if (addDt) {
+        lookupWithEl(token.getLemma(), tag, prep, results);
+      } else {
+        lookup(token.getLemma(), tag, results);
       }
-    }       
+    }
     
     // if not found, try verbs from any regional variant
     if ((results.size() == 0) && posTag.startsWith("V")) {
@@ -121,37 +108,22 @@ public class CatalanSynthesizer extends BaseSynthesizer {
   public String[] synthesize(final AnalyzedToken token, final String posTag,
       final boolean posTagRegExp) throws IOException {
     if (posTagRegExp) {
-      initPossibleTags();
-      Pattern p = Pattern.compile(posTag);
       final List<String> results = new ArrayList<>();
-      for (final String tag : possibleTags) {
-        final Matcher m = p.matcher(tag);
-        if (m.matches()) {
-          lookup(token.getLemma(), tag, results);
-        }
+      for (final String tag : getMatchingTags(posTag)) {
+        lookup(token.getLemma(), tag, results);
       }
       // if not found, try verbs from any regional variant
       if ((results.size() == 0)) {
         final Matcher mVerb = pVerb.matcher(posTag);
         if (mVerb.matches()) {
           if (!posTag.endsWith("0")) {
-            p = Pattern.compile(posTag.substring(0, posTag.length() - 1)
-                .concat("0"));
-            for (final String tag : possibleTags) {
-              final Matcher m = p.matcher(tag);
-              if (m.matches()) {
-                lookup(token.getLemma(), tag, results);
-              }
+            for (final String tag : getMatchingTags(posTag.substring(0, posTag.length() - 1).concat("0"))) {
+              lookup(token.getLemma(), tag, results);
             }
           }
           if (results.size() == 0) { // another try
-            p = Pattern.compile(posTag.substring(0, posTag.length() - 1)
-                .concat("."));
-            for (final String tag : possibleTags) {
-              final Matcher m = p.matcher(tag);
-              if (m.matches()) {
-                lookup(token.getLemma(), tag, results);
-              }
+            for (final String tag : getMatchingTags(posTag.substring(0, posTag.length() - 1).concat("."))) {
+              lookup(token.getLemma(), tag, results);
             }
           }
         }
@@ -168,16 +140,15 @@ public class CatalanSynthesizer extends BaseSynthesizer {
    * @param lemma the lemma to be inflected.
    * @param posTag the desired part-of-speech tag.
    * @param results the list to collect the inflected forms.
-   * @param synthesizer the stemmer to use.
    */
-  private void lookupWithEl(String lemma, String posTag, String prep, List<String> results, IStemmer synthesizer) {
-    final List<WordData> wordForms = synthesizer.lookup(lemma + "|" + posTag);
+  private void lookupWithEl(String lemma, String posTag, String prep, List<String> results) {
+    final List<String> wordForms = new ArrayList<>();
+    lookup(lemma, posTag, wordForms);
     final Matcher mMS = pMS.matcher(posTag);
     final Matcher mFS = pFS.matcher(posTag);
     final Matcher mMP = pMP.matcher(posTag);
     final Matcher mFP = pFP.matcher(posTag);
-    for (WordData wd : wordForms) {
-      final String word = wd.getStem().toString();
+    for (String word : wordForms) {
       if (mMS.matches()) {
         final Matcher mMascYes = pMascYes.matcher(word);
         final Matcher mMascNo = pMascNo.matcher(word);
@@ -20,7 +20,13 @@
 package org.languagetool.synthesis.en;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.TestCase;
 
@@ -58,4 +64,30 @@ public class EnglishSynthesizerTest extends TestCase {
     assertEquals("[the hour]", Arrays.toString(synth.synthesize(dummyToken("hours", "hour"), "NN\\+DT", true)));
   }
 
+  public final void testSynthesizeMultiThreaded() throws Exception {
+    final EnglishSynthesizer synth = new EnglishSynthesizer();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() throws IOException {
+            String result = null;
+            for (int j = 0; j < 200; j++) {
+              result = Arrays.toString(synth.synthesize(dummyToken("test"), "VBD|VBG", true))
+                + Arrays.toString(synth.synthesize(dummyToken("be"), "VBD"));
+            }
+            return result;
+          }
+        }));
+      }
+      for (Future<String> future : futures) {
+        assertEquals("[tested, testing][was, were]", future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
 }
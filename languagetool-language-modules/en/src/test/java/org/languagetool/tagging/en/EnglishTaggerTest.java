@@ -20,6 +20,7 @@ package org.languagetool.tagging.en;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.TestCase;
@@ -79,4 +80,22 @@ public class EnglishTaggerTest extends TestCase {
     assertEquals("work", aToken.get(1).getReadings().get(1).getLemma());
   }
 
+  public void testWordCache() throws IOException {
+    EnglishTagger tagger = new EnglishTagger();
+    List<String> words = Arrays.asList("house", "house");
+    List<AnalyzedTokenReadings> tokens = tagger.tag(words);
+    assertEquals(1, tagger.getWordCacheMissCount());
+    assertEquals(1, tagger.getWordCacheHitCount());
+    assertEquals(tokens.get(0).toString(), tokens.get(1).toString());
+    // readings that are changed later (e.g. by the disambiguator) must not end up in the cache:
+    assertNotSame(tokens.get(0).getAnalyzedToken(0), tokens.get(1).getAnalyzedToken(0));
+    tokens.get(1).setWhitespaceBefore(true);
+    assertFalse(tagger.tag(words).get(0).isWhitespaceBefore());
+
+    tagger.setWordCacheSize(0);
+    tagger.tag(words);
+    assertEquals(1, tagger.getWordCacheMissCount());
+    assertEquals(3, tagger.getWordCacheHitCount());
+  }
+
 }
@@ -20,7 +20,6 @@ package org.languagetool.synthesis.pl;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -34,6 +33,7 @@ import morfologik.stemming.WordData;
 
 import org.languagetool.AnalyzedToken;
 import org.languagetool.JLanguageTool;
+import org.languagetool.databroker.DefaultResourceDataBroker;
 import org.languagetool.synthesis.Synthesizer;
 import org.languagetool.synthesis.SynthesizerTools;
 
@@ -62,8 +62,7 @@ public class PolishSynthesizer implements Synthesizer {
       synchronized (this) {
         result = this.dictionary;
         if (result == null) {
-          final URL url = JLanguageTool.getDataBroker().getFromResourceDirAsUrl(RESOURCE_FILENAME);
-          this.dictionary = result = Dictionary.read(url);
+          this.dictionary = result = DefaultResourceDataBroker.getDictionary(JLanguageTool.getDataBroker(), RESOURCE_FILENAME);
         }
       }
     }
@@ -55,15 +55,16 @@ public class RomanianSynthesizer extends BaseSynthesizer {
   }
 
   @Override
-  protected void initPossibleTags() throws IOException {
-    super.initPossibleTags();
+  protected List<String> loadPossibleTags() throws IOException {
+    final List<String> tags = super.loadPossibleTags();
     initSynth();
     // add any possible tag from manual synthesiser
     for (String tag : manualSynthesizer.getPossibleTags()) {
-      if (!possibleTags.contains(tag)) {
-        possibleTags.add(tag);
+      if (!tags.contains(tag)) {
+        tags.add(tag);
       }
     }
+    return tags;
   }
 
   private void initSynth() {
@@ -19,7 +19,14 @@
 package org.languagetool.synthesis.ro;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.TestCase;
 
@@ -79,6 +86,31 @@ public class RomanianSynthesizerTest extends TestCase {
     
   }
 
+  public final void testAddedTagsMultiThreaded() throws Exception {
+    // the tags of /ro/added.txt are added to the possible tags, all threads need to see them:
+    final RomanianSynthesizer synth = new RomanianSynthesizer();
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            start.await();
+            return Arrays.toString(synth.synthesize(dummyToken("configura"), "V0.2000cz0", true));
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<String> future : futures) {
+        assertEquals("[configurați, configurezi]", future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   private AnalyzedToken dummyToken(String tokenStr) {
     return new AnalyzedToken(tokenStr, tokenStr, tokenStr);
   }
@@ -0,0 +1,232 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * The texts of a batch request, sent as a JSON array of objects like this:
+ * <pre>
+ * [{"id": "1", "language": "en-US", "text": "A first text."},
+ *  {"id": "2", "language": "de-DE", "text": "Ein zweiter Text."}]
+ * </pre>
+ * {@code id} is optional (the position in the array is used then), other properties are ignored.
+ * @since 3.1
+ */
+final class BatchRequest {
+
+  private BatchRequest() {
+  }
+
+  /**
+   * @throws IllegalArgumentException if the JSON is invalid or an item lacks the text
+   */
+  static List<Item> parse(String json) {
+    final Parser parser = new Parser(json);
+    final Object value = parser.parseValue();
+    parser.skipWhitespace();
+    if (parser.pos < json.length()) {
+      throw parser.error("Unexpected content after the array");
+    }
+    if (!(value instanceof List)) {
+      throw new IllegalArgumentException("Batch request must be a JSON array of objects");
+    }
+    final List<Item> items = new ArrayList<>();
+    int index = 0;
+    for (Object element : (List<?>) value) {
+      if (!(element instanceof Map)) {
+        throw new IllegalArgumentException("Item " + index + " of batch request is not a JSON object");
+      }
+      final Map<?, ?> properties = (Map<?, ?>) element;
+      final Object text = properties.get("text");
+      if (!(text instanceof String)) {
+        throw new IllegalArgumentException("Missing 'text' in item " + index + " of batch request");
+      }
+      final Object id = properties.get("id");
+      final Object language = properties.get("language");
+      items.add(new Item(index, id != null ? id.toString() : Integer.toString(index), (String) text,
+              language instanceof String ? (String) language : null));
+      index++;
+    }
+    return items;
+  }
+
+  static final class Item {
+    final int index;
+    final String id;
+    final String text;
+    final String language;
+    Item(int index, String id, String text, @Nullable String language) {
+      this.index = index;
+      this.id = id;
+      this.text = text;
+      this.language = language;
+    }
+  }
+
+  /**
+   * A minimal JSON parser: objects become maps, arrays lists, numbers and
+   * literals the strings they are written as (except {@code null}).
+   */
+  private static final class Parser {
+
+    private final String json;
+    private int pos;
+
+    private Parser(String json) {
+      this.json = json;
+    }
+
+    @Nullable
+    private Object parseValue() {
+      skipWhitespace();
+      if (pos >= json.length()) {
+        throw error("Unexpected end");
+      }
+      final char c = json.charAt(pos);
+      switch (c) {
+        case '{': return parseObject();
+        case '[': return parseArray();
+        case '"': return parseString();
+        default:
+          final int start = pos;
+          while (pos < json.length() && "{}[],:\" \t\r\n".indexOf(json.charAt(pos)) == -1) {
+            pos++;
+          }
+          if (start == pos) {
+            throw error("Unexpected character '" + c + "'");
+          }
+          final String literal = json.substring(start, pos);
+          return literal.equals("null") ? null : literal;
+      }
+    }
+
+    private Map<String, Object> parseObject() {
+      final Map<String, Object> map = new HashMap<>();
+      pos++;
+      skipWhitespace();
+      if (peek() == '}') {
+        pos++;
+        return map;
+      }
+      while (true) {
+        skipWhitespace();
+        if (peek() != '"') {
+          throw error("Expected property name");
+        }
+        final String name = parseString();
+        skipWhitespace();
+        expect(':');
+        map.put(name, parseValue());
+        skipWhitespace();
+        if (peek() == ',') {
+          pos++;
+        } else {
+          expect('}');
+          return map;
+        }
+      }
+    }
+
+    private List<Object> parseArray() {
+      final List<Object> list = new ArrayList<>();
+      pos++;
+      skipWhitespace();
+      if (peek() == ']') {
+        pos++;
+        return list;
+      }
+      while (true) {
+        list.add(parseValue());
+        skipWhitespace();
+        if (peek() == ',') {
+          pos++;
+        } else {
+          expect(']');
+          return list;
+        }
+      }
+    }
+
+    private String parseString() {
+      pos++;
+      final StringBuilder sb = new StringBuilder();
+      while (pos < json.length()) {
+        final char c = json.charAt(pos++);
+        if (c == '"') {
+          return sb.toString();
+        } else if (c == '\\') {
+          if (pos >= json.length()) {
+            break;
+          }
+          final char escaped = json.charAt(pos++);
+          switch (escaped) {
+            case 'b': sb.append('\b'); break;
+            case 'f': sb.append('\f'); break;
+            case 'n': sb.append('\n'); break;
+            case 'r': sb.append('\r'); break;
+            case 't': sb.append('\t'); break;
+            case 'u':
+              if (pos + 4 > json.length()) {
+                throw error("Invalid unicode escape");
+              }
+              try {
+                sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+              } catch (NumberFormatException e) {
+                throw error("Invalid unicode escape");
+              }
+              pos += 4;
+              break;
+            default: sb.append(escaped);  // '"', '\\' and '/'
+          }
+        } else {
+          sb.append(c);
+        }
+      }
+      throw error("Unterminated string");
+    }
+
+    private void skipWhitespace() {
+      while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    private char peek() {
+      if (pos >= json.length()) {
+        throw error("Unexpected end");
+      }
+      return json.charAt(pos);
+    }
+
+    private void expect(char c) {
+      if (peek() != c) {
+        throw error("Expected '" + c + "'");
+      }
+      pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException("Invalid JSON in batch request at position " + pos + ": " + message);
+    }
+  }
+
+}
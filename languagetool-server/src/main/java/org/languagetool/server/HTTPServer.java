@@ -96,17 +96,18 @@ public class HTTPServer extends Server {
       server = HttpServer.create(address, 0);
       final RequestLimiter limiter = getRequestLimiterOrNull(config);
       final LinkedBlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<>();
-      httpHandler = new LanguageToolHttpHandler(config.isVerbose(), allowedIps, runInternally, limiter, workQueue);
+      httpHandler = new LanguageToolHttpHandler(config.isVerbose(), allowedIps, runInternally, limiter, workQueue,
+              getCheckExecutorService(config));
       httpHandler.setMaxTextLength(config.getMaxTextLength());
+      httpHandler.setMaxBatchSize(config.getMaxBatchSize());
       httpHandler.setAllowOriginUrl(config.getAllowOriginUrl());
       httpHandler.setMaxCheckTimeMillis(config.getMaxCheckTimeMillis());
       httpHandler.setTrustXForwardForHeader(config.getTrustXForwardForHeader());
       if (config.getMode() == HTTPServerConfig.Mode.AfterTheDeadline) {
         httpHandler.setAfterTheDeadlineMode(config.getAfterTheDeadlineLanguage());
       }
-      httpHandler.setLanguageModel(config.getLanguageModelDir());
       httpHandler.setMaxWorkQueueSize(config.getMaxWorkQueueSize());
-      httpHandler.setRulesConfigurationFile(config.getRulesConfigFile());
+      httpHandler.setLanguageToolPool(getLanguageToolPool(config, runInternally));
       server.createContext("/", httpHandler);
       executorService = getExecutorService(workQueue, config);
       server.setExecutor(executorService);
@@ -25,6 +25,8 @@ import org.languagetool.Languages;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -44,16 +46,22 @@ public class HTTPServerConfig {
   protected int port = DEFAULT_PORT;
   protected String allowOriginUrl = null;
   protected int maxTextLength = Integer.MAX_VALUE;
+  protected int maxBatchSize = 100;
   protected long maxCheckTimeMillis = -1;
   protected int maxCheckThreads = 10;
   protected Mode mode;
   protected Language atdLanguage;
   protected File languageModelDir = null;
   protected int requestLimit;
+  protected int requestLimitInChars;
   protected int requestLimitPeriodInSeconds;
   protected boolean trustXForwardForHeader;
   protected int maxWorkQueueSize;
   protected File rulesConfigFile = null;
+  protected int poolSize = 0;
+  protected int poolExpireTimeInSeconds = 300;
+  protected int cacheSizeInMB = 0;
+  protected List<Language> preloadLanguages = new ArrayList<>();
 
   /**
    * Create a server configuration for the default port ({@link #DEFAULT_PORT}).
@@ -112,8 +120,10 @@ public class HTTPServerConfig {
       try (FileInputStream fis = new FileInputStream(file)) {
         props.load(fis);
         maxTextLength = Integer.parseInt(getOptionalProperty(props, "maxTextLength", Integer.toString(Integer.MAX_VALUE)));
+        maxBatchSize = Integer.parseInt(getOptionalProperty(props, "maxBatchSize", "100"));
         maxCheckTimeMillis = Long.parseLong(getOptionalProperty(props, "maxCheckTimeMillis", "-1"));
         requestLimit = Integer.parseInt(getOptionalProperty(props, "requestLimit", "0"));
+        requestLimitInChars = Integer.parseInt(getOptionalProperty(props, "requestLimitInChars", "0"));
         requestLimitPeriodInSeconds = Integer.parseInt(getOptionalProperty(props, "requestLimitPeriodInSeconds", "0"));
         trustXForwardForHeader = Boolean.valueOf(getOptionalProperty(props, "trustXForwardForHeader", "false"));
         maxWorkQueueSize = Integer.parseInt(getOptionalProperty(props, "maxWorkQueueSize", "0"));
@@ -139,6 +149,26 @@ public class HTTPServerConfig {
             throw new RuntimeException("Rules Configuration file can not be found: " + rulesConfigFile);
           }
         }
+        poolSize = Integer.parseInt(getOptionalProperty(props, "poolSize", "0"));
+        if (poolSize < 0) {
+          throw new IllegalArgumentException("Invalid value for poolSize: " + poolSize);
+        }
+        poolExpireTimeInSeconds = Integer.parseInt(getOptionalProperty(props, "poolExpireTimeInSeconds", "300"));
+        if (poolExpireTimeInSeconds < 1) {
+          throw new IllegalArgumentException("Invalid value for poolExpireTimeInSeconds: " + poolExpireTimeInSeconds);
+        }
+        cacheSizeInMB = Integer.parseInt(getOptionalProperty(props, "cacheSize", "0"));
+        if (cacheSizeInMB < 0) {
+          throw new IllegalArgumentException("Invalid value for cacheSize: " + cacheSizeInMB);
+        }
+        String preloadLanguagesStr = getOptionalProperty(props, "preloadLanguages", null);
+        if (preloadLanguagesStr != null) {
+          for (String langCode : preloadLanguagesStr.split(",")) {
+            if (!langCode.trim().isEmpty()) {
+              preloadLanguages.add(Languages.getLanguageForShortName(langCode.trim()));
+            }
+          }
+        }
       }
     } catch (IOException e) {
       throw new RuntimeException("Could not load properties from '" + file + "'", e);
@@ -180,10 +210,20 @@ public class HTTPServerConfig {
     return maxTextLength;
   }
 
+  /** @since 3.1 */
+  int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
   int getRequestLimit() {
     return requestLimit;
   }
 
+  /** @since 3.1 */
+  int getRequestLimitInChars() {
+    return requestLimitInChars;
+  }
+
   int getRequestLimitPeriodInSeconds() {
     return requestLimitPeriodInSeconds;
   }
@@ -263,6 +303,47 @@ public class HTTPServerConfig {
     return rulesConfigFile;
   }
 
+  /**
+   * @param poolSize maximum number of idle {@link org.languagetool.JLanguageTool} instances kept
+   *                 for re-use by later requests, {@code 0} creates a new instance for every request
+   * @since 3.1
+   */
+  void setPoolSize(int poolSize) {
+    this.poolSize = poolSize;
+  }
+
+  /** @since 3.1 */
+  int getPoolSize() {
+    return poolSize;
+  }
+
+  /** @since 3.1 */
+  int getPoolExpireTimeInSeconds() {
+    return poolExpireTimeInSeconds;
+  }
+
+  /**
+   * @param cacheSizeInMB estimated memory in megabytes used to cache the analysis and the rule
+   *                      matches of sentences, {@code 0} disables the cache
+   * @since 3.1
+   */
+  void setCacheSizeInMB(int cacheSizeInMB) {
+    this.cacheSizeInMB = cacheSizeInMB;
+  }
+
+  /** @since 3.1 */
+  int getCacheSizeInMB() {
+    return cacheSizeInMB;
+  }
+
+  /**
+   * @return the languages for which {@link org.languagetool.JLanguageTool} instances are created on startup
+   * @since 3.1
+   */
+  List<Language> getPreloadLanguages() {
+    return preloadLanguages;
+  }
+
   /**
    * @throws IllegalConfigurationException if property is not set 
    */
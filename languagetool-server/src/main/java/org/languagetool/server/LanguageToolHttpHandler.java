@@ -26,13 +26,18 @@ import java.util.concurrent.*;
 
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.Nullable;
+import org.languagetool.CheckContext;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.Languages;
-import org.languagetool.gui.Configuration;
+import org.languagetool.ResultCache;
+import org.languagetool.RuleProfile;
+import org.languagetool.RuleSelection;
 import org.languagetool.language.LanguageIdentifier;
+import org.languagetool.markup.AnnotatedTextBuilder;
 import org.languagetool.rules.RuleMatch;
 import org.languagetool.rules.bitext.BitextRule;
+import org.languagetool.tools.RuleAsJsonSerializer;
 import org.languagetool.tools.RuleAsXmlSerializer;
 import org.languagetool.tools.StringTools;
 import org.languagetool.tools.Tools;
@@ -45,8 +50,10 @@ import static org.languagetool.tools.StringTools.escapeForXmlContent;
 class LanguageToolHttpHandler implements HttpHandler {
 
   private static final String CONTENT_TYPE_VALUE = "text/xml; charset=UTF-8";
+  private static final String JSON_CONTENT_TYPE_VALUE = "application/json; charset=UTF-8";
   private static final String ENCODING = "utf-8";
   private static final int CONTEXT_SIZE = 40; // characters
+  private static final int DEFAULT_MAX_STATS_RULES = 100;
 
   private static int handleCount = 0;
 
@@ -60,28 +67,30 @@ class LanguageToolHttpHandler implements HttpHandler {
 
   private long maxCheckTimeMillis = -1;
   private int maxTextLength = Integer.MAX_VALUE;
+  private int maxBatchSize = Integer.MAX_VALUE;
   private String allowOriginUrl;
   private boolean afterTheDeadlineMode;
   private Language afterTheDeadlineLanguage;
-  private File languageModelDir;
   private int maxWorkQueueSize;
   private boolean trustXForwardForHeader = false;
   private Set<String> ownIps;
-  private File rulesConfigurationFile = null;
+  private LanguageToolPool languageToolPool;
   
   /**
    * Create an instance. Call {@link #shutdown()} when done.
    * @param verbose print the input text in case of exceptions
    * @param allowedIps set of IPs that may connect or <tt>null</tt> to allow any IP
    * @param requestLimiter may be null
+   * @param checkExecutor runs the text checks, requests are rejected if it cannot accept more checks
    */
-  LanguageToolHttpHandler(boolean verbose, Set<String> allowedIps, boolean internal, RequestLimiter requestLimiter, LinkedBlockingQueue<Runnable> workQueue) {
+  LanguageToolHttpHandler(boolean verbose, Set<String> allowedIps, boolean internal, RequestLimiter requestLimiter,
+                          LinkedBlockingQueue<Runnable> workQueue, ExecutorService checkExecutor) {
     this.verbose = verbose;
     this.allowedIps = allowedIps;
     this.internalServer = internal;
     this.requestLimiter = requestLimiter;
     this.workQueue = workQueue;
-    this.executorService = Executors.newCachedThreadPool();
+    this.executorService = checkExecutor;
     this.identifier = new LanguageIdentifier();
   }
 
@@ -94,9 +103,17 @@ class LanguageToolHttpHandler implements HttpHandler {
     this.maxTextLength = maxTextLength;
   }
 
+  /**
+   * Maximum number of texts in a request to {@code /batch}.
+   * @since 3.1
+   */
+  void setMaxBatchSize(int maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+  }
+
   /**
    * Maximum time allowed per check in milliseconds. If the checking takes longer, it will stop with
-   * an exception. Use {@code -1} for no limit.
+   * an exception and the check gets interrupted. Use {@code -1} for no limit.
    * @since 2.6
    */
   void setMaxCheckTimeMillis(long maxCheckTimeMillis) {
@@ -132,11 +149,6 @@ class LanguageToolHttpHandler implements HttpHandler {
     this.afterTheDeadlineLanguage = defaultLanguage;
   }
 
-  /** @since 2.7 */
-  void setLanguageModel(File languageModelDir) {
-    this.languageModelDir = languageModelDir;
-  }
-
   /**
    * @param size maximum queue size - if the queue is larger, the user will get an error. Use {@code 0} for no limit.
    * @since 2.9
@@ -149,10 +161,11 @@ class LanguageToolHttpHandler implements HttpHandler {
   }
 
   /**
-   * @since 3.0
+   * The pool that provides the configured {@link JLanguageTool} instances used for checking.
+   * @since 3.1
    */
-  void setRulesConfigurationFile(File configFile) {
-	  this.rulesConfigurationFile = configFile;
+  void setLanguageToolPool(LanguageToolPool languageToolPool) {
+    this.languageToolPool = languageToolPool;
   }
 
   @Override
@@ -169,11 +182,15 @@ class LanguageToolHttpHandler implements HttpHandler {
       // According to the Javadoc, "Closing an exchange without consuming all of the request body is
       // not an error but may make the underlying TCP connection unusable for following exchanges.",
       // so we consume the request now, even before checking for request limits:
-      final Map<String, String> parameters = getRequestQuery(httpExchange, requestedUri);
-      if (requestLimiter != null && !requestLimiter.isAccessOkay(remoteAddress)) {
+      final boolean batchRequest = requestedUri.getRawPath().endsWith("/batch");
+      final String batchBody = batchRequest ? getBatchBody(httpExchange) : null;
+      final Map<String, String> parameters = batchRequest ? parseQuery(requestedUri.getRawQuery()) : getRequestQuery(httpExchange, requestedUri);
+      final int textLength = batchRequest ? batchBody.length() : getTextLength(parameters);
+      if (requestLimiter != null && !requestLimiter.isAccessOkay(remoteAddress, textLength)) {
         final String errorMessage = "Error: Access from " + remoteAddress +
-                " denied - too many requests. Allowed maximum requests: " + requestLimiter.getRequestLimit() +
-                " requests per " + requestLimiter.getRequestLimitPeriodInSeconds() + " seconds";
+                " denied - too many requests. Allowed maximum requests: " + requestLimiter.getRequestLimit() + " requests" +
+                (requestLimiter.getRequestLimitInChars() > 0 ? " or " + requestLimiter.getRequestLimitInChars() + " characters" : "") +
+                " per " + requestLimiter.getRequestLimitPeriodInSeconds() + " seconds";
         sendError(httpExchange, HttpURLConnection.HTTP_FORBIDDEN, errorMessage);
         print(errorMessage);
         return;
@@ -188,6 +205,12 @@ class LanguageToolHttpHandler implements HttpHandler {
         if (requestedUri.getRawPath().endsWith("/Languages")) {
           // request type: list known languages
           printListOfLanguages(httpExchange);
+        } else if (requestedUri.getRawPath().endsWith("/stats")) {
+          // request type: statistics about the rules, the pool and the cache
+          printStats(httpExchange, parameters);
+        } else if (batchRequest) {
+          // request type: checking several texts, sent as JSON
+          checkBatch(batchBody, httpExchange, parameters);
         } else {
           // request type: text checking
           if (afterTheDeadlineMode) {
@@ -222,6 +245,9 @@ class LanguageToolHttpHandler implements HttpHandler {
       if (e instanceof TextTooLongException) {
         errorCode = HttpURLConnection.HTTP_ENTITY_TOO_LARGE;
         response = e.getMessage();
+      } else if (e instanceof RejectedExecutionException) {
+        errorCode = HttpURLConnection.HTTP_UNAVAILABLE;
+        response = "There are currently too many parallel requests. Please try again later.";
       } else if (e.getCause() != null && e.getCause() instanceof TimeoutException) {
         errorCode = HttpURLConnection.HTTP_UNAVAILABLE;
         response = "Checking took longer than " + maxCheckTimeMillis/1000 + " seconds, which is this server's limit. " +
@@ -303,6 +329,11 @@ class LanguageToolHttpHandler implements HttpHandler {
     }
   }
 
+  private int getTextLength(Map<String, String> parameters) {
+    final String text = parameters.get(afterTheDeadlineMode ? "data" : "text");
+    return text != null ? text.length() : 0;
+  }
+
   private Map<String, String> getRequestQuery(HttpExchange httpExchange, URI requestedUri) throws IOException {
     final String query;
     if ("post".equalsIgnoreCase(httpExchange.getRequestMethod())) {
@@ -313,11 +344,44 @@ class LanguageToolHttpHandler implements HttpHandler {
     return parseQuery(query);
   }
 
+  private String getBatchBody(HttpExchange httpExchange) throws IOException {
+    // read it in any case to consume the request, see handle():
+    final String body = StringTools.streamToString(httpExchange.getRequestBody(), ENCODING);
+    if (!"post".equalsIgnoreCase(httpExchange.getRequestMethod())) {
+      throw new IllegalArgumentException("Batch requests need to be sent with POST");
+    }
+    return body;
+  }
+
   private void printListOfLanguages(HttpExchange httpExchange) throws IOException {
     setCommonHeaders(httpExchange);
     final String response = getSupportedLanguagesAsXML();
-    httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.getBytes(ENCODING).length);
-    httpExchange.getResponseBody().write(response.getBytes(ENCODING));
+    final byte[] bytes = response.getBytes(ENCODING);
+    httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, bytes.length);
+    httpExchange.getResponseBody().write(bytes);
+  }
+
+  private void printStats(HttpExchange httpExchange, Map<String, String> parameters) throws IOException {
+    setCommonHeaders(httpExchange);
+    final String limitParam = parameters.get("limit");
+    int maxRules = DEFAULT_MAX_STATS_RULES;
+    if (limitParam != null) {
+      try {
+        maxRules = Integer.parseInt(limitParam);
+      } catch (NumberFormatException e) {
+        maxRules = -1;
+      }
+      if (maxRules < 0) {
+        final String errorMessage = "Error: 'limit' needs to be a number >= 0: '" + limitParam + "'";
+        sendError(httpExchange, HttpURLConnection.HTTP_BAD_REQUEST, errorMessage);
+        print(errorMessage);
+        return;
+      }
+    }
+    final String response = getStatsAsXML(RuleProfile.getDefault(), languageToolPool, maxRules);
+    final byte[] bytes = response.getBytes(ENCODING);
+    httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, bytes.length);
+    httpExchange.getResponseBody().write(bytes);
   }
 
   private void setCommonHeaders(HttpExchange httpExchange) {
@@ -349,30 +413,18 @@ class LanguageToolHttpHandler implements HttpHandler {
     final Language lang = getLanguage(text, parameters.get("language"), autoDetectLanguage);
     final String motherTongueParam = parameters.get("motherTongue");
     final Language motherTongue = motherTongueParam != null ? Languages.getLanguageForShortName(motherTongueParam) : null;
-    final boolean useEnabledOnly = "yes".equals(parameters.get("enabledOnly"));
-    final String enabledParam = parameters.get("enabled");
-    final List<String> enabledRules = new ArrayList<>();
-    if (enabledParam != null) {
-      enabledRules.addAll(Arrays.asList(enabledParam.split(",")));
-    }
-    
-    final String disabledParam = parameters.get("disabled");
-    final List<String> disabledRules = new ArrayList<>();
-    if (disabledParam != null) {
-      disabledRules.addAll(Arrays.asList(disabledParam.split(",")));
-    }
-
-    if (disabledRules.size() > 0 && useEnabledOnly) {
-      throw new IllegalArgumentException("You cannot specify disabled rules using enabledOnly=yes");
+    final String format = parameters.get("format");
+    if (format != null && !format.equals("xml") && !format.equals("json")) {
+      throw new IllegalArgumentException("Unknown format '" + format + "', use 'xml' or 'json'");
     }
+    final QueryParams params = getQueryParams(parameters);
     
-    final boolean useQuerySettings = enabledRules.size() > 0 || disabledRules.size() > 0;
-    final QueryParams params = new QueryParams(enabledRules, disabledRules, useEnabledOnly, useQuerySettings);
-    
+    // the check stops itself when the time is up, so it doesn't keep a worker busy:
+    final CheckContext context = newCheckContext();
     final Future<List<RuleMatch>> future = executorService.submit(new Callable<List<RuleMatch>>() {
       @Override
       public List<RuleMatch> call() throws Exception {
-        return getRuleMatches(text, parameters, lang, motherTongue, params);
+        return getRuleMatches(text, parameters, lang, motherTongue, params, context);
       }
     });
     final List<RuleMatch> matches;
@@ -382,21 +434,22 @@ class LanguageToolHttpHandler implements HttpHandler {
       try {
         matches = future.get(maxCheckTimeMillis, TimeUnit.MILLISECONDS);
       } catch (TimeoutException e) {
-        throw new RuntimeException("Text checking took longer than allowed maximum of " + maxCheckTimeMillis +
-                " milliseconds (handleCount: " + handleCount + ", queue size: " + workQueue.size() +
-                ", language: " + lang.getShortNameWithCountryAndVariant() +
-                ", " + text.length() + " characters of text)", e);
+        context.cancel();
+        future.cancel(true);
+        throw getTimeoutException(text, lang, e);
       }
     }
+    if (context.isIncomplete()) {
+      // we don't return partial results, the client couldn't tell them from complete ones:
+      throw getTimeoutException(text, lang, new TimeoutException("Check stopped after " + maxCheckTimeMillis + "ms"));
+    }
     
     setCommonHeaders(httpExchange);
-    String xmlResponse = getXmlResponse(text, lang, motherTongue, matches);
     String messageSent = "sent";
     String languageMessage = lang.getShortNameWithCountryAndVariant();
     final String referrer = httpExchange.getRequestHeaders().getFirst("Referer");
     try {
-      httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, xmlResponse.getBytes(ENCODING).length);
-      httpExchange.getResponseBody().write(xmlResponse.getBytes(ENCODING));
+      sendResponse(httpExchange, text, lang, motherTongue, matches, format);
       if (motherTongue != null) {
         languageMessage += " (mother tongue: " + motherTongue.getShortNameWithCountryAndVariant() + ")";
       }
@@ -407,9 +460,244 @@ class LanguageToolHttpHandler implements HttpHandler {
     print("Check done: " + text.length() + " chars, " + languageMessage + ", " + referrer + ", "
             + "handlers:" + handleCount + ", queue:" + workQueue.size() + ", " + matches.size() + " matches, "
             + (System.currentTimeMillis() - timeStart) + "ms"
+            + ", pool hits/misses/idle:" + languageToolPool.getHits() + "/" + languageToolPool.getMisses() + "/" + languageToolPool.getIdleSize()
             + ", " + messageSent);
   }
 
+  /**
+   * Check the texts of a JSON batch (see {@link BatchRequest}). The texts are sorted by language and
+   * split into chunks of about the same size that are checked in parallel, each with one pooled
+   * instance per language. The results are sent as soon as a chunk is done, so they are
+   * not in the order of the request but can be assigned via their id. The whole batch gets
+   * the time of a single check, and at most half of the check threads, so that a batch
+   * doesn't keep other requests from being checked.
+   */
+  private void checkBatch(String body, HttpExchange httpExchange, Map<String, String> parameters) throws Exception {
+    final long timeStart = System.currentTimeMillis();
+    final List<BatchRequest.Item> items = BatchRequest.parse(body);
+    if (items.size() > maxBatchSize) {
+      throw new TextTooLongException("Your batch exceeds this server's limit of " + maxBatchSize +
+              " texts (it has " + items.size() + " texts). Please submit a smaller batch.");
+    }
+    final String defaultLanguage = parameters.get("language");
+    final QueryParams params = getQueryParams(parameters);
+    final List<BatchResult> failed = new ArrayList<>();
+    final List<BatchResult> toCheck = new ArrayList<>();
+    long totalLength = 0;
+    for (BatchRequest.Item item : items) {
+      final BatchResult result = new BatchResult(item);
+      final String langCode = item.language != null ? item.language : defaultLanguage;
+      if (langCode == null) {
+        result.error = "Missing 'language' for this text and in the query";
+      } else if (item.text.length() > maxTextLength) {
+        result.error = "The text exceeds this server's limit of " + maxTextLength + " characters";
+      } else {
+        try {
+          result.lang = Languages.getLanguageForShortName(langCode);
+        } catch (IllegalArgumentException e) {
+          result.error = e.getMessage();
+        }
+      }
+      if (result.error != null) {
+        failed.add(result);
+      } else {
+        toCheck.add(result);
+        totalLength += item.text.length();
+      }
+    }
+    // the same language next to each other, so the chunks need as few instances as possible:
+    Collections.sort(toCheck, new Comparator<BatchResult>() {
+      @Override
+      public int compare(BatchResult r1, BatchResult r2) {
+        final int langComparison = r1.lang.getShortNameWithCountryAndVariant().compareTo(r2.lang.getShortNameWithCountryAndVariant());
+        return langComparison != 0 ? langComparison : Integer.compare(r1.item.index, r2.item.index);
+      }
+    });
+    final List<List<BatchResult>> chunks = getBatchChunks(toCheck, totalLength, Math.max(1, getMaxParallelChecks() / 2));
+    final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxCheckTimeMillis);
+
+    final CompletionService<List<BatchResult>> completionService = new ExecutorCompletionService<>(executorService);
+    final Map<Future<List<BatchResult>>, List<BatchResult>> futures = new LinkedHashMap<>();
+    boolean complete = false;
+    int matchCount = 0;
+    String messageSent = "sent";
+    try {
+      for (final List<BatchResult> chunk : chunks) {
+        futures.put(completionService.submit(new Callable<List<BatchResult>>() {
+          @Override
+          public List<BatchResult> call() throws Exception {
+            return checkBatchChunk(chunk, params, deadlineNanos);
+          }
+        }), chunk);
+      }
+      setCommonHeaders(httpExchange);
+      httpExchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE_VALUE);
+      httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+      try {
+        final RuleAsJsonSerializer.BatchWriter writer =
+                new RuleAsJsonSerializer().startBatch(httpExchange.getResponseBody(), CONTEXT_SIZE);
+        for (BatchResult result : failed) {
+          writer.writeError(result.item.id, result.error);
+        }
+        writer.flush();
+        for (int i = 0; i < futures.size(); i++) {
+          // the response has already been started, so errors can only be reported per text from now on:
+          final Future<List<BatchResult>> future = completionService.take();
+          try {
+            for (BatchResult result : future.get()) {
+              if (result.error != null) {
+                writer.writeError(result.item.id, result.error);
+              } else {
+                writer.writeResult(result.item.id, result.lang, result.matches, result.item.text);
+                matchCount += result.matches.size();
+              }
+            }
+          } catch (ExecutionException e) {
+            print("Checking a chunk of batch failed: " + e.getCause(), System.err);
+            for (BatchResult result : futures.get(future)) {
+              writer.writeError(result.item.id, "Checking failed: " + e.getCause().getMessage());
+            }
+          }
+          writer.flush();
+        }
+        writer.finish();
+        complete = true;
+      } catch (IOException exception) {
+        // the client is disconnected
+        messageSent = "notSent: " + exception.getMessage();
+      } catch (InterruptedException exception) {
+        // the server is stopped, the client gets an incomplete response:
+        Thread.currentThread().interrupt();
+        messageSent = "notSent: interrupted";
+        httpExchange.getResponseBody().close();
+      }
+    } finally {
+      if (!complete) {
+        // nobody is waiting for the rest:
+        for (Future<List<BatchResult>> future : futures.keySet()) {
+          future.cancel(true);
+        }
+      }
+    }
+    print("Batch done: " + items.size() + " texts, " + totalLength + " chars, " + chunks.size() + " chunks, "
+            + "handlers:" + handleCount + ", queue:" + workQueue.size() + ", " + matchCount + " matches, "
+            + (System.currentTimeMillis() - timeStart) + "ms"
+            + ", pool hits/misses/idle:" + languageToolPool.getHits() + "/" + languageToolPool.getMisses() + "/" + languageToolPool.getIdleSize()
+            + ", " + messageSent);
+  }
+
+  /**
+   * Split the sorted texts into at most {@code maxChunks} consecutive chunks of about the same number of characters.
+   */
+  private static List<List<BatchResult>> getBatchChunks(List<BatchResult> sortedResults, long totalLength, int maxChunks) {
+    final List<List<BatchResult>> chunks = new ArrayList<>();
+    final int chunkCount = Math.max(1, Math.min(maxChunks, sortedResults.size()));
+    final long chunkLength = (totalLength + chunkCount - 1) / chunkCount;
+    List<BatchResult> chunk = new ArrayList<>();
+    long length = 0;
+    for (BatchResult result : sortedResults) {
+      chunk.add(result);
+      length += result.item.text.length();
+      if (length >= chunkLength && chunks.size() < chunkCount - 1) {
+        chunks.add(chunk);
+        chunk = new ArrayList<>();
+        length = 0;
+      }
+    }
+    if (chunk.size() > 0) {
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+
+  private int getMaxParallelChecks() {
+    if (executorService instanceof ThreadPoolExecutor) {
+      return ((ThreadPoolExecutor) executorService).getMaximumPoolSize();
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * @param deadlineNanos the {@link System#nanoTime()} when the whole batch needs to be done,
+   *                      ignored if there's no time limit
+   */
+  private List<BatchResult> checkBatchChunk(List<BatchResult> chunk, QueryParams params, long deadlineNanos) throws Exception {
+    JLanguageTool lt = null;
+    try {
+      for (BatchResult result : chunk) {
+        final CheckContext context;
+        if (maxCheckTimeMillis < 0) {
+          context = new CheckContext();
+        } else {
+          // the texts share the time of the batch:
+          final long remainingNanos = deadlineNanos - System.nanoTime();
+          if (remainingNanos <= 0) {
+            result.error = getBatchTimeoutMessage();
+            continue;
+          }
+          context = CheckContext.withTimeout(TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+        }
+        try {
+          if (lt == null || lt.getLanguage() != result.lang) {
+            if (lt != null) {
+              languageToolPool.returnLanguageTool(lt);
+              lt = null;
+            }
+            lt = languageToolPool.getLanguageTool(result.lang, null);
+          }
+          final List<RuleMatch> matches = lt.check(new AnnotatedTextBuilder().addText(result.item.text).build(), true,
+                  JLanguageTool.ParagraphHandling.NORMAL, getRuleSelection(lt, params), context);
+          if (context.isIncomplete()) {
+            result.error = getBatchTimeoutMessage();
+          } else {
+            result.matches = matches;
+          }
+        } catch (Exception e) {
+          if (Thread.currentThread().isInterrupted()) {
+            throw e;
+          }
+          print("Checking text '" + result.item.id + "' of batch failed: " + e, System.err);
+          result.error = "Checking failed: " + e.getMessage();
+        }
+      }
+    } finally {
+      if (lt != null) {
+        languageToolPool.returnLanguageTool(lt);
+      }
+    }
+    return chunk;
+  }
+
+  private String getBatchTimeoutMessage() {
+    return "Checking the batch took longer than " + maxCheckTimeMillis + " milliseconds, which is this server's limit";
+  }
+
+  private QueryParams getQueryParams(Map<String, String> parameters) {
+    final boolean useEnabledOnly = "yes".equals(parameters.get("enabledOnly"));
+    final String enabledParam = parameters.get("enabled");
+    final List<String> enabledRules = new ArrayList<>();
+    if (enabledParam != null) {
+      enabledRules.addAll(Arrays.asList(enabledParam.split(",")));
+    }
+    
+    final String disabledParam = parameters.get("disabled");
+    final List<String> disabledRules = new ArrayList<>();
+    if (disabledParam != null) {
+      disabledRules.addAll(Arrays.asList(disabledParam.split(",")));
+    }
+
+    if (disabledRules.size() > 0 && useEnabledOnly) {
+      throw new IllegalArgumentException("You cannot specify disabled rules using enabledOnly=yes");
+    }
+    
+    final boolean useQuerySettings = enabledRules.size() > 0 || disabledRules.size() > 0;
+    return new QueryParams(enabledRules, disabledRules, useEnabledOnly, useQuerySettings);
+  }
+
+  private CheckContext newCheckContext() {
+    return maxCheckTimeMillis < 0 ? new CheckContext() : CheckContext.withTimeout(maxCheckTimeMillis);
+  }
+
   private boolean getLanguageAutoDetect(Map<String, String> parameters) {
     if (afterTheDeadlineMode) {
       return "true".equals(parameters.get("guess"));
@@ -437,12 +725,24 @@ class LanguageToolHttpHandler implements HttpHandler {
     return lang;
   }
 
+  private RuntimeException getTimeoutException(String text, Language lang, TimeoutException cause) {
+    return new RuntimeException("Text checking took longer than allowed maximum of " + maxCheckTimeMillis +
+            " milliseconds (handleCount: " + handleCount + ", queue size: " + workQueue.size() +
+            ", language: " + lang.getShortNameWithCountryAndVariant() +
+            ", " + text.length() + " characters of text)", cause);
+  }
+
   private List<RuleMatch> getRuleMatches(String text, Map<String, String> parameters, Language lang,
-                                         Language motherTongue, QueryParams params) throws Exception {
+                                         Language motherTongue, QueryParams params, CheckContext context) throws Exception {
     final String sourceText = parameters.get("srctext");
     if (sourceText == null) {
-      final JLanguageTool lt = getLanguageToolInstance(lang, motherTongue, params);
-      return lt.check(text);
+      final JLanguageTool lt = languageToolPool.getLanguageTool(lang, motherTongue);
+      try {
+        return lt.check(new AnnotatedTextBuilder().addText(text).build(), true, JLanguageTool.ParagraphHandling.NORMAL,
+                getRuleSelection(lt, params), context);
+      } finally {
+        languageToolPool.returnLanguageTool(lt);
+      }
     } else {
       if (parameters.get("motherTongue") == null) {
         throw new IllegalArgumentException("Missing 'motherTongue' parameter for bilingual checks");
@@ -450,24 +750,63 @@ class LanguageToolHttpHandler implements HttpHandler {
       print("Checking bilingual text, with source length " + sourceText.length() +
           " and target length " + text.length() + " (characters), source language " +
           motherTongue + " and target language " + lang.getShortNameWithCountryAndVariant());
-      final JLanguageTool sourceLt = getLanguageToolInstance(motherTongue, null, params);
-      final JLanguageTool targetLt = getLanguageToolInstance(lang, null, params);
-      final List<BitextRule> bRules = Tools.selectBitextRules(Tools.getBitextRules(motherTongue, lang),
-          params.disabledRules, params.enabledRules, params.useEnabledOnly);
-      return Tools.checkBitext(sourceText, text, sourceLt, targetLt, bRules);
+      final JLanguageTool sourceLt = languageToolPool.getLanguageTool(motherTongue, null);
+      try {
+        final JLanguageTool targetLt = languageToolPool.getLanguageTool(lang, null);
+        try {
+          final List<BitextRule> bRules = Tools.selectBitextRules(Tools.getBitextRules(motherTongue, lang),
+              params.disabledRules, params.enabledRules, params.useEnabledOnly);
+          return Tools.checkBitext(sourceText, text, sourceLt, targetLt, bRules, getRuleSelection(targetLt, params));
+        } finally {
+          languageToolPool.returnLanguageTool(targetLt);
+        }
+      } finally {
+        languageToolPool.returnLanguageTool(sourceLt);
+      }
     }
   }
 
-  private String getXmlResponse(String text, Language lang, Language motherTongue, List<RuleMatch> matches) {
+  /**
+   * The rules selected by the query, or {@code null} to use the rules configured in the pooled instance.
+   */
+  @Nullable
+  private RuleSelection getRuleSelection(JLanguageTool lt, QueryParams params) {
+    if (!params.useQuerySettings) {
+      return null;
+    }
+    return lt.getCompiledRuleSet().createSelection()
+            .selectRules(params.disabledRules, params.enabledRules, params.useEnabledOnly);
+  }
+
+  /**
+   * @param format {@code json} for JSON, {@code null} or {@code xml} for the XML format
+   */
+  private void sendResponse(HttpExchange httpExchange, String text, Language lang, Language motherTongue,
+                            List<RuleMatch> matches, @Nullable String format) throws IOException {
     if (afterTheDeadlineMode) {
       AtDXmlSerializer serializer = new AtDXmlSerializer();
-      return serializer.ruleMatchesToXml(matches, text);
+      final byte[] response = serializer.ruleMatchesToXml(matches, text).getBytes(ENCODING);
+      httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.length);
+      httpExchange.getResponseBody().write(response);
+    } else if ("json".equals(format)) {
+      sendJsonResponse(httpExchange, text, lang, motherTongue, matches);
     } else {
+      // length 0 means chunked transfer encoding, so the XML is sent while it's being written
+      // and doesn't need to be kept in memory as a whole:
+      httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
       RuleAsXmlSerializer serializer = new RuleAsXmlSerializer();
-      return serializer.ruleMatchesToXml(matches, text, CONTEXT_SIZE, lang, motherTongue);
+      serializer.ruleMatchesToXml(matches, text, CONTEXT_SIZE, lang, motherTongue, httpExchange.getResponseBody());
     }
   }
 
+  private void sendJsonResponse(HttpExchange httpExchange, String text, Language lang, Language motherTongue,
+                                List<RuleMatch> matches) throws IOException {
+    httpExchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE_VALUE);
+    httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+    RuleAsJsonSerializer serializer = new RuleAsJsonSerializer();
+    serializer.ruleMatchesToJson(matches, text, CONTEXT_SIZE, lang, motherTongue, httpExchange.getResponseBody());
+  }
+
   private Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
     final Map<String, String> parameters = new HashMap<>();
     if (query != null) {
@@ -492,7 +831,7 @@ class LanguageToolHttpHandler implements HttpHandler {
     return parameters;
   }
 
-  private static void print(String s) {
+  static void print(String s) {
     print(s, System.out);
   }
 
@@ -502,68 +841,6 @@ class LanguageToolHttpHandler implements HttpHandler {
     outputStream.println(now + " " + s);
   }
 
-  /**
-   * Create a JLanguageTool instance for a specific language, mother tongue, and rule configuration.
-   *
-   * @param lang the language to be used.
-   * @param motherTongue the user's mother tongue or {@code null}
-   */
-  private JLanguageTool getLanguageToolInstance(Language lang, Language motherTongue, QueryParams params) throws Exception {
-    final JLanguageTool newLanguageTool = new JLanguageTool(lang, motherTongue);
-    if (languageModelDir != null) {
-      newLanguageTool.activateLanguageModelRules(languageModelDir);
-    }
-    if (!params.useQuerySettings) {
-      if (rulesConfigurationFile != null) {
-        configureFromRulesFile(newLanguageTool, lang);
-      }
-      else {
-        configureFromGUI(newLanguageTool, lang);
-      }
-    }
-    if (params.useQuerySettings) {
-      Tools.selectRules(newLanguageTool, params.disabledRules, params.enabledRules, params.useEnabledOnly);
-    }
-    return newLanguageTool;
-  }
-
-  private void configureFromRulesFile(JLanguageTool langTool, Language lang) throws IOException {
-    print("Using options configured in " + rulesConfigurationFile);
-    // If we are explicitly configuring from rules, ignore the useGUIConfig flag
-    configureFromRules(langTool, new Configuration(rulesConfigurationFile.getParentFile(),
-                       rulesConfigurationFile.getName(), lang));
-  }
-
-  private void configureFromGUI(JLanguageTool langTool, Language lang) throws IOException {
-    Configuration config = new Configuration(lang);
-    if (internalServer && config.getUseGUIConfig()) {
-      print("Using options configured in the GUI");
-      configureFromRules(langTool, config);
-    }
-  }
-
-  private void configureFromRules(JLanguageTool langTool, Configuration config) {
-    final Set<String> disabledRules = config.getDisabledRuleIds();
-    if (disabledRules != null) {
-      for (final String ruleId : disabledRules) {
-        langTool.disableRule(ruleId);
-      }
-    }
-    final Set<String> disabledCategories = config.getDisabledCategoryNames();
-    if (disabledCategories != null) {
-      for (final String categoryName : disabledCategories) {
-        langTool.disableCategory(categoryName);
-      }
-    }
-    final Set<String> enabledRules = config.getEnabledRuleIds();
-    if (enabledRules != null) {
-      for (String ruleName : enabledRules) {
-        langTool.enableDefaultOffRule(ruleName);
-        langTool.enableRule(ruleName);
-      }
-    }
-  }
-
   /**
    * Construct an XML string containing all supported languages. <br/>The XML format looks like this:<br/><br/>
    * &lt;languages&gt;<br/>
@@ -591,6 +868,56 @@ class LanguageToolHttpHandler implements HttpHandler {
     return xmlBuffer.toString();
   }
 
+  /**
+   * Get statistics about the rules (the rules that took the most time first), the pool
+   * of {@link JLanguageTool} instances and the result cache as XML, like this:
+   * <pre>
+   * &lt;stats&gt;
+   *   &lt;pool hits="..." misses="..." evictions="..." idle="..." borrowed="..." maxSize="..."/&gt;
+   *   &lt;cache size="..." hits="..." misses="..." matchHits="..." matchMisses="..."/&gt;
+   *   &lt;rules&gt;
+   *     &lt;rule language="en-US" id="..." subId="..." invocations="..." totalMillis="..."
+   *           matches="..." checkedChars="..." allocatedBytes="..."/&gt;
+   *   &lt;/rules&gt;
+   * &lt;/stats&gt;
+   * </pre>
+   * @param maxRules the maximum number of rules to list
+   */
+  static String getStatsAsXML(RuleProfile profile, @Nullable LanguageToolPool pool, int maxRules) {
+    final StringBuilder xmlBuffer = new StringBuilder("<?xml version='1.0' encoding='" + ENCODING + "'?>\n<stats>\n");
+    if (pool != null) {
+      xmlBuffer.append(String.format("\t<pool hits=\"%d\" misses=\"%d\" evictions=\"%d\" idle=\"%d\" borrowed=\"%d\" maxSize=\"%d\"/>\n",
+              pool.getHits(), pool.getMisses(), pool.getEvictions(), pool.getIdleSize(), pool.getBorrowedSize(), pool.getMaxSize()));
+      final ResultCache cache = pool.getResultCache();
+      if (cache != null) {
+        xmlBuffer.append(String.format("\t<cache size=\"%d\" hits=\"%d\" misses=\"%d\" matchHits=\"%d\" matchMisses=\"%d\"/>\n",
+                cache.size(), cache.getHitCount(), cache.getMissCount(), cache.getMatchHitCount(), cache.getMatchMissCount()));
+      }
+    }
+    xmlBuffer.append("\t<rules>\n");
+    final List<RuleProfile.RuleStats> stats = profile.getStats();
+    for (RuleProfile.RuleStats ruleStats : stats.subList(0, Math.min(Math.max(0, maxRules), stats.size()))) {
+      xmlBuffer.append(String.format("\t\t<rule language=\"%s\" id=\"%s\"%s invocations=\"%d\" totalMillis=\"%d\" matches=\"%d\" checkedChars=\"%d\" allocatedBytes=\"%d\"/>\n",
+              ruleStats.getLanguageCode(), StringTools.escapeXML(ruleStats.getRuleId()),
+              ruleStats.getSubId() != null ? " subId=\"" + StringTools.escapeXML(ruleStats.getSubId()) + "\"" : "",
+              ruleStats.getInvocations(), ruleStats.getTotalNanos() / 1000000, ruleStats.getMatches(),
+              ruleStats.getCheckedChars(), ruleStats.getEstimatedAllocatedBytes()));
+    }
+    xmlBuffer.append("\t</rules>\n</stats>\n");
+    return xmlBuffer.toString();
+  }
+
+  private static class BatchResult {
+    final BatchRequest.Item item;
+    Language lang;
+    List<RuleMatch> matches;
+    String error;
+
+    BatchResult(BatchRequest.Item item) {
+      this.item = item;
+    }
+  }
+
   private class QueryParams {
     final List<String> enabledRules;
     final List<String> disabledRules;
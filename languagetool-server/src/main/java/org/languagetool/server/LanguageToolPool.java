@@ -0,0 +1,299 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.CompiledRuleSet;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.ResultCache;
+import org.languagetool.RuleProfile;
+import org.languagetool.gui.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of configured {@link JLanguageTool} instances, so that requests don't need to
+ * create the rules of a language again and again. Instances are kept per language and
+ * mother tongue and are created from a {@link CompiledRuleSet}, so requests that select
+ * their own rules can use them with a {@link org.languagetool.RuleSelection}. As
+ * {@link JLanguageTool} is not thread-safe, an instance is used by only one request at a
+ * time: get it with {@link #getLanguageTool(Language, Language)} and give it back with
+ * {@link #returnLanguageTool(JLanguageTool)} when the check is done.
+ * @since 3.1
+ */
+class LanguageToolPool {
+
+  private final ConcurrentMap<PoolKey, Deque<PooledInstance>> idleInstances = new ConcurrentHashMap<>();
+  private final Map<JLanguageTool, PoolKey> borrowedInstances = Collections.synchronizedMap(new IdentityHashMap<JLanguageTool, PoolKey>());
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  private final int maxSize;
+  private final long expireTimeMillis;
+  private final boolean internalServer;
+  private final File languageModelDir;
+  private final File rulesConfigurationFile;
+  private final ResultCache resultCache;
+
+  private volatile long lastExpiryRun = System.currentTimeMillis();
+
+  /**
+   * @param maxSize maximum number of idle instances kept over all languages and configurations,
+   *                use {@code 0} to create a new instance for every request
+   * @param expireTimeInSeconds idle instances that have not been used for this time get dropped
+   * @param internalServer whether the server was started from the GUI (then the GUI configuration is used)
+   * @param languageModelDir language model directory or {@code null}
+   * @param rulesConfigurationFile rule configuration file or {@code null}
+   * @param resultCache cache shared by all instances or {@code null}
+   */
+  LanguageToolPool(int maxSize, int expireTimeInSeconds, boolean internalServer,
+                   @Nullable File languageModelDir, @Nullable File rulesConfigurationFile,
+                   @Nullable ResultCache resultCache) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Pool size must be >= 0: " + maxSize);
+    }
+    if (expireTimeInSeconds <= 0) {
+      throw new IllegalArgumentException("Pool expire time must be > 0: " + expireTimeInSeconds);
+    }
+    this.maxSize = maxSize;
+    this.expireTimeMillis = expireTimeInSeconds * 1000L;
+    this.internalServer = internalServer;
+    this.languageModelDir = languageModelDir;
+    this.rulesConfigurationFile = rulesConfigurationFile;
+    this.resultCache = resultCache;
+  }
+
+  /**
+   * Get a configured instance from the pool, or create one if there's no idle instance
+   * for the given languages. The instance's rules are configured by the rule configuration
+   * file or the GUI configuration, use a {@link org.languagetool.RuleSelection} to check
+   * with other rules.
+   */
+  JLanguageTool getLanguageTool(Language lang, @Nullable Language motherTongue) throws Exception {
+    expireIfNeeded();
+    final PoolKey key = new PoolKey(lang, motherTongue);
+    final Deque<PooledInstance> instances = idleInstances.get(key);
+    if (instances != null) {
+      final PooledInstance pooled = instances.pollFirst();
+      if (pooled != null) {
+        idleCount.decrementAndGet();
+        hits.incrementAndGet();
+        borrowedInstances.put(pooled.languageTool, key);
+        return pooled.languageTool;
+      }
+    }
+    misses.incrementAndGet();
+    final JLanguageTool lt = createLanguageTool(lang, motherTongue);
+    borrowedInstances.put(lt, key);
+    return lt;
+  }
+
+  /**
+   * Give an instance back to the pool after the check is done. If the pool is full,
+   * the instance is dropped.
+   */
+  void returnLanguageTool(JLanguageTool lt) {
+    final PoolKey key = borrowedInstances.remove(lt);
+    if (key == null) {
+      throw new IllegalArgumentException("Instance was not taken from this pool: " + lt);
+    }
+    if (idleCount.incrementAndGet() > maxSize) {
+      idleCount.decrementAndGet();
+      return;
+    }
+    Deque<PooledInstance> instances = idleInstances.get(key);
+    if (instances == null) {
+      final Deque<PooledInstance> newInstances = new ConcurrentLinkedDeque<>();
+      instances = idleInstances.putIfAbsent(key, newInstances);
+      if (instances == null) {
+        instances = newInstances;
+      }
+    }
+    // most recently used instances are taken first, so rarely needed ones expire:
+    instances.addFirst(new PooledInstance(lt, System.currentTimeMillis()));
+  }
+
+  /**
+   * Create instances for the given languages in advance, so the first requests
+   * for these languages don't need to wait for the rules being loaded.
+   */
+  void prewarm(List<Language> languages) throws Exception {
+    for (Language lang : languages) {
+      final long startTime = System.currentTimeMillis();
+      final JLanguageTool lt = createLanguageTool(lang, null);
+      borrowedInstances.put(lt, new PoolKey(lang, null));
+      returnLanguageTool(lt);
+      System.out.println("Prepared LanguageTool instance for " + lang.getShortNameWithCountryAndVariant() +
+              " in " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+  }
+
+  /** Number of requests that could use an idle instance. */
+  long getHits() {
+    return hits.get();
+  }
+
+  /** Number of requests that needed a new instance. */
+  long getMisses() {
+    return misses.get();
+  }
+
+  /** Number of idle instances that were dropped because they were not used for too long. */
+  long getEvictions() {
+    return evictions.get();
+  }
+
+  /** Number of instances currently idle in the pool. */
+  int getIdleSize() {
+    return idleCount.get();
+  }
+
+  /** Number of instances currently used by running checks. */
+  int getBorrowedSize() {
+    return borrowedInstances.size();
+  }
+
+  int getMaxSize() {
+    return maxSize;
+  }
+
+  @Nullable
+  ResultCache getResultCache() {
+    return resultCache;
+  }
+
+  private void expireIfNeeded() {
+    final long now = System.currentTimeMillis();
+    if (now - lastExpiryRun < expireTimeMillis / 2) {
+      return;
+    }
+    lastExpiryRun = now;
+    for (Deque<PooledInstance> instances : idleInstances.values()) {
+      final Iterator<PooledInstance> iterator = instances.iterator();
+      while (iterator.hasNext()) {
+        final PooledInstance pooled = iterator.next();
+        if (now - pooled.lastUsed > expireTimeMillis && instances.removeFirstOccurrence(pooled)) {
+          idleCount.decrementAndGet();
+          evictions.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  private JLanguageTool createLanguageTool(Language lang, @Nullable Language motherTongue) throws Exception {
+    // the pattern rules are loaded only once per language and mother tongue:
+    final JLanguageTool newLanguageTool = new JLanguageTool(CompiledRuleSet.get(lang, motherTongue));
+    if (languageModelDir != null) {
+      newLanguageTool.activateLanguageModelRules(languageModelDir);
+    }
+    if (rulesConfigurationFile != null) {
+      configureFromRulesFile(newLanguageTool, lang);
+    } else {
+      configureFromGUI(newLanguageTool, lang);
+    }
+    newLanguageTool.setResultCache(resultCache);
+    // the statistics are shown by /stats:
+    newLanguageTool.setRuleProfile(RuleProfile.getDefault());
+    return newLanguageTool;
+  }
+
+  private void configureFromRulesFile(JLanguageTool langTool, Language lang) throws IOException {
+    print("Using options configured in " + rulesConfigurationFile);
+    // If we are explicitly configuring from rules, ignore the useGUIConfig flag
+    configureFromRules(langTool, new Configuration(rulesConfigurationFile.getParentFile(),
+                       rulesConfigurationFile.getName(), lang));
+  }
+
+  private void configureFromGUI(JLanguageTool langTool, Language lang) throws IOException {
+    final Configuration config = new Configuration(lang);
+    if (internalServer && config.getUseGUIConfig()) {
+      print("Using options configured in the GUI");
+      configureFromRules(langTool, config);
+    }
+  }
+
+  private void configureFromRules(JLanguageTool langTool, Configuration config) {
+    final Set<String> disabledRules = config.getDisabledRuleIds();
+    if (disabledRules != null) {
+      for (final String ruleId : disabledRules) {
+        langTool.disableRule(ruleId);
+      }
+    }
+    final Set<String> disabledCategories = config.getDisabledCategoryNames();
+    if (disabledCategories != null) {
+      for (final String categoryName : disabledCategories) {
+        langTool.disableCategory(categoryName);
+      }
+    }
+    final Set<String> enabledRules = config.getEnabledRuleIds();
+    if (enabledRules != null) {
+      for (String ruleName : enabledRules) {
+        langTool.enableDefaultOffRule(ruleName);
+        langTool.enableRule(ruleName);
+      }
+    }
+  }
+
+  private static void print(String s) {
+    LanguageToolHttpHandler.print(s);
+  }
+
+  private static class PooledInstance {
+    private final JLanguageTool languageTool;
+    private final long lastUsed;
+    private PooledInstance(JLanguageTool languageTool, long lastUsed) {
+      this.languageTool = languageTool;
+      this.lastUsed = lastUsed;
+    }
+  }
+
+  private static class PoolKey {
+    private final String lang;
+    private final String motherTongue;
+
+    private PoolKey(Language lang, @Nullable Language motherTongue) {
+      this.lang = lang.getShortNameWithCountryAndVariant();
+      this.motherTongue = motherTongue != null ? motherTongue.getShortNameWithCountryAndVariant() : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      final PoolKey other = (PoolKey) o;
+      return lang.equals(other.lang) && Objects.equals(motherTongue, other.motherTongue);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(lang, motherTongue);
+    }
+  }
+
+}
@@ -18,28 +18,51 @@
  */
 package org.languagetool.server;
 
-import java.util.Date;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Limit the maximum number of request per IP address for a given time range.
+ * Limit the maximum number of requests and the maximum number of characters to check
+ * per IP address for a given time range. The time range is divided into slots, the
+ * requests of each IP address are counted per slot, so checking the limits takes the
+ * same time no matter how many requests there are. Requests are not counted more
+ * precisely than the duration of a slot.
  */
 class RequestLimiter {
 
-  private static final int API_REQUEST_QUEUE_SIZE = 1000;
+  // the number of slots the time period is divided into:
+  private static final int SLOT_COUNT = 10;
 
-  private final List<RequestEvent> requestEvents = new CopyOnWriteArrayList<>();
+  private final ConcurrentMap<String, RequestWindow> requestWindows = new ConcurrentHashMap<>();
+  private final AtomicLong lastExpiry = new AtomicLong(System.currentTimeMillis());
   private final int requestLimit;
+  private final int requestLimitInChars;
   private final int requestLimitPeriodInSeconds;
+  private final long slotMillis;
 
   /**
    * @param requestLimit the maximum number of request per <tt>requestLimitPeriodInSeconds</tt>
    * @param requestLimitPeriodInSeconds the time period over which requests are considered, in seconds
    */
   RequestLimiter(int requestLimit, int requestLimitPeriodInSeconds) {
+    this(requestLimit, 0, requestLimitPeriodInSeconds);
+  }
+
+  /**
+   * @param requestLimit the maximum number of request per <tt>requestLimitPeriodInSeconds</tt>, {@code 0} for no limit
+   * @param requestLimitInChars the maximum number of characters to check per <tt>requestLimitPeriodInSeconds</tt>,
+   *                            {@code 0} for no limit
+   * @param requestLimitPeriodInSeconds the time period over which requests are considered, in seconds
+   * @since 3.1
+   */
+  RequestLimiter(int requestLimit, int requestLimitInChars, int requestLimitPeriodInSeconds) {
     this.requestLimit = requestLimit;
+    this.requestLimitInChars = requestLimitInChars;
     this.requestLimitPeriodInSeconds = requestLimitPeriodInSeconds;
+    this.slotMillis = Math.max(1, requestLimitPeriodInSeconds * 1000L / SLOT_COUNT);
   }
 
   /**
@@ -49,6 +72,14 @@ class RequestLimiter {
     return requestLimit;
   }
 
+  /**
+   * The maximum number of characters to check per {@link #getRequestLimitPeriodInSeconds()}.
+   * @since 3.1
+   */
+  int getRequestLimitInChars() {
+    return requestLimitInChars;
+  }
+
   /**
    * The time period over which requests are considered, in seconds.
    */
@@ -61,36 +92,89 @@ class RequestLimiter {
    * @return true if access is allowed because the request limit is not reached yet
    */
   boolean isAccessOkay(String ipAddress) {
-    while (requestEvents.size() > API_REQUEST_QUEUE_SIZE) {
-      requestEvents.remove(0);
+    return isAccessOkay(ipAddress, 0);
+  }
+
+  /**
+   * @param ipAddress the client's IP address
+   * @param textLength the number of characters to be checked by the request
+   * @return true if access is allowed because neither the request limit nor the character limit is reached yet
+   * @since 3.1
+   */
+  boolean isAccessOkay(String ipAddress, int textLength) {
+    if (requestLimitPeriodInSeconds <= 0) {
+      return true;
+    }
+    final long now = System.currentTimeMillis();
+    expireIfNeeded(now);
+    RequestWindow window = requestWindows.get(ipAddress);
+    if (window == null) {
+      final RequestWindow newWindow = new RequestWindow();
+      window = requestWindows.putIfAbsent(ipAddress, newWindow);
+      if (window == null) {
+        window = newWindow;
+      }
     }
-    requestEvents.add(new RequestEvent(ipAddress, new Date()));
-    return !limitReached(ipAddress);
+    return window.add(now / slotMillis, textLength);
   }
-  
-  private boolean limitReached(String ipAddress) {
-    int requestsByIp = 0;
-    // all requests before this date are considered old:
-    Date thresholdDate = new Date(System.currentTimeMillis() - requestLimitPeriodInSeconds * 1000);
-    for (RequestEvent requestEvent : requestEvents) {
-      if (requestEvent.ip.equals(ipAddress) && requestEvent.date.after(thresholdDate)) {
-        requestsByIp++;
-        if (requestsByIp > requestLimit) {
-          return true;
-        }
+
+  /**
+   * The number of IP addresses whose requests are currently counted.
+   */
+  int getIpCount() {
+    return requestWindows.size();
+  }
+
+  // drop the IP addresses without requests in the time period, so the map doesn't grow forever:
+  private void expireIfNeeded(long now) {
+    final long last = lastExpiry.get();
+    if (now - last < requestLimitPeriodInSeconds * 1000L || !lastExpiry.compareAndSet(last, now)) {
+      return;
+    }
+    final long oldestSlot = now / slotMillis - SLOT_COUNT;
+    final Iterator<Map.Entry<String, RequestWindow>> iterator = requestWindows.entrySet().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().getValue().isOlderThan(oldestSlot)) {
+        // a request counted at the same time may get lost, that's no problem for an IP address not used for so long
+        iterator.remove();
       }
     }
-    return false;
   }
-  
-  class RequestEvent {
 
-    private final String ip;
-    private final Date date;
+  /**
+   * The requests of one IP address in the last {@link #SLOT_COUNT} slots.
+   */
+  private final class RequestWindow {
+
+    private final long[] slots = new long[SLOT_COUNT];
+    private final int[] requests = new int[SLOT_COUNT];
+    private final long[] chars = new long[SLOT_COUNT];
+    private long lastSlot;
+
+    private synchronized boolean add(long slot, int textLength) {
+      final int index = (int) (slot % SLOT_COUNT);
+      if (slots[index] != slot) {
+        slots[index] = slot;
+        requests[index] = 0;
+        chars[index] = 0;
+      }
+      // requests that are denied count, too:
+      requests[index]++;
+      chars[index] += textLength;
+      lastSlot = slot;
+      int requestSum = 0;
+      long charSum = 0;
+      for (int i = 0; i < SLOT_COUNT; i++) {
+        if (slots[i] > slot - SLOT_COUNT) {
+          requestSum += requests[i];
+          charSum += chars[i];
+        }
+      }
+      return (requestLimit <= 0 || requestSum <= requestLimit) && (requestLimitInChars <= 0 || charSum <= requestLimitInChars);
+    }
 
-    RequestEvent(String ip, Date date) {
-      this.ip = ip;
-      this.date = date;
+    private synchronized boolean isOlderThan(long slot) {
+      return lastSlot <= slot;
     }
   }
 
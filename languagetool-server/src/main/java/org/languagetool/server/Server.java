@@ -21,10 +21,12 @@ package org.languagetool.server;
 import com.sun.net.httpserver.HttpServer;
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.JLanguageTool;
+import org.languagetool.ResultCache;
 
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -91,13 +93,34 @@ abstract class Server {
   @Nullable
   protected RequestLimiter getRequestLimiterOrNull(HTTPServerConfig config) {
     final int requestLimit = config.getRequestLimit();
+    final int requestLimitInChars = config.getRequestLimitInChars();
     final int requestLimitPeriodInSeconds = config.getRequestLimitPeriodInSeconds();
-    if (requestLimit > 0 || requestLimitPeriodInSeconds > 0) {
-      return new RequestLimiter(requestLimit, requestLimitPeriodInSeconds);
+    if (requestLimit > 0 || requestLimitInChars > 0 || requestLimitPeriodInSeconds > 0) {
+      return new RequestLimiter(requestLimit, requestLimitInChars, requestLimitPeriodInSeconds);
     }
     return null;
   }
 
+  /**
+   * Create the pool of {@link JLanguageTool} instances and prepare instances for
+   * the languages configured to be preloaded.
+   * @since 3.1
+   */
+  protected LanguageToolPool getLanguageToolPool(HTTPServerConfig config, boolean runInternally) throws Exception {
+    final ResultCache resultCache = config.getCacheSizeInMB() > 0
+            ? new ResultCache(config.getCacheSizeInMB() * 1024L * 1024L) : null;
+    final LanguageToolPool pool = new LanguageToolPool(config.getPoolSize(), config.getPoolExpireTimeInSeconds(),
+            runInternally, config.getLanguageModelDir(), config.getRulesConfigFile(), resultCache);
+    if (config.getPreloadLanguages().size() > 0) {
+      if (config.getPoolSize() == 0) {
+        System.out.println("WARNING: 'preloadLanguages' is set but 'poolSize' is 0, languages will not be preloaded");
+      } else {
+        pool.prewarm(config.getPreloadLanguages());
+      }
+    }
+    return pool;
+  }
+
   protected static boolean usageRequested(String[] args) {
     return args.length == 1 && (args[0].equals("-h") || args[0].equals("--help"));
   }
@@ -106,14 +129,23 @@ abstract class Server {
     System.out.println("                 'mode' - 'LanguageTool' or 'AfterTheDeadline' for emulation of After the Deadline output (optional, experimental)");
     System.out.println("                 'afterTheDeadlineLanguage' - language code like 'en' or 'en-GB' (required if mode is 'AfterTheDeadline')");
     System.out.println("                 'maxTextLength' - maximum text length, longer texts will cause an error (optional)");
+    System.out.println("                 'maxBatchSize' - maximum number of texts per request to /batch (optional, default: 100)");
     System.out.println("                 'maxCheckTimeMillis' - maximum time in milliseconds allowed per check (optional)");
     System.out.println("                 'maxCheckThreads' - maximum number of threads working in parallel (optional)");
     System.out.println("                 'requestLimit' - maximum number of requests (optional)");
-    System.out.println("                 'requestLimitPeriodInSeconds' - time period to which requestLimit applies (optional)");
+    System.out.println("                 'requestLimitInChars' - maximum number of characters checked (optional)");
+    System.out.println("                 'requestLimitPeriodInSeconds' - time period to which requestLimit and requestLimitInChars apply (optional)");
     System.out.println("                 'languageModel' - a directory with '1grams', '2grams', '3grams' sub directories which contain a Lucene index");
     System.out.println("                  each with ngram occurrence counts; activates the confusion rule if supported (optional)");
     System.out.println("                 'maxWorkQueueSize' - reject request if request queue gets larger than this (optional)");
     System.out.println("                 'rulesFile' - a file containing rules configuration, such as .langugagetool.cfg (optional)");
+    System.out.println("                 'poolSize' - maximum number of idle LanguageTool instances kept for re-use by later requests,");
+    System.out.println("                  0 creates a new instance per request (optional, default: 0)");
+    System.out.println("                 'poolExpireTimeInSeconds' - drop pooled instances not used for this time (optional, default: 300)");
+    System.out.println("                 'cacheSize' - memory in MB used to cache the analysis and the matches of sentences checked");
+    System.out.println("                  before, 0 disables the cache (optional, default: 0)");
+    System.out.println("                 'preloadLanguages' - comma-separated language codes like 'en-US,de-DE' for which instances");
+    System.out.println("                  are created on startup, requires 'poolSize' > 0 (optional)");
   }
   
   protected static void printCommonOptions() {
@@ -126,6 +158,20 @@ abstract class Server {
     System.out.println("  --verbose, -v  in case of exceptions, log the input text (up to 500 characters)");
   }
 
+  /**
+   * The workers that run the text checks. Checking is CPU-bound, so there's a fixed number of
+   * workers and only a small queue, further checks are rejected instead of piling up.
+   * @since 3.1
+   */
+  protected ThreadPoolExecutor getCheckExecutorService(HTTPServerConfig config) {
+    int threadPoolSize = config.getMaxCheckThreads();
+    // requests are served by the same number of threads, so the queue only fills up if
+    // checks that have timed out are still running until they notice their interruption:
+    return new ThreadPoolExecutor(threadPoolSize, threadPoolSize,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(threadPoolSize));
+  }
+
   protected ThreadPoolExecutor getExecutorService(LinkedBlockingQueue<Runnable> workQueue, HTTPServerConfig config) {
     int threadPoolSize = config.getMaxCheckThreads();
     System.out.println("Setting up thread pool with " + threadPoolSize + " threads");
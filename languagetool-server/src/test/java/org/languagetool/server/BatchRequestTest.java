@@ -0,0 +1,69 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class BatchRequestTest {
+
+  @Test
+  public void testParse() {
+    List<BatchRequest.Item> items = BatchRequest.parse(
+            "[{\"id\": \"a\", \"language\": \"en-US\", \"text\": \"A \\\"first\\\" text.\\n\\u00e4\"},\n" +
+            " {\"text\": \"No id\", \"language\": null, \"other\": [1, true, {}]}, {\"id\": 42, \"text\": \"\"}]");
+    assertThat(items.size(), is(3));
+    assertThat(items.get(0).id, is("a"));
+    assertThat(items.get(0).language, is("en-US"));
+    assertThat(items.get(0).text, is("A \"first\" text.\nä"));
+    assertThat(items.get(1).id, is("1"));
+    assertThat(items.get(1).index, is(1));
+    assertThat(items.get(1).language, is(nullValue()));
+    assertThat(items.get(2).id, is("42"));
+    assertThat(items.get(2).text, is(""));
+    assertThat(BatchRequest.parse(" [ ] ").size(), is(0));
+  }
+
+  @Test
+  public void testInvalid() {
+    assertInvalid("");
+    assertInvalid("{\"text\": \"not an array\"}");
+    assertInvalid("[\"not an object\"]");
+    assertInvalid("[{\"id\": \"no text\"}]");
+    assertInvalid("[{\"text\": \"unterminated}]");
+    assertInvalid("[{\"text\": \"x\"}");
+    assertInvalid("[{\"text\": \"x\"}] trailing");
+  }
+
+  private void assertInvalid(String json) {
+    try {
+      BatchRequest.parse(json);
+      fail("Expected exception for " + json);
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
+}
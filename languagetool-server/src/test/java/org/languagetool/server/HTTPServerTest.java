@@ -34,6 +34,9 @@ import java.io.InputStream;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.junit.Assert.*;
 
@@ -98,6 +101,36 @@ public class HTTPServerTest {
     if (!languagesXML.contains("abbr=\"de\"") || !languagesXML.contains("abbrWithVariant=\"de-DE\"")) {
       fail("Error getting supported languages: " + languagesXML);
     }
+    // test rule statistics
+    final URL statsUrl = new URL("http://localhost:" + HTTPTools.getDefaultPort() + "/stats?limit=10000");
+    final String statsXML = StringTools.streamToString((InputStream) statsUrl.getContent(), "UTF-8");
+    if (!statsXML.contains("<pool ") || !statsXML.contains("<rule language=\"pl-PL\"")) {
+      fail("Error getting statistics: " + statsXML);
+    }
+    try {
+      final URL invalidStatsUrl = new URL("http://localhost:" + HTTPTools.getDefaultPort() + "/stats?limit=abc");
+      StringTools.streamToString((InputStream) invalidStatsUrl.getContent(), "UTF-8");
+      fail("Invalid limit was expected to be rejected");
+    } catch (IOException expected) {
+      if (!expected.toString().contains(" 400 ")) {
+        fail("Expected exception with error 400, got: " + expected);
+      }
+    }
+    // test JSON output
+    final URL jsonUrl = new URL("http://localhost:" + HTTPTools.getDefaultPort() + "/?language=pl&format=json&text="
+            + URLEncoder.encode("Mówiła długo, żeby tylko mówić mówić długo.", "UTF-8"));
+    final String json = HTTPTools.checkAtUrl(jsonUrl);
+    if (!json.startsWith("{\"software\":") || !json.contains("\"code\":\"pl-PL\"") || !json.contains("mówić")) {
+      fail("Error getting JSON: " + json);
+    }
+    // test batch check
+    final URL batchUrl = new URL("http://localhost:" + HTTPTools.getDefaultPort() + "/batch?language=en-US");
+    final String batchJson = HTTPTools.checkAtUrlByPost(batchUrl,
+            "[{\"id\": \"first\", \"text\": \"This is an test.\"}, {\"id\": \"second\", \"language\": \"xyz\", \"text\": \"x\"}]");
+    if (!batchJson.contains("{\"id\":\"first\",\"language\":{\"name\":\"English (US)\"") || !batchJson.contains("EN_A_VS_AN")
+            || !batchJson.contains("{\"id\":\"second\",\"error\":")) {
+      fail("Error getting batch JSON: " + batchJson);
+    }
     // tests for "&" character
     final English english = new English();
     assertTrue(check(english, "Me & you you").contains("&"));
@@ -182,6 +215,53 @@ public class HTTPServerTest {
     }
   }
 
+  @Test
+  public void testBatchTimeout() throws Exception {
+    HTTPServerConfig config = new HTTPServerConfig(HTTPTools.getDefaultPort(), false);
+    config.setMaxCheckTimeMillis(1);
+    final HTTPServer server = new HTTPServer(config, false);
+    try {
+      server.run();
+      final URL batchUrl = new URL("http://localhost:" + HTTPTools.getDefaultPort() + "/batch?language=en-US");
+      final String text = "This is an test. Theres a error in here, and and this sentence are wrong too.";
+      final String batchJson = HTTPTools.checkAtUrlByPost(batchUrl, "[{\"id\": \"first\", \"text\": \"" + text + "\"}, " +
+              "{\"id\": \"second\", \"text\": \"" + text + "\"}, {\"id\": \"third\", \"text\": \"" + text + "\"}]");
+      // the texts share the time of the batch, so none of them can be checked in time:
+      assertEquals(batchJson, 3, StringUtils.countMatches(batchJson, "\"error\":\"Checking the batch took longer than 1 milliseconds"));
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testCheckExecutorIsBounded() throws Exception {
+    HTTPServerConfig config = new HTTPServerConfig(HTTPTools.getDefaultPort(), false);
+    config.setMaxCheckThreads(1);
+    HTTPServer server = new HTTPServer(config, false);
+    ThreadPoolExecutor executor = server.getCheckExecutorService(config);
+    final CountDownLatch latch = new CountDownLatch(1);
+    Runnable blockingTask = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          latch.await();
+        } catch (InterruptedException ignored) {}
+      }
+    };
+    try {
+      executor.execute(blockingTask);  // running
+      executor.execute(blockingTask);  // queued
+      try {
+        executor.execute(blockingTask);
+        fail("Check was expected to be rejected as all workers are busy");
+      } catch (RejectedExecutionException expected) {}
+    } finally {
+      latch.countDown();
+      executor.shutdown();
+      server.stop();
+    }
+  }
+
   @Test
   public void testAccessDenied() throws Exception {
     final HTTPServer server = new HTTPServer(new HTTPServerConfig(HTTPTools.getDefaultPort()), false, new HashSet<String>());
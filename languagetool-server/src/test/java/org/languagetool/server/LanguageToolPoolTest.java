@@ -0,0 +1,123 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.ResultCache;
+import org.languagetool.language.Demo;
+
+import java.util.Arrays;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+public class LanguageToolPoolTest {
+
+  @Test
+  public void testReuse() throws Exception {
+    LanguageToolPool pool = new LanguageToolPool(2, 60, false, null, null, null);
+    Language lang = new Demo();
+    JLanguageTool lt1 = pool.getLanguageTool(lang, null);
+    assertThat(pool.getMisses(), is(1L));
+    assertThat(pool.getBorrowedSize(), is(1));
+    pool.returnLanguageTool(lt1);
+    assertThat(pool.getIdleSize(), is(1));
+    assertThat(pool.getBorrowedSize(), is(0));
+
+    JLanguageTool lt2 = pool.getLanguageTool(lang, null);
+    assertSame(lt1, lt2);
+    assertThat(pool.getHits(), is(1L));
+    assertThat(pool.getIdleSize(), is(0));
+
+    // a different mother tongue must not get the same instance:
+    JLanguageTool lt3 = pool.getLanguageTool(lang, new Demo());
+    assertNotSame(lt2, lt3);
+    assertThat(pool.getMisses(), is(2L));
+    pool.returnLanguageTool(lt2);
+    pool.returnLanguageTool(lt3);
+    assertThat(pool.getIdleSize(), is(2));
+  }
+
+  @Test
+  public void testMaxSize() throws Exception {
+    LanguageToolPool pool = new LanguageToolPool(1, 60, false, null, null, null);
+    Language lang = new Demo();
+    JLanguageTool lt1 = pool.getLanguageTool(lang, null);
+    JLanguageTool lt2 = pool.getLanguageTool(lang, null);
+    pool.returnLanguageTool(lt1);
+    pool.returnLanguageTool(lt2);
+    assertThat(pool.getIdleSize(), is(1));
+  }
+
+  @Test
+  public void testNoPooling() throws Exception {
+    LanguageToolPool pool = new LanguageToolPool(0, 60, false, null, null, null);
+    Language lang = new Demo();
+    JLanguageTool lt1 = pool.getLanguageTool(lang, null);
+    pool.returnLanguageTool(lt1);
+    JLanguageTool lt2 = pool.getLanguageTool(lang, null);
+    assertNotSame(lt1, lt2);
+    assertThat(pool.getHits(), is(0L));
+    assertThat(pool.getIdleSize(), is(0));
+  }
+
+  @Test
+  public void testPrewarm() throws Exception {
+    LanguageToolPool pool = new LanguageToolPool(5, 60, false, null, null, null);
+    Language lang = new Demo();
+    pool.prewarm(Arrays.asList(lang));
+    assertThat(pool.getIdleSize(), is(1));
+    pool.getLanguageTool(lang, null);
+    assertThat(pool.getHits(), is(1L));
+    assertThat(pool.getMisses(), is(0L));
+  }
+
+  @Test
+  public void testSharedRules() throws Exception {
+    LanguageToolPool pool = new LanguageToolPool(5, 60, false, null, null, null);
+    Language lang = new Demo();
+    JLanguageTool lt1 = pool.getLanguageTool(lang, null);
+    JLanguageTool lt2 = pool.getLanguageTool(lang, null);
+    assertNotSame(lt1, lt2);
+    assertSame(lt1.getCompiledRuleSet(), lt2.getCompiledRuleSet());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReturnUnknownInstance() throws Exception {
+    LanguageToolPool pool = new LanguageToolPool(5, 60, false, null, null, null);
+    pool.returnLanguageTool(new JLanguageTool(new Demo()));
+  }
+
+  @Test
+  public void testSharedResultCache() throws Exception {
+    ResultCache cache = new ResultCache(1_000_000);
+    LanguageToolPool pool = new LanguageToolPool(5, 60, false, null, null, cache);
+    Language lang = new Demo();
+    JLanguageTool lt1 = pool.getLanguageTool(lang, null);
+    JLanguageTool lt2 = pool.getLanguageTool(lang, null);
+    assertSame(cache, lt1.getResultCache());
+    assertSame(cache, lt2.getResultCache());
+    lt1.check("This is a test.");
+    lt2.check("This is a test.");
+    assertThat(cache.getHitCount(), is(1L));
+  }
+
+}
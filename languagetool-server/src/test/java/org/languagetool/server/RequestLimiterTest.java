@@ -20,7 +20,9 @@ package org.languagetool.server;
 
 import org.junit.Test;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 public class RequestLimiterTest {
@@ -42,5 +44,29 @@ public class RequestLimiterTest {
     assertTrue(limiter.isAccessOkay(secondIp));
     assertFalse(limiter.isAccessOkay(secondIp));
   }
-  
+
+  @Test
+  public void testIsAccessOkayWithCharLimit() throws Exception {
+    final RequestLimiter limiter = new RequestLimiter(0, 100, 1);
+    final String ip = "192.168.10.1";
+    assertTrue(limiter.isAccessOkay(ip, 60));
+    assertTrue(limiter.isAccessOkay(ip, 40));
+    assertFalse(limiter.isAccessOkay(ip, 1));
+    assertTrue(limiter.isAccessOkay("192.168.10.2", 100));
+    Thread.sleep(1200);
+    assertTrue(limiter.isAccessOkay(ip, 100));
+  }
+
+  @Test
+  public void testExpiry() throws Exception {
+    final RequestLimiter limiter = new RequestLimiter(3, 1);
+    for (int i = 0; i < 100; i++) {
+      assertTrue(limiter.isAccessOkay("192.168.10." + i));
+    }
+    assertThat(limiter.getIpCount(), is(100));
+    Thread.sleep(2200);
+    assertTrue(limiter.isAccessOkay("192.168.10.1"));
+    assertThat(limiter.getIpCount(), is(1));
+  }
+
 }
@@ -75,10 +75,12 @@ import javax.swing.text.View;
 
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.Nullable;
+import org.languagetool.DocumentSession;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.Languages;
 import org.languagetool.MultiThreadedJLanguageTool;
+import org.languagetool.ResultCache;
 import org.languagetool.language.LanguageIdentifier;
 import org.languagetool.rules.ITSIssueType;
 import org.languagetool.rules.Rule;
@@ -112,8 +114,11 @@ class LanguageToolSupport {
   private final Map<Language, ConfigurationDialog> configDialogs = new HashMap<>();
   private final List<RuleMatch> ruleMatches;
   private final List<Span> documentSpans;
+  // keeps the analysis and the matches of unchanged sentences between checks:
+  private final ResultCache resultCache = new ResultCache(16 * 1024 * 1024);
 
   private MultiThreadedJLanguageTool languageTool;
+  private DocumentSession documentSession;
   private ScheduledExecutorService checkExecutor;
   private MouseListener mouseListener;
   private ActionListener actionListener;
@@ -291,6 +296,8 @@ class LanguageToolSupport {
       //  languageTool.shutdownWhenDone();
       //}
       languageTool = new MultiThreadedJLanguageTool(language, config.getMotherTongue());
+      languageTool.setResultCache(resultCache);
+      documentSession = new DocumentSession(languageTool);
       loadConfig();
       if (config.getNgramDirectory() != null) {
       	try { 
@@ -792,7 +799,9 @@ class LanguageToolSupport {
         throw new RuntimeException(ex);
       }
     }
-    final List<RuleMatch> matches = this.languageTool.check(this.textComponent.getText());
+    // only the sentences changed since the last check need to be analyzed again:
+    documentSession.setText(this.textComponent.getText());
+    final List<RuleMatch> matches = documentSession.check();
     int v = check.get();
     if (v == 0) {
       if (!SwingUtilities.isEventDispatchThread()) {
@@ -0,0 +1,92 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2015 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tagging;
+
+import org.languagetool.Language;
+import org.languagetool.Languages;
+import org.languagetool.tools.StringTools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Check how the throughput of a language's tagger scales with the number of threads
+ * that use the same tagger.
+ * Not a unit test, for interactive use only.
+ */
+final class TaggerPerformanceTest {
+
+  private static final int RUNS = 5;
+  private static final int SKIP = 2;
+
+  private void run(String languageCode, File textFile, int maxThreads) throws Exception {
+    String text = StringTools.readStream(new FileInputStream(textFile), "utf-8");
+    Language language = Languages.getLanguageForShortName(languageCode);
+    final Tagger tagger = language.getTagger();
+    final List<String> tokens = language.getWordTokenizer().tokenize(text);
+    System.out.println("Tokens: " + tokens.size());
+    for (int threads = 1; threads <= maxThreads; threads++) {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+        long totalTime = 0;
+        for (int i = 0; i < RUNS; i++) {
+          List<Future<Object>> futures = new ArrayList<>();
+          long startTime = System.nanoTime();
+          for (int j = 0; j < threads; j++) {
+            futures.add(executor.submit(new Callable<Object>() {
+              @Override
+              public Object call() throws IOException {
+                return tagger.tag(tokens);
+              }
+            }));
+          }
+          for (Future<Object> future : futures) {
+            future.get();
+          }
+          long runTime = System.nanoTime() - startTime;
+          if (i >= SKIP) {
+            totalTime += runTime;
+          }
+        }
+        float tokensPerSecond = (float) tokens.size() * threads * (RUNS - SKIP) / totalTime * 1_000_000_000;
+        System.out.println("Threads: " + threads + ", tokens/s: " + (long) tokensPerSecond);
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length != 2 && args.length != 3) {
+      System.out.println("Usage: " + TaggerPerformanceTest.class.getSimpleName() + " <languageCode> <text_file> [max_threads]");
+      System.exit(1);
+    }
+    TaggerPerformanceTest test = new TaggerPerformanceTest();
+    int maxThreads = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+    test.run(args[0], new File(args[1]), maxThreads);
+  }
+
+}